@@ -0,0 +1,253 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.os.Build;
+import android.support.test.InstrumentationRegistry;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.util.FontRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 表盘和指针的金图测试：在固定时刻、固定尺寸下绘制，与 androidTest/assets/golden 中的 PNG 逐像素对比
+ * <p>
+ * 金图在固定的参考模拟器上录制：Nexus 5X 模拟器，API 26 Google APIs x86 系统镜像，420dpi，默认字体缩放。
+ * 字体光栅化随系统版本和密度变化，其他设备上对比没有意义，直接跳过；录制也只允许在参考配置上进行。
+ * 录制后从设备取回：
+ * <pre>
+ * avdmanager create avd -n golden -k "system-images;android-26;google_apis;x86" -d "Nexus 5X"
+ * ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.recordGoldens=true
+ * adb pull /sdcard/Android/data/com.deanxd.elegantclock/files/golden app/src/androidTest/assets/
+ * </pre>
+ * 参考配置上缺少金图的用例直接失败；对比失败时实际图像和差异图写到同一目录，差异像素标为红色。
+ *
+ * @author Dean
+ */
+@RunWith(AndroidJUnit4.class)
+public class ClockRendererGoldenTest {
+
+    private final static String TAG = "ClockRendererGoldenTest";
+
+    private static final String GOLDEN_DIR = "golden";
+    private static final String ARG_RECORD = "recordGoldens";
+    /**
+     * 录制金图的参考配置
+     */
+    private static final int GOLDEN_API_LEVEL = 26;
+    private static final int GOLDEN_DENSITY_DPI = 420;
+
+    /**
+     * 单个通道允许的差值，吸收不同设备上抗锯齿边缘和 PNG 往返的细微差别
+     */
+    private static final int CHANNEL_TOLERANCE = 8;
+    /**
+     * 允许超出通道容差的像素比例
+     */
+    private static final float MAX_DIFF_RATIO = 0.002f;
+
+    /**
+     * 10:08:30.250，三根指针分开，不互相遮挡
+     */
+    private static final long TEN_PAST_TEN = 10 * HandAngles.HOUR_MILLIS + 8 * HandAngles.MINUTE_MILLIS
+            + 30 * HandAngles.SECOND_MILLIS + 250;
+    /**
+     * 03:45:15，时针和分针成直角，秒针靠近 3 点
+     */
+    private static final long QUARTER_TO_FOUR = 3 * HandAngles.HOUR_MILLIS + 45 * HandAngles.MINUTE_MILLIS
+            + 15 * HandAngles.SECOND_MILLIS;
+
+    private static final ClockStyle TAPERED = new ClockStyle.Builder()
+            .setHandShape(ClockStyle.HAND_SHAPE_TAPERED).build();
+
+    private Context mContext;
+    private boolean mRecord;
+    private final ArrayList<Bitmap> mBitmaps = new ArrayList<>();
+
+    @Before
+    public void setUp() throws Exception {
+        mContext = InstrumentationRegistry.getTargetContext();
+        mRecord = Boolean.parseBoolean(InstrumentationRegistry.getArguments().getString(ARG_RECORD));
+        boolean reference = Build.VERSION.SDK_INT == GOLDEN_API_LEVEL
+                && mContext.getResources().getDisplayMetrics().densityDpi == GOLDEN_DENSITY_DPI;
+        String config = "API " + Build.VERSION.SDK_INT + ", "
+                + mContext.getResources().getDisplayMetrics().densityDpi + "dpi";
+        if (mRecord) {
+            assertTrue("record goldens on API " + GOLDEN_API_LEVEL + ", " + GOLDEN_DENSITY_DPI + "dpi, not " + config,
+                    reference);
+        } else {
+            assumeTrue("goldens are recorded on API " + GOLDEN_API_LEVEL + ", " + GOLDEN_DENSITY_DPI + "dpi, not " + config,
+                    reference);
+        }
+        //先同步加载字体并清空表盘缓存，避免画出默认字体的表盘
+        FontRegistry.getInstance(mContext).loadBlocking(ClockStyle.DEFAULT.numeralFont, ClockStyle.DEFAULT.signatureFont);
+        DialLayerCache.getInstance(mContext).clear();
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        for (Bitmap bitmap : mBitmaps) {
+            bitmap.recycle();
+        }
+        mBitmaps.clear();
+    }
+
+    @Test
+    public void defaultDial() throws Exception {
+        Bitmap bitmap = newBitmap(480);
+        new DialRenderer(mContext).draw(new Canvas(bitmap), 480, 480, ClockStyle.DEFAULT);
+        verify("dial_default_480", bitmap);
+    }
+
+    @Test
+    public void ambientDial() throws Exception {
+        Bitmap bitmap = newBitmap(320);
+        new DialRenderer(mContext).draw(new Canvas(bitmap), 320, 320, ClockStyle.DEFAULT.toAmbient());
+        verify("dial_ambient_320", bitmap);
+    }
+
+    @Test
+    public void lineHands() throws Exception {
+        verify("hands_line_480", drawHands(ClockStyle.DEFAULT, 480, TEN_PAST_TEN));
+    }
+
+    @Test
+    public void taperedHands() throws Exception {
+        verify("hands_tapered_480", drawHands(TAPERED, 480, QUARTER_TO_FOUR));
+    }
+
+    /**
+     * 表盘缓存位图加指针，与世界时钟格子和离线导出的画面一致
+     */
+    @Test
+    public void smallClock() throws Exception {
+        Bitmap bitmap = newBitmap(240);
+        new ClockRenderer(mContext).render(bitmap, TEN_PAST_TEN);
+        verify("clock_default_240", bitmap);
+    }
+
+    private Bitmap drawHands(ClockStyle style, int size, long localMillis) {
+        Bitmap bitmap = newBitmap(size);
+        Canvas canvas = new Canvas(bitmap);
+        HandsRenderer renderer = new HandsRenderer();
+        renderer.setStyle(style);
+        renderer.setSize(size, size);
+        renderer.update(localMillis);
+        canvas.translate(size / 2, size / 2);
+        renderer.draw(canvas);
+        return bitmap;
+    }
+
+    private Bitmap newBitmap(int size) {
+        Bitmap bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+        mBitmaps.add(bitmap);
+        return bitmap;
+    }
+
+    private void verify(String name, Bitmap actual) throws IOException {
+        if (mRecord) {
+            File file = writePng(actual, name + ".png");
+            Log.i(TAG, "recorded " + file);
+            return;
+        }
+        Bitmap expected = readGolden(name);
+        assertNotNull("no golden image " + GOLDEN_DIR + "/" + name + ".png, record with " + ARG_RECORD + "=true", expected);
+        mBitmaps.add(expected);
+        int width = actual.getWidth();
+        int height = actual.getHeight();
+        assertEquals(name + " width", expected.getWidth(), width);
+        assertEquals(name + " height", expected.getHeight(), height);
+
+        int[] expectedPixels = new int[width * height];
+        int[] actualPixels = new int[width * height];
+        expected.getPixels(expectedPixels, 0, width, 0, 0, width, height);
+        actual.getPixels(actualPixels, 0, width, 0, 0, width, height);
+        int[] diffPixels = new int[width * height];
+        int diffCount = 0;
+        for (int i = 0; i < actualPixels.length; i++) {
+            if (!isSimilar(expectedPixels[i], actualPixels[i])) {
+                diffPixels[i] = Color.RED;
+                diffCount++;
+            }
+        }
+        if (diffCount > actualPixels.length * MAX_DIFF_RATIO) {
+            Bitmap diff = Bitmap.createBitmap(diffPixels, width, height, Bitmap.Config.ARGB_8888);
+            mBitmaps.add(diff);
+            File actualFile = writePng(actual, name + "_actual.png");
+            writePng(diff, name + "_diff.png");
+            fail(String.format(Locale.US, "%s: %d of %d pixels differ, see %s",
+                    name, diffCount, actualPixels.length, actualFile.getParent()));
+        }
+    }
+
+    private static boolean isSimilar(int expected, int actual) {
+        for (int shift = 0; shift < 32; shift += 8) {
+            int delta = ((expected >>> shift) & 0xff) - ((actual >>> shift) & 0xff);
+            if (Math.abs(delta) > CHANNEL_TOLERANCE) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 金图打包在测试 APK 的 assets 里，没有时返回 null
+     */
+    private static Bitmap readGolden(String name) throws IOException {
+        InputStream in;
+        try {
+            in = InstrumentationRegistry.getContext().getAssets().open(GOLDEN_DIR + "/" + name + ".png");
+        } catch (FileNotFoundException e) {
+            return null;
+        }
+        try {
+            BitmapFactory.Options options = new BitmapFactory.Options();
+            options.inPreferredConfig = Bitmap.Config.ARGB_8888;
+            return BitmapFactory.decodeStream(in, null, options);
+        } finally {
+            in.close();
+        }
+    }
+
+    private File writePng(Bitmap bitmap, String fileName) throws IOException {
+        File dir = mContext.getExternalFilesDir(GOLDEN_DIR);
+        if (dir == null) {
+            dir = new File(mContext.getFilesDir(), GOLDEN_DIR);
+        }
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("can not create " + dir);
+        }
+        File file = new File(dir, fileName);
+        OutputStream out = new FileOutputStream(file);
+        try {
+            bitmap.compress(Bitmap.CompressFormat.PNG, 100, out);
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
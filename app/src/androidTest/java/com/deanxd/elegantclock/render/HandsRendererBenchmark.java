@@ -0,0 +1,100 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.support.test.runner.AndroidJUnit4;
+import android.util.Log;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.Locale;
+
+/**
+ * 直线指针与渐细指针每帧绘制耗时的对比
+ * <p>
+ * 在真机上运行，结果输出到 logcat（tag 为 HandsRendererBenchmark）：
+ * {@code ./gradlew connectedAndroidTest -Pandroid.testInstrumentationRunnerArguments.class=com.deanxd.elegantclock.render.HandsRendererBenchmark}
+ *
+ * @author Dean
+ */
+@RunWith(AndroidJUnit4.class)
+public class HandsRendererBenchmark {
+
+    private final static String TAG = "HandsRendererBenchmark";
+
+    private static final int SIZE = 720;
+    private static final int WARMUP_FRAMES = 500;
+    private static final int FRAMES = 3000;
+    private static final long FRAME_MILLIS = 16;
+
+    private Bitmap mBitmap;
+    private Canvas mCanvas;
+
+    @Before
+    public void setUp() throws Exception {
+        mBitmap = Bitmap.createBitmap(SIZE, SIZE, Bitmap.Config.ARGB_8888);
+        mCanvas = new Canvas(mBitmap);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mBitmap.recycle();
+    }
+
+    @Test
+    public void lineHands() throws Exception {
+        run("line", ClockStyle.DEFAULT);
+    }
+
+    @Test
+    public void taperedHands() throws Exception {
+        run("tapered", new ClockStyle.Builder().setHandShape(ClockStyle.HAND_SHAPE_TAPERED).build());
+    }
+
+    /**
+     * 构建轮廓的开销只在尺寸或外观变化时产生一次
+     */
+    @Test
+    public void taperedLayout() throws Exception {
+        HandsRenderer renderer = new HandsRenderer();
+        ClockStyle tapered = new ClockStyle.Builder().setHandShape(ClockStyle.HAND_SHAPE_TAPERED).build();
+        renderer.setStyle(tapered);
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            renderer.setSize(SIZE - i % 2, SIZE);
+        }
+        report("tapered layout", System.nanoTime() - start);
+    }
+
+    private void run(String name, ClockStyle style) {
+        HandsRenderer renderer = new HandsRenderer();
+        renderer.setStyle(style);
+        renderer.setSize(SIZE, SIZE);
+        long millis = 0;
+        for (int i = 0; i < WARMUP_FRAMES; i++) {
+            millis += FRAME_MILLIS;
+            drawFrame(renderer, millis);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < FRAMES; i++) {
+            millis += FRAME_MILLIS;
+            drawFrame(renderer, millis);
+        }
+        report(name, System.nanoTime() - start);
+    }
+
+    private void drawFrame(HandsRenderer renderer, long localMillis) {
+        renderer.update(localMillis);
+        int saveCount = mCanvas.save();
+        mCanvas.translate(SIZE / 2, SIZE / 2);
+        renderer.draw(mCanvas);
+        mCanvas.restoreToCount(saveCount);
+    }
+
+    private static void report(String name, long totalNanos) {
+        Log.i(TAG, String.format(Locale.US, "%s: %.1f us/frame", name, totalNanos / 1000.0 / FRAMES));
+    }
+}
@@ -0,0 +1,64 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Matrix;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+import android.support.test.runner.AndroidJUnit4;
+
+import com.deanxd.elegantclock.core.HandAngles;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import static org.junit.Assert.assertTrue;
+
+/**
+ * 指针区域必须包住旋转后的渐细指针轮廓，否则脏区域刷新时配重和根部会被裁掉、留下残影
+ *
+ * @author Dean
+ */
+@RunWith(AndroidJUnit4.class)
+public class HandsRendererBoundsTest {
+
+    private static final int[] SIZES = {120, 480, 1080};
+    /**
+     * 12 小时内取不整的步长，覆盖各个角度
+     */
+    private static final long STEP_MILLIS = 7 * HandAngles.MINUTE_MILLIS + 13 * HandAngles.SECOND_MILLIS + 17;
+
+    private final Matrix mMatrix = new Matrix();
+    private final Path mRotated = new Path();
+    private final RectF mShapeBounds = new RectF();
+    private final Rect mShapeRect = new Rect();
+    private final Rect mBounds = new Rect();
+
+    @Test
+    public void boundsContainTaperedShapes() throws Exception {
+        ClockStyle tapered = new ClockStyle.Builder().setHandShape(ClockStyle.HAND_SHAPE_TAPERED).build();
+        for (int size : SIZES) {
+            HandsRenderer renderer = new HandsRenderer();
+            renderer.setStyle(tapered);
+            renderer.setSize(size, size);
+            int center = size / 2;
+            for (long millis = 0; millis < HandAngles.HALF_DAY_MILLIS; millis += STEP_MILLIS) {
+                renderer.update(millis);
+                renderer.getBounds(mBounds, center, center);
+                HandAngles angles = renderer.getHandAngles();
+                assertContains(renderer, HandsRenderer.HOUR, angles.hour, center, size, millis);
+                assertContains(renderer, HandsRenderer.MINUTE, angles.minute, center, size, millis);
+                assertContains(renderer, HandsRenderer.SECOND, angles.second, center, size, millis);
+            }
+        }
+    }
+
+    private void assertContains(HandsRenderer renderer, int hand, float angle, int center, int size, long millis) {
+        mMatrix.setRotate(angle);
+        mMatrix.postTranslate(center, center);
+        renderer.getShape(hand).transform(mMatrix, mRotated);
+        mRotated.computeBounds(mShapeBounds, true);
+        mShapeBounds.roundOut(mShapeRect);
+        assertTrue("hand " + hand + " at " + millis + " ms, size " + size + ": " + mShapeRect + " outside " + mBounds,
+                mBounds.contains(mShapeRect));
+    }
+}
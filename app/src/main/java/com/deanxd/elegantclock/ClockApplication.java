@@ -0,0 +1,47 @@
+package com.deanxd.elegantclock;
+
+import android.app.Application;
+import android.util.Log;
+
+import com.deanxd.elegantclock.render.DialLayerCache;
+import com.deanxd.elegantclock.util.FontRegistry;
+
+/**
+ * 启动时在后台预加载字体
+ * <p>
+ * 字体加载完成前表盘先用系统默认字体绘制；每加载完一个字体就清空表盘缓存，让各个时钟用正式字体重画一次。
+ *
+ * @author Dean
+ */
+
+public class ClockApplication extends Application {
+
+    private final static String TAG = "ClockApplication";
+
+    private long mCreateNanos;
+    private boolean mFontsReadyLogged;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        mCreateNanos = System.nanoTime();
+
+        final FontRegistry fontRegistry = FontRegistry.getInstance(this);
+        fontRegistry.addListener(new FontRegistry.OnFontLoadedListener() {
+            @Override
+            public void onFontLoaded(String asset) {
+                DialLayerCache.getInstance(ClockApplication.this).clear();
+                if (mFontsReadyLogged || !fontRegistry.isAllLoaded()) {
+                    return;
+                }
+                mFontsReadyLogged = true;
+                //解析字体的时间原先由每个时钟实例在主线程上各付一次
+                Log.i(TAG, "fonts ready " + (System.nanoTime() - mCreateNanos) / 1000000 + " ms after onCreate, "
+                        + fontRegistry.getLoadNanos() / 1000 + " us of parsing kept off the main thread");
+            }
+        });
+        fontRegistry.preload();
+
+        Log.i(TAG, "onCreate took " + (System.nanoTime() - mCreateNanos) / 1000 + " us on the main thread");
+    }
+}
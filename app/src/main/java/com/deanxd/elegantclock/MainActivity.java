@@ -1,13 +1,259 @@
 package com.deanxd.elegantclock;
 
+import android.content.Intent;
+import android.content.SharedPreferences;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.util.Log;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+import com.deanxd.elegantclock.core.Chronograph;
+import com.deanxd.elegantclock.core.FrameMetrics;
+import com.deanxd.elegantclock.core.LapRingBuffer;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.view.ClockDialView;
+import com.deanxd.elegantclock.view.HardwareClockView;
+import com.deanxd.elegantclock.view.PointerView;
+import com.deanxd.elegantclock.worldclock.WorldClockActivity;
+
+import java.util.Locale;
 
 public class MainActivity extends AppCompatActivity {
 
+    private final static String TAG = "MainActivity";
+
+    private static final String PREFS_NAME = "clock";
+    /**
+     * 渲染方式：true 为硬件加速的 {@link HardwareClockView}，false 为软件绘制的 SurfaceView
+     */
+    private static final String KEY_HARDWARE_BACKEND = "hardware_backend";
+    private static final String KEY_DEBUG_OVERLAY = "debug_overlay";
+    private static final String KEY_NIGHT_STYLE = "night_style";
+    private static final String KEY_AMBIENT_MODE = "ambient_mode";
+    private static final String KEY_CHRONOGRAPH = "chronograph";
+    /**
+     * 秒表模式下列出的最近圈数
+     */
+    private static final int VISIBLE_LAPS = 5;
+
+    private SharedPreferences mPreferences;
+    private boolean mHardwareBackend;
+    private HardwareClockView mHardwareClockView;
+    private ClockDialView mClockDialView;
+    private PointerView mPointerView;
+    private View mChronographControls;
+    private Button mStartStopButton;
+    private Button mLapResetButton;
+    private TextView mLapsText;
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        setContentView(R.layout.activity_main);
+        mPreferences = getSharedPreferences(PREFS_NAME, MODE_PRIVATE);
+        mHardwareBackend = mPreferences.getBoolean(KEY_HARDWARE_BACKEND, false);
+        if (mHardwareBackend) {
+            setContentView(R.layout.activity_main_hardware);
+            mHardwareClockView = (HardwareClockView) findViewById(R.id.hardware_clock);
+        } else {
+            setContentView(R.layout.activity_main);
+            mClockDialView = (ClockDialView) findViewById(R.id.clock_dial_view);
+            mPointerView = (PointerView) findViewById(R.id.pointer_view);
+            initChronographControls();
+        }
+        setDebugOverlayEnabled(mPreferences.getBoolean(KEY_DEBUG_OVERLAY, false));
+        setNightStyle(mPreferences.getBoolean(KEY_NIGHT_STYLE, false));
+        setAmbientMode(mPreferences.getBoolean(KEY_AMBIENT_MODE, false));
+        setChronographMode(mPreferences.getBoolean(KEY_CHRONOGRAPH, false));
+    }
+
+    /**
+     * 旋转屏幕重建页面时秒表继续计时
+     */
+    @Override
+    public Object onRetainCustomNonConfigurationInstance() {
+        return mHardwareBackend ? null : mPointerView.getChronograph();
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        setPaused(false);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        setPaused(true);
+        FrameMetrics metrics = getFrameMetrics();
+        Log.i(TAG, String.format(Locale.US, "%s backend: %d frames, cpu p50 %.2f p95 %.2f ms",
+                mHardwareBackend ? "hardware" : "software", metrics.getFrameCount(),
+                metrics.getCpuTimePercentile(50) / 1000000.0, metrics.getCpuTimePercentile(95) / 1000000.0));
+    }
+
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        getMenuInflater().inflate(R.menu.main, menu);
+        menu.findItem(R.id.action_hardware_backend).setChecked(mHardwareBackend);
+        menu.findItem(R.id.action_debug_overlay).setChecked(mPreferences.getBoolean(KEY_DEBUG_OVERLAY, false));
+        menu.findItem(R.id.action_night_style).setChecked(mPreferences.getBoolean(KEY_NIGHT_STYLE, false));
+        //常亮模式只支持软件绘制
+        menu.findItem(R.id.action_ambient_mode).setVisible(!mHardwareBackend)
+                .setChecked(mPreferences.getBoolean(KEY_AMBIENT_MODE, false));
+        menu.findItem(R.id.action_chronograph).setVisible(!mHardwareBackend)
+                .setChecked(mPreferences.getBoolean(KEY_CHRONOGRAPH, false));
+        return true;
+    }
+
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        boolean checked = !item.isChecked();
+        switch (item.getItemId()) {
+            case R.id.action_hardware_backend:
+                mPreferences.edit().putBoolean(KEY_HARDWARE_BACKEND, checked).apply();
+                recreate();
+                return true;
+            case R.id.action_debug_overlay:
+                item.setChecked(checked);
+                mPreferences.edit().putBoolean(KEY_DEBUG_OVERLAY, checked).apply();
+                setDebugOverlayEnabled(checked);
+                return true;
+            case R.id.action_night_style:
+                item.setChecked(checked);
+                mPreferences.edit().putBoolean(KEY_NIGHT_STYLE, checked).apply();
+                setNightStyle(checked);
+                return true;
+            case R.id.action_ambient_mode:
+                item.setChecked(checked);
+                mPreferences.edit().putBoolean(KEY_AMBIENT_MODE, checked).apply();
+                setAmbientMode(checked);
+                return true;
+            case R.id.action_chronograph:
+                item.setChecked(checked);
+                mPreferences.edit().putBoolean(KEY_CHRONOGRAPH, checked).apply();
+                setChronographMode(checked);
+                return true;
+            case R.id.action_world_clock:
+                startActivity(new Intent(this, WorldClockActivity.class));
+                return true;
+            default:
+                return super.onOptionsItemSelected(item);
+        }
+    }
+
+    private FrameMetrics getFrameMetrics() {
+        return mHardwareBackend ? mHardwareClockView.getFrameMetrics() : mPointerView.getFrameMetrics();
+    }
+
+    /**
+     * 运行时切换外观，只替换各个 View 持有的 {@link ClockStyle} 引用
+     */
+    private void setNightStyle(boolean night) {
+        ClockStyle style = night ? ClockStyle.fromStyle(this, R.style.ClockStyle_Night) : ClockStyle.DEFAULT;
+        if (mHardwareBackend) {
+            mHardwareClockView.setClockStyle(style);
+        } else {
+            mClockDialView.setClockStyle(style);
+            mPointerView.setClockStyle(style);
+        }
+    }
+
+    private void setPaused(boolean paused) {
+        if (mHardwareBackend) {
+            mHardwareClockView.setPaused(paused);
+        } else {
+            mPointerView.setPaused(paused);
+        }
+    }
+
+    private void setAmbientMode(boolean ambient) {
+        if (!mHardwareBackend) {
+            mClockDialView.setAmbientMode(ambient);
+            mPointerView.setAmbientMode(ambient);
+        }
+    }
+
+    private void initChronographControls() {
+        Object retained = getLastCustomNonConfigurationInstance();
+        if (retained instanceof Chronograph) {
+            mPointerView.setChronograph((Chronograph) retained);
+        }
+        mChronographControls = findViewById(R.id.chronograph_controls);
+        mStartStopButton = (Button) findViewById(R.id.chronograph_start_stop);
+        mLapResetButton = (Button) findViewById(R.id.chronograph_lap_reset);
+        mLapsText = (TextView) findViewById(R.id.chronograph_laps);
+        mStartStopButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (mPointerView.getChronograph().isRunning()) {
+                    mPointerView.stopChronograph();
+                } else {
+                    mPointerView.startChronograph();
+                }
+                updateChronographControls();
+            }
+        });
+        mLapResetButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                if (mPointerView.getChronograph().isRunning()) {
+                    mPointerView.lapChronograph();
+                } else {
+                    mPointerView.resetChronograph();
+                }
+                updateChronographControls();
+            }
+        });
+    }
+
+    private void setChronographMode(boolean enabled) {
+        if (!mHardwareBackend) {
+            mPointerView.setChronographMode(enabled);
+            mChronographControls.setVisibility(enabled ? View.VISIBLE : View.GONE);
+            updateChronographControls();
+        }
+    }
+
+    private void updateChronographControls() {
+        Chronograph chronograph = mPointerView.getChronograph();
+        boolean running = chronograph.isRunning();
+        mStartStopButton.setText(running ? R.string.chronograph_stop : R.string.chronograph_start);
+        mLapResetButton.setText(running ? R.string.chronograph_lap : R.string.chronograph_reset);
+        mLapsText.setText(formatLaps(chronograph.getLaps()));
+    }
+
+    /**
+     * 最近几圈的圈号、单圈时间和累计时间，最新的一圈在最上面
+     */
+    private static String formatLaps(LapRingBuffer laps) {
+        StringBuilder builder = new StringBuilder();
+        int last = laps.size() - 1;
+        for (int i = last; i >= 0 && i > last - VISIBLE_LAPS; i--) {
+            if (i != last) {
+                builder.append('\n');
+            }
+            builder.append(String.format(Locale.US, "#%-4d %s  %s", laps.getLapNumber(i),
+                    formatElapsed(laps.getLapNanos(i)), formatElapsed(laps.getSplitNanos(i))));
+        }
+        return builder.toString();
+    }
+
+    /**
+     * @return mm:ss.cc，超过一小时分钟数继续累加
+     */
+    private static String formatElapsed(long nanos) {
+        long centis = nanos / 10000000L;
+        return String.format(Locale.US, "%02d:%02d.%02d", centis / 6000, centis / 100 % 60, centis % 100);
+    }
+
+    private void setDebugOverlayEnabled(boolean enabled) {
+        if (mHardwareBackend) {
+            mHardwareClockView.setDebugOverlayEnabled(enabled);
+        } else {
+            mPointerView.setDebugOverlayEnabled(enabled);
+        }
     }
 }
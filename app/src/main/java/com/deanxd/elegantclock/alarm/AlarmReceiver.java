@@ -0,0 +1,27 @@
+package com.deanxd.elegantclock.alarm;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+
+/**
+ * 系统闹钟到期、开机或系统时间变化时唤醒 {@link Alarms}
+ * <p>
+ * 开机后系统闹钟都已清除，系统时间被调整后原来的触发时刻也不再对应，三种情况都是触发已到期的闹钟后按下一个到期时间重新设置。
+ *
+ * @author Dean
+ */
+
+public class AlarmReceiver extends BroadcastReceiver {
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Alarms.ACTION_FIRE.equals(action)
+                || Intent.ACTION_BOOT_COMPLETED.equals(action)
+                || Intent.ACTION_TIME_CHANGED.equals(action)) {
+            //读写闹钟文件放到后台线程，处理完再结束广播
+            Alarms.getInstance(context).onWakeUp(goAsync());
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.deanxd.elegantclock.alarm;
+
+import android.annotation.TargetApi;
+import android.app.AlarmManager;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.app.NotificationCompat;
+import android.support.v4.app.NotificationManagerCompat;
+import android.text.format.DateFormat;
+import android.util.Log;
+
+import com.deanxd.elegantclock.MainActivity;
+import com.deanxd.elegantclock.R;
+import com.deanxd.elegantclock.core.AlarmEngine;
+import com.deanxd.elegantclock.core.AlarmStore;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内共享的闹钟
+ * <p>
+ * 闹钟保存在应用私有目录的 {@link AlarmStore} 文件里，由 {@link AlarmEngine} 安排到期。打开文件和所有修改都在一个
+ * 后台线程上进行，主线程只读取缓存的下一个闹钟时间。不论有多少个闹钟，系统里只设一个 RTC_WAKEUP 闹钟，
+ * 在最早的到期时间唤醒 {@link AlarmReceiver}；下一个闹钟变化时在主线程回调 {@link OnNextAlarmChangedListener}。
+ * 后台线程空闲一会儿后自动退出。
+ *
+ * @author Dean
+ */
+
+public class Alarms {
+
+    private final static String TAG = "Alarms";
+
+    static final String ACTION_FIRE = "com.deanxd.elegantclock.alarm.action.FIRE";
+
+    private static final String STORE_FILE = "alarms.bin";
+    private static final String CHANNEL_ID = "alarms";
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+    /**
+     * 下一个闹钟变化的回调，在主线程调用
+     */
+    public interface OnNextAlarmChangedListener {
+        /**
+         * @param nextAlarmMillis 墙上时间，没有闹钟时为 {@link Long#MAX_VALUE}
+         */
+        void onNextAlarmChanged(long nextAlarmMillis);
+    }
+
+    private static Alarms sInstance;
+
+    private final Context mContext;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ArrayList<OnNextAlarmChangedListener> mListeners = new ArrayList<>();
+    private final ThreadPoolExecutor mExecutor;
+    private final AlarmEngine.Listener mFiredListener = new AlarmEngine.Listener() {
+        @Override
+        public void onAlarm(int id, long dueMillis) {
+            notifyAlarm(id, dueMillis);
+        }
+    };
+    /**
+     * 只在后台线程访问，第一次使用时打开
+     */
+    private AlarmEngine mEngine;
+    private volatile long mNextAlarmMillis = Long.MAX_VALUE;
+
+    public static synchronized Alarms getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new Alarms(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private Alarms(Context context) {
+        mContext = context;
+        mExecutor = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, TAG);
+            }
+        });
+        //读出下一个闹钟时间，供表盘显示
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                onAlarmsChanged();
+            }
+        });
+    }
+
+    /**
+     * 新增闹钟
+     *
+     * @param dueMillis     墙上时间
+     * @param repeatMinutes 重复间隔（分钟），0 为不重复
+     * @return 闹钟 id，文件无法写入时 {@link Future#get()} 抛出 IOException
+     */
+    public Future<Integer> schedule(final long dueMillis, final int repeatMinutes) {
+        return mExecutor.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() throws Exception {
+                int id = getEngine().schedule(dueMillis, repeatMinutes);
+                onAlarmsChanged();
+                return id;
+            }
+        });
+    }
+
+    public void cancel(final int id) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                AlarmEngine engine = getEngineOrNull();
+                if (engine != null && engine.cancel(id)) {
+                    onAlarmsChanged();
+                }
+            }
+        });
+    }
+
+    /**
+     * 缓存的下一个闹钟时间，后台线程读出前为 {@link Long#MAX_VALUE}
+     */
+    public long getNextAlarmMillis() {
+        return mNextAlarmMillis;
+    }
+
+    /**
+     * 在主线程调用
+     */
+    public void addListener(OnNextAlarmChangedListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    /**
+     * 在主线程调用
+     */
+    public void removeListener(OnNextAlarmChangedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * 系统闹钟唤醒、开机或系统时间变化后，触发到期的闹钟并重新设置系统闹钟
+     *
+     * @param result {@link BroadcastReceiver#goAsync()} 的结果，处理完后结束广播
+     */
+    void onWakeUp(final BroadcastReceiver.PendingResult result) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    AlarmEngine engine = getEngineOrNull();
+                    if (engine != null) {
+                        int fired = engine.advance(System.currentTimeMillis(), mFiredListener);
+                        Log.i(TAG, fired + " alarms fired, " + engine.size() + " pending");
+                    }
+                    onAlarmsChanged();
+                } finally {
+                    result.finish();
+                }
+            }
+        });
+    }
+
+    private AlarmEngine getEngine() throws IOException {
+        if (mEngine == null) {
+            long startNanos = System.nanoTime();
+            AlarmStore store = AlarmStore.open(new File(mContext.getFilesDir(), STORE_FILE));
+            mEngine = new AlarmEngine(store, System.currentTimeMillis());
+            Log.i(TAG, mEngine.size() + " alarms loaded in " + (System.nanoTime() - startNanos) / 1000 + " us");
+        }
+        return mEngine;
+    }
+
+    private AlarmEngine getEngineOrNull() {
+        try {
+            return getEngine();
+        } catch (IOException e) {
+            Log.e(TAG, "can not open alarm store", e);
+            return null;
+        }
+    }
+
+    /**
+     * 在后台线程调用：按最早的到期时间重新设置系统闹钟，并通知主线程
+     */
+    private void onAlarmsChanged() {
+        AlarmEngine engine = getEngineOrNull();
+        final long next = engine == null ? Long.MAX_VALUE : engine.nextDueMillis();
+        AlarmManager alarmManager = (AlarmManager) mContext.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            PendingIntent operation = getFireIntent(mContext);
+            if (next == Long.MAX_VALUE) {
+                alarmManager.cancel(operation);
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+                setExactAndAllowWhileIdle(alarmManager, next, operation);
+            } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+                setExact(alarmManager, next, operation);
+            } else {
+                alarmManager.set(AlarmManager.RTC_WAKEUP, next, operation);
+            }
+        }
+        if (next == mNextAlarmMillis) {
+            return;
+        }
+        mNextAlarmMillis = next;
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = mListeners.size() - 1; i >= 0; i--) {
+                    mListeners.get(i).onNextAlarmChanged(next);
+                }
+            }
+        });
+    }
+
+    @TargetApi(Build.VERSION_CODES.M)
+    private static void setExactAndAllowWhileIdle(AlarmManager alarmManager, long triggerAtMillis, PendingIntent operation) {
+        alarmManager.setExactAndAllowWhileIdle(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static void setExact(AlarmManager alarmManager, long triggerAtMillis, PendingIntent operation) {
+        alarmManager.setExact(AlarmManager.RTC_WAKEUP, triggerAtMillis, operation);
+    }
+
+    private static PendingIntent getFireIntent(Context context) {
+        Intent intent = new Intent(context, AlarmReceiver.class).setAction(ACTION_FIRE);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+
+    private void notifyAlarm(int id, long dueMillis) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            createChannel();
+        }
+        PendingIntent content = PendingIntent.getActivity(mContext, 0,
+                new Intent(mContext, MainActivity.class), PendingIntent.FLAG_UPDATE_CURRENT);
+        NotificationCompat.Builder builder = new NotificationCompat.Builder(mContext, CHANNEL_ID)
+                .setSmallIcon(R.mipmap.ic_launcher)
+                .setContentTitle(mContext.getString(R.string.alarm_notification_title))
+                .setContentText(DateFormat.getTimeFormat(mContext).format(new Date(dueMillis)))
+                .setWhen(dueMillis)
+                .setCategory(NotificationCompat.CATEGORY_ALARM)
+                .setPriority(NotificationCompat.PRIORITY_HIGH)
+                .setDefaults(NotificationCompat.DEFAULT_ALL)
+                .setContentIntent(content)
+                .setAutoCancel(true);
+        NotificationManagerCompat.from(mContext).notify(TAG, id, builder.build());
+    }
+
+    @TargetApi(Build.VERSION_CODES.O)
+    private void createChannel() {
+        NotificationManager manager = (NotificationManager) mContext.getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager != null && manager.getNotificationChannel(CHANNEL_ID) == null) {
+            manager.createNotificationChannel(new NotificationChannel(CHANNEL_ID,
+                    mContext.getString(R.string.alarm_channel_name), NotificationManager.IMPORTANCE_HIGH));
+        }
+    }
+}
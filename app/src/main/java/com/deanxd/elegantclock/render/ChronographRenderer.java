@@ -0,0 +1,181 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.deanxd.elegantclock.core.ChronographAngles;
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.HandGeometry;
+
+/**
+ * 绘制秒表的两个小表盘：9 点方向的 30 分钟计数盘和 3 点方向的 1/10 秒盘
+ * <p>
+ * 用法与 {@link HandsRenderer} 相同：先 {@link #update} 再 {@link #draw}，两步都不产生对象；
+ * 刻度坐标和 Paint 只在 {@link #setStyle} 或 {@link #setGeometry} 时重新计算。
+ * 中央秒针由 {@link HandsRenderer#setSecondAngle} 显示计时秒数。非线程安全，每个使用者持有自己的实例。
+ *
+ * @author Dean
+ */
+
+public class ChronographRenderer {
+
+    /**
+     * 小表盘圆心到表盘圆心的距离 / 表盘半径
+     */
+    private static final float SUB_DIAL_OFFSET_RATIO = 0.42f;
+    /**
+     * 小表盘半径 / 表盘半径
+     */
+    private static final float SUB_DIAL_RADIUS_RATIO = 0.2f;
+    private static final int MINUTE_TICKS = 30;
+    private static final int TENTH_TICKS = 10;
+    /**
+     * 区域外扩的像素，留给抗锯齿
+     */
+    private static final int BOUNDS_PADDING = 2;
+
+    private final Paint mFacePaint;
+    private final Paint mRingPaint;
+    private final Paint mTickPaint;
+    private final Paint mHandPaint;
+    private final ChronographAngles mAngles = new ChronographAngles();
+    /**
+     * 以小表盘圆心为原点的刻度线段，{@link Canvas#drawLines} 格式
+     */
+    private final float[] mMinuteTicks = new float[MINUTE_TICKS * 4];
+    private final float[] mTenthTicks = new float[TENTH_TICKS * 4];
+    private final float[] mMinuteHand = new float[4];
+    private final float[] mTenthHand = new float[4];
+
+    private ClockStyle mStyle = ClockStyle.DEFAULT;
+    private ClockGeometry mGeometry = ClockGeometry.EMPTY;
+    private float mSubDialOffset;
+    private float mSubDialRadius;
+    private float mSubHandLength;
+    private float mSubHandBack;
+    private float mSubCenterRadius;
+
+    public ChronographRenderer() {
+        mFacePaint = new Paint();
+        mFacePaint.setStyle(Paint.Style.FILL);
+        mFacePaint.setAntiAlias(true);
+
+        mRingPaint = new Paint();
+        mRingPaint.setStyle(Paint.Style.STROKE);
+        mRingPaint.setAntiAlias(true);
+
+        mTickPaint = new Paint();
+        mTickPaint.setAntiAlias(true);
+        mHandPaint = new Paint(mTickPaint);
+        mHandPaint.setStrokeCap(Paint.Cap.ROUND);
+        applyColors();
+    }
+
+    /**
+     * @return 外观是否发生变化
+     */
+    public boolean setStyle(ClockStyle style) {
+        if (style == mStyle) {
+            return false;
+        }
+        mStyle = style;
+        applyColors();
+        return true;
+    }
+
+    /**
+     * @return 几何参数是否发生变化
+     */
+    public boolean setGeometry(ClockGeometry geometry) {
+        if (geometry == mGeometry) {
+            return false;
+        }
+        mGeometry = geometry;
+        mSubDialOffset = geometry.radius * SUB_DIAL_OFFSET_RATIO;
+        mSubDialRadius = geometry.radius * SUB_DIAL_RADIUS_RATIO;
+        mSubHandLength = mSubDialRadius * 0.8f;
+        mSubHandBack = mSubDialRadius * 0.15f;
+        mSubCenterRadius = geometry.getStrokeWidth(3);
+        mRingPaint.setStrokeWidth(geometry.getStrokeWidth(2));
+        mTickPaint.setStrokeWidth(geometry.getStrokeWidth(2));
+        mHandPaint.setStrokeWidth(geometry.getStrokeWidth(4));
+
+        //分钟盘每 5 分钟一根长刻度
+        for (int i = 0; i < MINUTE_TICKS; i++) {
+            float inner = mSubDialRadius * (i % 5 == 0 ? 0.7f : 0.82f);
+            setTick(mMinuteTicks, i, i * 360f / MINUTE_TICKS, inner);
+        }
+        for (int i = 0; i < TENTH_TICKS; i++) {
+            setTick(mTenthTicks, i, i * 360f / TENTH_TICKS, mSubDialRadius * 0.7f);
+        }
+        return true;
+    }
+
+    private void setTick(float[] ticks, int index, float angle, float inner) {
+        float sin = HandGeometry.sin(angle);
+        float cos = HandGeometry.cos(angle);
+        float outer = mSubDialRadius * 0.92f;
+        int offset = index * 4;
+        ticks[offset] = sin * inner;
+        ticks[offset + 1] = -cos * inner;
+        ticks[offset + 2] = sin * outer;
+        ticks[offset + 3] = -cos * outer;
+    }
+
+    private void applyColors() {
+        mFacePaint.setColor(mStyle.dialColor);
+        mRingPaint.setColor(mStyle.tickColor);
+        mTickPaint.setColor(mStyle.tickColor);
+        mHandPaint.setColor(mStyle.handColor);
+    }
+
+    /**
+     * 计算指定累计时间的小指针坐标
+     *
+     * @param elapsedNanos 秒表累计时间
+     */
+    public void update(long elapsedNanos) {
+        mAngles.set(elapsedNanos);
+        HandGeometry.calculatePoint(mAngles.minute, mSubHandLength, mSubHandBack, mMinuteHand);
+        HandGeometry.calculatePoint(mAngles.tenth, mSubHandLength, mSubHandBack, mTenthHand);
+    }
+
+    /**
+     * 最近一次 {@link #update} 的中央秒针角度
+     */
+    public float getSecondAngle() {
+        return mAngles.second;
+    }
+
+    /**
+     * 两个小表盘占据的区域，并入 out 原有的区域
+     *
+     * @param centerX 表盘圆心在目标坐标系中的位置
+     */
+    public void getBounds(Rect out, int centerX, int centerY) {
+        int half = (int) Math.ceil(mSubDialRadius + mRingPaint.getStrokeWidth()) + BOUNDS_PADDING;
+        int offset = Math.round(mSubDialOffset);
+        out.union(centerX - offset - half, centerY - half, centerX - offset + half, centerY + half);
+        out.union(centerX + offset - half, centerY - half, centerX + offset + half, centerY + half);
+    }
+
+    /**
+     * 绘制最近一次 {@link #update} 的小表盘，坐标原点需已移到表盘圆心
+     */
+    public void draw(Canvas canvas) {
+        drawSubDial(canvas, -mSubDialOffset, mMinuteTicks, mMinuteHand);
+        drawSubDial(canvas, mSubDialOffset, mTenthTicks, mTenthHand);
+    }
+
+    private void drawSubDial(Canvas canvas, float centerX, float[] ticks, float[] hand) {
+        int saveCount = canvas.save();
+        canvas.translate(centerX, 0);
+        canvas.drawCircle(0, 0, mSubDialRadius, mFacePaint);
+        canvas.drawCircle(0, 0, mSubDialRadius, mRingPaint);
+        canvas.drawLines(ticks, mTickPaint);
+        canvas.drawLine(hand[0], hand[1], hand[2], hand[3], mHandPaint);
+        canvas.drawCircle(0, 0, mSubCenterRadius, mHandPaint);
+        canvas.restoreToCount(saveCount);
+    }
+}
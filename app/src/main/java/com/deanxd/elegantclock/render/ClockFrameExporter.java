@@ -0,0 +1,227 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+
+import com.deanxd.elegantclock.util.FontRegistry;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 离线导出时钟帧序列
+ * <p>
+ * 把一段时间按固定步长渲染成 frame_00000.png、frame_00001.png……，用于生成宣传素材和离线回归比对。
+ * 每个核一个工作线程，各自持有 {@link ClockRenderer} 和一张复用的位图，从同一个下标计数器上领取帧，
+ * 表盘位图全部线程共享。{@link #export} 会阻塞到全部写完，不要在主线程调用。
+ *
+ * @author Dean
+ */
+
+public class ClockFrameExporter {
+
+    private static final String FILE_NAME_FORMAT = "frame_%05d.png";
+
+    /**
+     * 导出进度回调，在工作线程上调用
+     */
+    public interface Listener {
+        void onFrameExported(int exportedCount, int frameCount);
+    }
+
+    private final Context mContext;
+    private final int mWidth;
+    private final int mHeight;
+    private final int mThreadCount;
+    private ClockStyle mStyle = ClockStyle.DEFAULT;
+
+    public ClockFrameExporter(Context context, int width, int height) {
+        this(context, width, height, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param threadCount 并行渲染的线程数
+     */
+    public ClockFrameExporter(Context context, int width, int height, int threadCount) {
+        if (width <= 0 || height <= 0) {
+            throw new IllegalArgumentException("size must be positive: " + width + "x" + height);
+        }
+        if (threadCount <= 0) {
+            throw new IllegalArgumentException("threadCount must be positive: " + threadCount);
+        }
+        mContext = context.getApplicationContext();
+        mWidth = width;
+        mHeight = height;
+        mThreadCount = threadCount;
+    }
+
+    public void setStyle(ClockStyle style) {
+        mStyle = style;
+    }
+
+    /**
+     * 导出 frameCount 帧，第 i 帧的时刻为 startLocalMillis + i * stepMillis
+     * <p>
+     * 任一帧失败时其余线程领完手上这帧后停止，抛出第一个错误；已写出的文件保留。
+     *
+     * @param dir              输出目录，不存在时创建
+     * @param startLocalMillis 第一帧的时刻，已加上时区偏移的毫秒数
+     * @param stepMillis       相邻两帧的时间间隔，例如 24 小时压成 1440 帧时取 60000
+     * @param listener         可为 null
+     */
+    public void export(File dir, long startLocalMillis, long stepMillis, int frameCount, Listener listener)
+            throws IOException, InterruptedException {
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("cannot create " + dir);
+        }
+        if (frameCount <= 0) {
+            return;
+        }
+
+        //离线导出不能先画默认字体，在调用线程上等字体加载完
+        ClockStyle style = mStyle;
+        FontRegistry.getInstance(mContext).loadBlocking(style.numeralFont, style.signatureFont);
+        //表盘只画一次，各线程的 ClockRenderer 共用这个绘制器和缓存里的同一张位图
+        DialRenderer dialRenderer = new DialRenderer(mContext);
+        DialLayerCache.getInstance(mContext).get(mWidth, mHeight, style, dialRenderer);
+
+        int threadCount = Math.min(mThreadCount, frameCount);
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, new ExportThreadFactory());
+        ExportJob job = new ExportJob(dir, startLocalMillis, stepMillis, frameCount, listener);
+        List<Future<Void>> futures = new ArrayList<>(threadCount);
+        try {
+            for (int i = 0; i < threadCount; i++) {
+                futures.add(executor.submit(new ExportTask(job, dialRenderer, style)));
+            }
+            for (Future<Void> future : futures) {
+                future.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new RuntimeException(cause);
+        } finally {
+            job.stop();
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * 一次导出的共享状态
+     */
+    private static final class ExportJob {
+        private final File mDir;
+        private final long mStartLocalMillis;
+        private final long mStepMillis;
+        private final int mFrameCount;
+        private final Listener mListener;
+        private final AtomicInteger mNextIndex = new AtomicInteger();
+        private final AtomicInteger mExportedCount = new AtomicInteger();
+
+        ExportJob(File dir, long startLocalMillis, long stepMillis, int frameCount, Listener listener) {
+            mDir = dir;
+            mStartLocalMillis = startLocalMillis;
+            mStepMillis = stepMillis;
+            mFrameCount = frameCount;
+            mListener = listener;
+        }
+
+        /**
+         * @return 下一帧的下标，没有剩余时返回 -1
+         */
+        int nextIndex() {
+            int index = mNextIndex.getAndIncrement();
+            return index < mFrameCount ? index : -1;
+        }
+
+        void stop() {
+            mNextIndex.set(mFrameCount);
+        }
+
+        void onFrameExported() {
+            int exported = mExportedCount.incrementAndGet();
+            if (mListener != null) {
+                mListener.onFrameExported(exported, mFrameCount);
+            }
+        }
+    }
+
+    private final class ExportTask implements Callable<Void> {
+        private final ExportJob mJob;
+        private final DialRenderer mDialRenderer;
+        private final ClockStyle mTaskStyle;
+
+        ExportTask(ExportJob job, DialRenderer dialRenderer, ClockStyle style) {
+            mJob = job;
+            mDialRenderer = dialRenderer;
+            mTaskStyle = style;
+        }
+
+        @Override
+        public Void call() throws IOException {
+            ClockRenderer renderer = new ClockRenderer(mContext, mDialRenderer);
+            renderer.setStyle(mTaskStyle);
+            Bitmap bitmap = Bitmap.createBitmap(mWidth, mHeight, Bitmap.Config.ARGB_8888);
+            try {
+                int index;
+                while ((index = mJob.nextIndex()) >= 0) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return null;
+                    }
+                    renderer.render(bitmap, mJob.mStartLocalMillis + index * mJob.mStepMillis);
+                    writePng(bitmap, new File(mJob.mDir, String.format(Locale.US, FILE_NAME_FORMAT, index)));
+                    mJob.onFrameExported();
+                }
+            } catch (IOException | RuntimeException e) {
+                mJob.stop();
+                throw e;
+            } finally {
+                bitmap.recycle();
+            }
+            return null;
+        }
+    }
+
+    private static void writePng(Bitmap bitmap, File file) throws IOException {
+        OutputStream out = new BufferedOutputStream(new FileOutputStream(file));
+        try {
+            if (!bitmap.compress(Bitmap.CompressFormat.PNG, 100, out)) {
+                throw new IOException("compress failed: " + file);
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    private static final class ExportThreadFactory implements ThreadFactory {
+        private final AtomicInteger mCount = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "ClockFrameExporter-" + mCount.getAndIncrement());
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        }
+    }
+}
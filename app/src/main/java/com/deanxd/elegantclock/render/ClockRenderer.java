@@ -0,0 +1,131 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.PorterDuff;
+
+import com.deanxd.elegantclock.core.ClockGeometry;
+
+/**
+ * 与 View 无关的时钟绘制器
+ * <p>
+ * 把任意时刻的表盘和指针画到任意 Canvas 或 Bitmap 上，不需要窗口或 Surface。
+ * 表盘取自 {@link DialLayerCache}，每次绘制只贴图加三根指针。非线程安全，每个线程持有自己的实例。
+ *
+ * @author Dean
+ */
+
+public class ClockRenderer {
+
+    private final DialRenderer mDialRenderer;
+    private final DialLayerCache mDialLayerCache;
+    private final HandsRenderer mHandsRenderer = new HandsRenderer();
+
+    private ClockStyle mStyle = ClockStyle.DEFAULT;
+    private int mWidth;
+    private int mHeight;
+    private Bitmap mDialBitmap;
+    private int mDialGeneration;
+
+    public ClockRenderer(Context context) {
+        this(context, new DialRenderer(context));
+    }
+
+    /**
+     * @param dialRenderer 多个实例可共用一个表盘绘制器，省去重复加载字体
+     */
+    public ClockRenderer(Context context, DialRenderer dialRenderer) {
+        mDialRenderer = dialRenderer;
+        mDialLayerCache = DialLayerCache.getInstance(context);
+    }
+
+    public void setSize(int width, int height) {
+        if (width == mWidth && height == mHeight) {
+            return;
+        }
+        mWidth = width;
+        mHeight = height;
+        mHandsRenderer.setSize(width, height);
+        mDialBitmap = null;
+    }
+
+    /**
+     * 使用其他线程发布的几何参数快照，与当前快照是同一个对象时什么也不做，可每帧调用
+     */
+    public void setGeometry(ClockGeometry geometry) {
+        if (mHandsRenderer.setGeometry(geometry)
+                && (geometry.width != mWidth || geometry.height != mHeight)) {
+            mWidth = geometry.width;
+            mHeight = geometry.height;
+            mDialBitmap = null;
+        }
+    }
+
+    /**
+     * 切换外观，与当前外观是同一个对象时什么也不做，可每帧调用
+     */
+    public void setStyle(ClockStyle style) {
+        if (mHandsRenderer.setStyle(style)) {
+            mStyle = style;
+            mDialBitmap = null;
+        }
+    }
+
+    public ClockStyle getStyle() {
+        return mStyle;
+    }
+
+    public int getWidth() {
+        return mWidth;
+    }
+
+    public int getHeight() {
+        return mHeight;
+    }
+
+    public HandsRenderer getHandsRenderer() {
+        return mHandsRenderer;
+    }
+
+    /**
+     * 在 (0, 0, width, height) 区域内绘制指定时刻的时钟，不清除原有内容
+     *
+     * @param localMillis 已加上时区偏移的毫秒数
+     */
+    public void draw(Canvas canvas, long localMillis) {
+        if (mWidth <= 0 || mHeight <= 0) {
+            return;
+        }
+        drawDial(canvas);
+
+        mHandsRenderer.update(localMillis);
+        int saveCount = canvas.save();
+        canvas.translate(mWidth / 2, mHeight / 2);
+        mHandsRenderer.draw(canvas);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * 只绘制表盘（贴缓存位图）
+     */
+    public void drawDial(Canvas canvas) {
+        int generation = mDialLayerCache.getGeneration();
+        if (mDialBitmap == null || mDialGeneration != generation) {
+            mDialGeneration = generation;
+            mDialBitmap = mDialLayerCache.get(mWidth, mHeight, mStyle, mDialRenderer);
+        }
+        canvas.drawBitmap(mDialBitmap, 0, 0, null);
+    }
+
+    /**
+     * 清空 bitmap 后绘制指定时刻的时钟，尺寸取 bitmap 的尺寸
+     */
+    public void render(Bitmap bitmap, long localMillis) {
+        setSize(bitmap.getWidth(), bitmap.getHeight());
+        Canvas canvas = new Canvas(bitmap);
+        canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
+        draw(canvas, localMillis);
+    }
+}
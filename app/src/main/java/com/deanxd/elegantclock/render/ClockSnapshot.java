@@ -0,0 +1,47 @@
+package com.deanxd.elegantclock.render;
+
+import com.deanxd.elegantclock.core.ClockGeometry;
+
+/**
+ * 外观和按该外观算出的几何参数的不可变快照
+ * <p>
+ * UI 线程在尺寸或外观变化时创建新快照，通过一个 volatile 引用交给渲染线程；渲染线程每帧只读一次引用，
+ * 读到的外观和几何参数总是配套的。
+ *
+ * @author Dean
+ */
+
+public final class ClockSnapshot {
+
+    public final ClockStyle style;
+    /**
+     * 还没有尺寸时为空，见 {@link ClockGeometry#isEmpty()}
+     */
+    public final ClockGeometry geometry;
+
+    private ClockSnapshot(ClockStyle style, ClockGeometry geometry) {
+        this.style = style;
+        this.geometry = geometry;
+    }
+
+    /**
+     * 还没有尺寸的快照
+     */
+    public static ClockSnapshot of(ClockStyle style) {
+        return new ClockSnapshot(style, ClockGeometry.EMPTY);
+    }
+
+    /**
+     * 外观不变，按新尺寸重新计算几何参数
+     */
+    public ClockSnapshot withSize(int width, int height) {
+        return new ClockSnapshot(style, style.layout(width, height));
+    }
+
+    /**
+     * 尺寸不变，按新外观重新计算几何参数
+     */
+    public ClockSnapshot withStyle(ClockStyle style) {
+        return new ClockSnapshot(style, style.layout(geometry.width, geometry.height));
+    }
+}
@@ -0,0 +1,361 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Color;
+import android.util.AttributeSet;
+
+import com.deanxd.elegantclock.R;
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.util.FontRegistry;
+
+/**
+ * 时钟外观：颜色、比例和字体
+ * <p>
+ * 不可变对象，颜色在创建时就解析成 int；切换外观只需替换引用，绘制器发现引用变化后重新配置一次 Paint。
+ * 按值比较，外观相同的时钟在 {@link DialLayerCache} 里共用一张表盘位图。
+ *
+ * @author Dean
+ */
+
+public final class ClockStyle {
+
+    /**
+     * 指针形状：等宽直线，或带配重和圆头的渐细指针
+     */
+    public static final int HAND_SHAPE_LINE = 0;
+    public static final int HAND_SHAPE_TAPERED = 1;
+
+    public static final ClockStyle DEFAULT = new Builder().build();
+
+    public final int dialColor;
+    public final int borderColor;
+    public final int tickColor;
+    public final int numeralColor;
+    public final int handColor;
+    public final int centerColor;
+
+    /**
+     * 边框宽度 / View 短边的一半
+     */
+    public final float borderWidthRatio;
+    /**
+     * 以下均相对表盘半径
+     */
+    public final float numeralRadiusRatio;
+    public final float numeralSizeRatio;
+    public final float hourHandRatio;
+    public final float minuteHandRatio;
+    public final float secondHandRatio;
+    public final float handBackRatio;
+    public final int handShape;
+
+    /**
+     * assets 下的字体文件名
+     */
+    public final String numeralFont;
+    public final String signatureFont;
+    public final String signature;
+    /**
+     * 只画外圆、整点刻度和时针分针，用于常亮显示
+     */
+    public final boolean outline;
+
+    private final int mHashCode;
+    /**
+     * 对应的常亮外观，第一次用到时创建，之后反复进出常亮模式都复用同一个对象
+     */
+    private ClockStyle mAmbient;
+
+    private ClockStyle(Builder builder) {
+        dialColor = builder.mDialColor;
+        borderColor = builder.mBorderColor;
+        tickColor = builder.mTickColor;
+        numeralColor = builder.mNumeralColor;
+        handColor = builder.mHandColor;
+        centerColor = builder.mCenterColor;
+        borderWidthRatio = builder.mBorderWidthRatio;
+        numeralRadiusRatio = builder.mNumeralRadiusRatio;
+        numeralSizeRatio = builder.mNumeralSizeRatio;
+        hourHandRatio = builder.mHourHandRatio;
+        minuteHandRatio = builder.mMinuteHandRatio;
+        secondHandRatio = builder.mSecondHandRatio;
+        handBackRatio = builder.mHandBackRatio;
+        handShape = builder.mHandShape;
+        numeralFont = builder.mNumeralFont;
+        signatureFont = builder.mSignatureFont;
+        signature = builder.mSignature;
+        outline = builder.mOutline;
+        mHashCode = computeHashCode();
+    }
+
+    /**
+     * 读取 View 的 {@code ClockView} 属性，没有设置任何属性时返回 {@link #DEFAULT}
+     */
+    public static ClockStyle fromAttributes(Context context, AttributeSet attrs, int defStyleAttr) {
+        TypedArray a = context.obtainStyledAttributes(attrs, R.styleable.ClockView, defStyleAttr, 0);
+        try {
+            return a.getIndexCount() == 0 ? DEFAULT : fromTypedArray(a);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * 读取 style 资源里的 {@code ClockView} 属性，例如 {@code R.style.ClockStyle_Night}
+     */
+    public static ClockStyle fromStyle(Context context, int styleRes) {
+        TypedArray a = context.obtainStyledAttributes(styleRes, R.styleable.ClockView);
+        try {
+            return fromTypedArray(a);
+        } finally {
+            a.recycle();
+        }
+    }
+
+    /**
+     * 按本外观的比例计算指定尺寸下的表盘几何参数
+     */
+    public ClockGeometry layout(int width, int height) {
+        return ClockGeometry.of(width, height, borderWidthRatio, hourHandRatio, minuteHandRatio,
+                secondHandRatio, handBackRatio);
+    }
+
+    /**
+     * 常亮模式下的外观：黑底、灰色线条、只画轮廓，比例和字体沿用当前外观
+     */
+    public ClockStyle toAmbient() {
+        if (outline) {
+            return this;
+        }
+        ClockStyle ambient = mAmbient;
+        if (ambient == null) {
+            ambient = new Builder(this)
+                    .setDialColor(Color.BLACK)
+                    .setBorderColor(Color.GRAY)
+                    .setTickColor(Color.GRAY)
+                    .setNumeralColor(Color.GRAY)
+                    .setHandColor(Color.LTGRAY)
+                    .setCenterColor(Color.BLACK)
+                    .setOutline(true)
+                    .build();
+            mAmbient = ambient;
+        }
+        return ambient;
+    }
+
+    private static ClockStyle fromTypedArray(TypedArray a) {
+        ClockStyle d = DEFAULT;
+        Builder builder = new Builder()
+                .setDialColor(a.getColor(R.styleable.ClockView_dialColor, d.dialColor))
+                .setBorderColor(a.getColor(R.styleable.ClockView_borderColor, d.borderColor))
+                .setTickColor(a.getColor(R.styleable.ClockView_tickColor, d.tickColor))
+                .setNumeralColor(a.getColor(R.styleable.ClockView_numeralColor, d.numeralColor))
+                .setHandColor(a.getColor(R.styleable.ClockView_handColor, d.handColor))
+                .setCenterColor(a.getColor(R.styleable.ClockView_centerColor, d.centerColor))
+                .setBorderWidthRatio(a.getFloat(R.styleable.ClockView_borderWidthRatio, d.borderWidthRatio))
+                .setNumeralRadiusRatio(a.getFloat(R.styleable.ClockView_numeralRadiusRatio, d.numeralRadiusRatio))
+                .setNumeralSizeRatio(a.getFloat(R.styleable.ClockView_numeralSizeRatio, d.numeralSizeRatio))
+                .setHandRatios(a.getFloat(R.styleable.ClockView_hourHandRatio, d.hourHandRatio),
+                        a.getFloat(R.styleable.ClockView_minuteHandRatio, d.minuteHandRatio),
+                        a.getFloat(R.styleable.ClockView_secondHandRatio, d.secondHandRatio),
+                        a.getFloat(R.styleable.ClockView_handBackRatio, d.handBackRatio))
+                .setHandShape(a.getInt(R.styleable.ClockView_handShape, d.handShape));
+        String numeralFont = a.getString(R.styleable.ClockView_numeralFont);
+        String signatureFont = a.getString(R.styleable.ClockView_signatureFont);
+        String signature = a.getString(R.styleable.ClockView_signature);
+        builder.setFonts(numeralFont != null ? numeralFont : d.numeralFont,
+                signatureFont != null ? signatureFont : d.signatureFont)
+                .setSignature(signature != null ? signature : d.signature);
+        return builder.build();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof ClockStyle)) {
+            return false;
+        }
+        ClockStyle style = (ClockStyle) o;
+        return mHashCode == style.mHashCode
+                && dialColor == style.dialColor
+                && borderColor == style.borderColor
+                && tickColor == style.tickColor
+                && numeralColor == style.numeralColor
+                && handColor == style.handColor
+                && centerColor == style.centerColor
+                && borderWidthRatio == style.borderWidthRatio
+                && numeralRadiusRatio == style.numeralRadiusRatio
+                && numeralSizeRatio == style.numeralSizeRatio
+                && hourHandRatio == style.hourHandRatio
+                && minuteHandRatio == style.minuteHandRatio
+                && secondHandRatio == style.secondHandRatio
+                && handBackRatio == style.handBackRatio
+                && numeralFont.equals(style.numeralFont)
+                && signatureFont.equals(style.signatureFont)
+                && signature.equals(style.signature)
+                && handShape == style.handShape
+                && outline == style.outline;
+    }
+
+    @Override
+    public int hashCode() {
+        return mHashCode;
+    }
+
+    private int computeHashCode() {
+        int result = dialColor;
+        result = 31 * result + borderColor;
+        result = 31 * result + tickColor;
+        result = 31 * result + numeralColor;
+        result = 31 * result + handColor;
+        result = 31 * result + centerColor;
+        result = 31 * result + Float.floatToIntBits(borderWidthRatio);
+        result = 31 * result + Float.floatToIntBits(numeralRadiusRatio);
+        result = 31 * result + Float.floatToIntBits(numeralSizeRatio);
+        result = 31 * result + Float.floatToIntBits(hourHandRatio);
+        result = 31 * result + Float.floatToIntBits(minuteHandRatio);
+        result = 31 * result + Float.floatToIntBits(secondHandRatio);
+        result = 31 * result + Float.floatToIntBits(handBackRatio);
+        result = 31 * result + numeralFont.hashCode();
+        result = 31 * result + signatureFont.hashCode();
+        result = 31 * result + signature.hashCode();
+        result = 31 * result + handShape;
+        result = 31 * result + (outline ? 1 : 0);
+        return result;
+    }
+
+    public static final class Builder {
+        private int mDialColor = 0xFFB2FA9C;
+        private int mBorderColor = Color.BLACK;
+        private int mTickColor = Color.BLACK;
+        private int mNumeralColor = Color.BLACK;
+        private int mHandColor = Color.BLACK;
+        private int mCenterColor = Color.WHITE;
+        private float mBorderWidthRatio = 0.03f;
+        private float mNumeralRadiusRatio = 0.8f * 0.98f;
+        private float mNumeralSizeRatio = 0.18f;
+        private float mHourHandRatio = 0.5f;
+        private float mMinuteHandRatio = 0.6f;
+        private float mSecondHandRatio = 0.8f;
+        private float mHandBackRatio = 0.10f;
+        private int mHandShape = HAND_SHAPE_LINE;
+        private String mNumeralFont = FontRegistry.FONT_HELVETICA;
+        private String mSignatureFont = FontRegistry.FONT_SATISFY;
+        private String mSignature = "Designed by Dean";
+        private boolean mOutline;
+
+        public Builder() {
+        }
+
+        public Builder(ClockStyle style) {
+            mDialColor = style.dialColor;
+            mBorderColor = style.borderColor;
+            mTickColor = style.tickColor;
+            mNumeralColor = style.numeralColor;
+            mHandColor = style.handColor;
+            mCenterColor = style.centerColor;
+            mBorderWidthRatio = style.borderWidthRatio;
+            mNumeralRadiusRatio = style.numeralRadiusRatio;
+            mNumeralSizeRatio = style.numeralSizeRatio;
+            mHourHandRatio = style.hourHandRatio;
+            mMinuteHandRatio = style.minuteHandRatio;
+            mSecondHandRatio = style.secondHandRatio;
+            mHandBackRatio = style.handBackRatio;
+            mHandShape = style.handShape;
+            mNumeralFont = style.numeralFont;
+            mSignatureFont = style.signatureFont;
+            mSignature = style.signature;
+            mOutline = style.outline;
+        }
+
+        public Builder setDialColor(int dialColor) {
+            mDialColor = dialColor;
+            return this;
+        }
+
+        public Builder setBorderColor(int borderColor) {
+            mBorderColor = borderColor;
+            return this;
+        }
+
+        public Builder setTickColor(int tickColor) {
+            mTickColor = tickColor;
+            return this;
+        }
+
+        public Builder setNumeralColor(int numeralColor) {
+            mNumeralColor = numeralColor;
+            return this;
+        }
+
+        public Builder setHandColor(int handColor) {
+            mHandColor = handColor;
+            return this;
+        }
+
+        public Builder setCenterColor(int centerColor) {
+            mCenterColor = centerColor;
+            return this;
+        }
+
+        public Builder setBorderWidthRatio(float borderWidthRatio) {
+            mBorderWidthRatio = borderWidthRatio;
+            return this;
+        }
+
+        public Builder setNumeralRadiusRatio(float numeralRadiusRatio) {
+            mNumeralRadiusRatio = numeralRadiusRatio;
+            return this;
+        }
+
+        public Builder setNumeralSizeRatio(float numeralSizeRatio) {
+            mNumeralSizeRatio = numeralSizeRatio;
+            return this;
+        }
+
+        public Builder setHandRatios(float hour, float minute, float second, float back) {
+            mHourHandRatio = hour;
+            mMinuteHandRatio = minute;
+            mSecondHandRatio = second;
+            mHandBackRatio = back;
+            return this;
+        }
+
+        /**
+         * @param handShape {@link #HAND_SHAPE_LINE} 或 {@link #HAND_SHAPE_TAPERED}
+         */
+        public Builder setHandShape(int handShape) {
+            mHandShape = handShape;
+            return this;
+        }
+
+        public Builder setFonts(String numeralFont, String signatureFont) {
+            mNumeralFont = numeralFont;
+            mSignatureFont = signatureFont;
+            return this;
+        }
+
+        public Builder setSignature(String signature) {
+            mSignature = signature;
+            return this;
+        }
+
+        public Builder setOutline(boolean outline) {
+            mOutline = outline;
+            return this;
+        }
+
+        public ClockStyle build() {
+            if (mNumeralFont == null || mSignatureFont == null || mSignature == null) {
+                throw new IllegalArgumentException("fonts and signature must not be null");
+            }
+            if (mHandShape != HAND_SHAPE_LINE && mHandShape != HAND_SHAPE_TAPERED) {
+                throw new IllegalArgumentException("unknown hand shape: " + mHandShape);
+            }
+            return new ClockStyle(this);
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Rect;
+
+import com.deanxd.elegantclock.core.FrameMetrics;
+
+import java.util.Locale;
+
+/**
+ * 画在时钟左上角的帧耗时调试信息
+ * <p>
+ * 文字每 {@link #UPDATE_INTERVAL_NANOS} 才重新生成一次，只在开启调试时产生对象。
+ *
+ * @author Dean
+ */
+
+public class DebugOverlay {
+
+    private static final long UPDATE_INTERVAL_NANOS = 500 * 1000000L;
+
+    private final Paint mTextPaint;
+    private final Paint mBackgroundPaint;
+    private final float mPadding;
+    private final int mLineHeight;
+    private final Rect mBounds = new Rect();
+    private String mDurationText = "";
+    private String mLatenessText = "";
+    private String mCpuText = "";
+    private long mLastUpdateNanos;
+
+    /**
+     * @param density 屏幕密度，用于换算文字大小
+     */
+    public DebugOverlay(float density) {
+        mTextPaint = new Paint();
+        mTextPaint.setAntiAlias(true);
+        mTextPaint.setColor(Color.WHITE);
+        mTextPaint.setTextSize(10 * density);
+
+        mBackgroundPaint = new Paint();
+        mBackgroundPaint.setColor(0x99000000);
+
+        mPadding = 2 * density;
+        Paint.FontMetrics fontMetrics = mTextPaint.getFontMetrics();
+        mLineHeight = (int) Math.ceil(fontMetrics.descent - fontMetrics.ascent);
+    }
+
+    /**
+     * 调试信息占据的区域（View 坐标），增量重绘时需要包含这块
+     */
+    public Rect getBounds(int width) {
+        mBounds.set(0, 0, width, (int) (mLineHeight * 3 + mPadding * 2));
+        return mBounds;
+    }
+
+    /**
+     * 在未平移的 canvas 上绘制
+     */
+    public void draw(Canvas canvas, int width, FrameMetrics metrics, long nowNanos) {
+        if (nowNanos - mLastUpdateNanos > UPDATE_INTERVAL_NANOS) {
+            mLastUpdateNanos = nowNanos;
+            mDurationText = String.format(Locale.US, "draw p50 %.2f p95 %.2f p99 %.2f ms",
+                    toMillis(metrics.getDurationPercentile(50)),
+                    toMillis(metrics.getDurationPercentile(95)),
+                    toMillis(metrics.getDurationPercentile(99)));
+            mLatenessText = String.format(Locale.US, "late p95 %.2f ms  missed %d/%d",
+                    toMillis(metrics.getLatenessPercentile(95)),
+                    metrics.getMissedFrameCount(), metrics.getFrameCount());
+            mCpuText = String.format(Locale.US, "cpu p50 %.2f p95 %.2f p99 %.2f ms",
+                    toMillis(metrics.getCpuTimePercentile(50)),
+                    toMillis(metrics.getCpuTimePercentile(95)),
+                    toMillis(metrics.getCpuTimePercentile(99)));
+        }
+        canvas.drawRect(getBounds(width), mBackgroundPaint);
+        float baseline = mPadding - mTextPaint.ascent();
+        canvas.drawText(mDurationText, mPadding, baseline, mTextPaint);
+        canvas.drawText(mLatenessText, mPadding, baseline + mLineHeight, mTextPaint);
+        canvas.drawText(mCpuText, mPadding, baseline + mLineHeight * 2, mTextPaint);
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1000000.0;
+    }
+}
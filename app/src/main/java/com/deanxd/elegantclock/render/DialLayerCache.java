@@ -0,0 +1,187 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.res.Configuration;
+import android.graphics.Bitmap;
+import android.graphics.Canvas;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 进程内共享的表盘位图缓存
+ * <p>
+ * 以尺寸和样式为键，按字节数限制总内存，超出预算时淘汰最久未使用的位图；
+ * 收到 {@link #onTrimMemory} 时按内存紧张程度释放位图。
+ * <p>
+ * 被淘汰的位图不会 recycle，仍在使用它的 View 可以继续绘制。因内存紧张而释放位图时 {@link #getGeneration()}
+ * 会加一，使用者每帧比较该值，发生变化时放掉手里的位图并重新 {@link #get} 一次。
+ *
+ * @author Dean
+ */
+
+public class DialLayerCache implements ComponentCallbacks2 {
+
+    /**
+     * 默认预算：最大堆内存的 1/16
+     */
+    private static final int DEFAULT_MAX_BYTES_DIVISOR = 16;
+
+    private static DialLayerCache sInstance;
+
+    private final LinkedHashMap<Key, Bitmap> mEntries = new LinkedHashMap<>(16, 0.75f, true);
+    private int mMaxBytes;
+    private int mSizeBytes;
+    private volatile int mGeneration;
+
+    private int mHitCount;
+    private int mMissCount;
+    private int mEvictionCount;
+
+    public static synchronized DialLayerCache getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new DialLayerCache((int) (Runtime.getRuntime().maxMemory() / DEFAULT_MAX_BYTES_DIVISOR));
+            context.getApplicationContext().registerComponentCallbacks(sInstance);
+        }
+        return sInstance;
+    }
+
+    DialLayerCache(int maxBytes) {
+        mMaxBytes = maxBytes;
+    }
+
+    /**
+     * 取出表盘位图，没有缓存时用 renderer 绘制一张
+     *
+     * @param style 外观不同的表盘分别缓存，外观相同的共用
+     */
+    public synchronized Bitmap get(int width, int height, ClockStyle style, DialRenderer renderer) {
+        Key key = new Key(width, height, style);
+        Bitmap bitmap = mEntries.get(key);
+        if (bitmap != null) {
+            mHitCount++;
+            return bitmap;
+        }
+        mMissCount++;
+
+        bitmap = Bitmap.createBitmap(width, height, Bitmap.Config.ARGB_8888);
+        renderer.draw(new Canvas(bitmap), width, height, style);
+
+        mEntries.put(key, bitmap);
+        mSizeBytes += bitmap.getByteCount();
+        //刚放入的位图正要被使用，即使单张超出预算也保留
+        trimToSize(mMaxBytes, 1);
+        return bitmap;
+    }
+
+    /**
+     * 设置内存预算（字节），超出的部分立即淘汰
+     */
+    public synchronized void setMaxBytes(int maxBytes) {
+        mMaxBytes = maxBytes;
+        release(maxBytes);
+    }
+
+    public synchronized int getMaxBytes() {
+        return mMaxBytes;
+    }
+
+    public synchronized int getSizeBytes() {
+        return mSizeBytes;
+    }
+
+    /**
+     * 每次因内存紧张释放位图时加一
+     */
+    public int getGeneration() {
+        return mGeneration;
+    }
+
+    public synchronized void clear() {
+        release(0);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "DialLayerCache[size=" + mSizeBytes + ", max=" + mMaxBytes + ", entries=" + mEntries.size()
+                + ", hits=" + mHitCount + ", misses=" + mMissCount + ", evictions=" + mEvictionCount + "]";
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        if (level >= TRIM_MEMORY_MODERATE) {
+            clear();
+        } else if (level >= TRIM_MEMORY_RUNNING_LOW || level == TRIM_MEMORY_UI_HIDDEN) {
+            synchronized (this) {
+                release(mSizeBytes / 2);
+            }
+        }
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    @Override
+    public void onLowMemory() {
+        clear();
+    }
+
+    private void release(int maxBytes) {
+        if (trimToSize(maxBytes, 0)) {
+            mGeneration++;
+        }
+    }
+
+    /**
+     * 从最久未使用的开始淘汰，直到不超过 maxBytes 或只剩 minEntries 个
+     *
+     * @return 是否有位图被淘汰
+     */
+    private boolean trimToSize(int maxBytes, int minEntries) {
+        boolean evicted = false;
+        Iterator<Map.Entry<Key, Bitmap>> iterator = mEntries.entrySet().iterator();
+        while (mSizeBytes > maxBytes && mEntries.size() > minEntries && iterator.hasNext()) {
+            Bitmap bitmap = iterator.next().getValue();
+            iterator.remove();
+            mSizeBytes -= bitmap.getByteCount();
+            mEvictionCount++;
+            evicted = true;
+        }
+        return evicted;
+    }
+
+    private static final class Key {
+        private final int mWidth;
+        private final int mHeight;
+        private final ClockStyle mStyle;
+
+        Key(int width, int height, ClockStyle style) {
+            mWidth = width;
+            mHeight = height;
+            mStyle = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return mWidth == key.mWidth && mHeight == key.mHeight && mStyle.equals(key.mStyle);
+        }
+
+        @Override
+        public int hashCode() {
+            int result = mWidth;
+            result = 31 * result + mHeight;
+            result = 31 * result + mStyle.hashCode();
+            return result;
+        }
+    }
+}
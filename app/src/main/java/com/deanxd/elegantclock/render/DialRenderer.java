@@ -0,0 +1,191 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Rect;
+import android.graphics.Typeface;
+
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.HandGeometry;
+import com.deanxd.elegantclock.util.FontRegistry;
+
+/**
+ * 绘制静态表盘：外圆、刻度线、刻度数字和签名
+ * <p>
+ * 表盘不随时间变化，通常只绘制一次到 {@link DialLayerCache} 的位图里，之后每帧直接贴图。
+ * Paint 和各项尺寸只在外观、尺寸或字体变化时重新配置。非线程安全，每个使用者持有自己的实例。
+ *
+ * @author Dean
+ */
+
+public class DialRenderer {
+
+    private static final String[] NUMERALS = {"1", "2", "3", "4", "5", "6", "7", "8", "9", "10", "11", "12"};
+
+    private Paint mPaintBorder;
+    private Paint mPaintFace;
+    private Paint mPaintLongDegree;
+    private Paint mPaintShortDegree;
+    private Paint mPaintDegreeNumber;
+    private Paint mPaintSignature;
+    private Rect mDegreeTextRect;
+    private FontRegistry mFontRegistry;
+    private Typeface mNumeralTypeface;
+    private Typeface mSignatureTypeface;
+    private final float[] mNumberPoints = new float[4];
+
+    /**
+     * 以下为排版结果，只在外观、尺寸或字体变化时重新计算
+     */
+    private ClockStyle mStyle;
+    private int mLayoutWidth = -1;
+    private int mLayoutHeight = -1;
+    private float mRadius;
+    private float mLongDegreeLength;
+    private float mShortDegreeLength;
+    /**
+     * 刻度数字和签名的位置，相对圆心
+     */
+    private final float[] mNumberX = new float[NUMERALS.length];
+    private final float[] mNumberY = new float[NUMERALS.length];
+    private float mSignatureY;
+
+    public DialRenderer(Context context) {
+        mPaintBorder = new Paint();
+        mPaintBorder.setStyle(Paint.Style.STROKE);
+        mPaintBorder.setAntiAlias(true);
+
+        mPaintFace = new Paint();
+        mPaintFace.setStyle(Paint.Style.FILL);
+        mPaintFace.setAntiAlias(true);
+
+        mPaintLongDegree = new Paint();
+        mPaintLongDegree.setAntiAlias(true);
+        mPaintShortDegree = new Paint(mPaintLongDegree);
+
+        mPaintDegreeNumber = new Paint();
+        mPaintDegreeNumber.setTextAlign(Paint.Align.CENTER);
+        mPaintDegreeNumber.setFakeBoldText(true);
+
+        mPaintSignature = new Paint(mPaintDegreeNumber);
+
+        mDegreeTextRect = new Rect();
+        mFontRegistry = FontRegistry.getInstance(context);
+    }
+
+    /**
+     * 在 (0, 0, width, height) 区域内绘制表盘
+     */
+    public void draw(Canvas canvas, int width, int height, ClockStyle style) {
+        applyStyle(style);
+        updateTypefaces();
+        layout(width, height);
+
+        float centerX = width / 2;
+        float centerY = height / 2;
+        float radius = mRadius;
+        int saveCount = canvas.save();
+
+        //画外圆
+        canvas.drawCircle(centerX, centerY, radius, mPaintBorder);
+        canvas.drawCircle(centerX, centerY, radius, mPaintFace);
+        if (mStyle.outline) {
+            //常亮模式只留轮廓：只画整点刻度，不画分钟刻度、数字和签名
+            float top = Math.abs(centerY - radius);
+            for (int i = 0; i < 12; i++) {
+                canvas.drawLine(centerX, top, centerX, top + mLongDegreeLength, mPaintLongDegree);
+                canvas.rotate(360 / 12, centerX, centerY);
+            }
+            canvas.restoreToCount(saveCount);
+            return;
+        }
+
+        //画刻度线
+        float top = Math.abs(centerY - radius);
+        for (int i = 0; i < 60; i++) {
+            if (i % 5 == 0) {
+                canvas.drawLine(centerX, top, centerX, top + mLongDegreeLength, mPaintLongDegree);
+            } else {
+                canvas.drawLine(centerX, top, centerX, top + mShortDegreeLength, mPaintShortDegree);
+            }
+            canvas.rotate(360 / 60, centerX, centerY);
+        }
+
+        //刻度数字
+        canvas.translate(centerX, centerY);
+        for (int i = 0; i < NUMERALS.length; i++) {
+            canvas.drawText(NUMERALS[i], mNumberX[i], mNumberY[i], mPaintDegreeNumber);
+        }
+        canvas.drawText(mStyle.signature, 0, mSignatureY, mPaintSignature);
+
+        canvas.restoreToCount(saveCount);
+    }
+
+    private void applyStyle(ClockStyle style) {
+        if (style == mStyle) {
+            return;
+        }
+        mStyle = style;
+        mPaintBorder.setColor(style.borderColor);
+        mPaintFace.setColor(style.dialColor);
+        mPaintLongDegree.setColor(style.tickColor);
+        mPaintShortDegree.setColor(style.tickColor);
+        mPaintDegreeNumber.setColor(style.numeralColor);
+        mPaintSignature.setColor(style.numeralColor);
+        mLayoutWidth = -1;
+    }
+
+    /**
+     * 字体在后台加载，加载完成前先用系统默认字体
+     */
+    private void updateTypefaces() {
+        Typeface numeral = mFontRegistry.get(mStyle.numeralFont);
+        Typeface signature = mFontRegistry.get(mStyle.signatureFont);
+        if (numeral != mNumeralTypeface || signature != mSignatureTypeface) {
+            mNumeralTypeface = numeral;
+            mSignatureTypeface = signature;
+            mPaintDegreeNumber.setTypeface(numeral);
+            mPaintSignature.setTypeface(signature);
+            mLayoutWidth = -1;
+        }
+    }
+
+    /**
+     * 计算线宽、刻度长度以及刻度数字和签名的位置，没有变化时直接复用上次的结果
+     */
+    private void layout(int width, int height) {
+        if (width == mLayoutWidth && height == mLayoutHeight) {
+            return;
+        }
+        mLayoutWidth = width;
+        mLayoutHeight = height;
+        ClockStyle style = mStyle;
+
+        ClockGeometry geometry = style.layout(width, height);
+        float radius = geometry.radius;
+        mRadius = radius;
+        mPaintBorder.setStrokeWidth(geometry.borderWidth);
+        mLongDegreeLength = radius * 0.10f;
+        mShortDegreeLength = radius * 0.08f;
+        mPaintLongDegree.setStrokeWidth(geometry.getStrokeWidth(6));
+        mPaintShortDegree.setStrokeWidth(geometry.getStrokeWidth(3));
+
+        int degreeNumSize = (int) (radius * style.numeralSizeRatio);
+        mPaintDegreeNumber.setTextSize(degreeNumSize);
+        mPaintSignature.setTextSize(degreeNumSize / 2);
+
+        float[] temp = mNumberPoints;
+        for (int i = 0; i < NUMERALS.length; i++) {
+            String text = NUMERALS[i];
+            HandGeometry.calculatePoint((i + 1) * 30, radius * style.numeralRadiusRatio, 0, temp);
+            mPaintDegreeNumber.getTextBounds(text, 0, text.length(), mDegreeTextRect);
+            mNumberX[i] = temp[2];
+            mNumberY[i] = temp[3] + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2;
+        }
+
+        String signature = style.signature;
+        mPaintSignature.getTextBounds(signature, 0, signature.length(), mDegreeTextRect);
+        mSignatureY = height / 4 + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2;
+    }
+}
@@ -0,0 +1,106 @@
+package com.deanxd.elegantclock.render;
+
+import android.annotation.TargetApi;
+import android.os.Build;
+import android.os.Handler;
+import android.os.SystemClock;
+import android.view.Choreographer;
+
+/**
+ * 带 Looper 的线程上的帧循环，每次 {@link #scheduleNext()} 回调一次
+ * <p>
+ * API 16 起跟随 vsync；更早的版本没有 Choreographer，按屏幕刷新间隔定时，间隔按纳秒累加，不因截断到整毫秒而漂移。
+ * 只在创建它的线程上调用。
+ *
+ * @author Dean
+ */
+
+public abstract class FrameLoop {
+
+    public interface Callback {
+        /**
+         * @param frameTimeNanos 这次 vsync 的时间，{@link System#nanoTime()} 时基；画面会在下一次 vsync 时显示
+         */
+        void onFrame(long frameTimeNanos);
+    }
+
+    final Callback mCallback;
+
+    FrameLoop(Callback callback) {
+        mCallback = callback;
+    }
+
+    /**
+     * @param handler            没有 Choreographer 时用来定时，必须属于当前线程
+     * @param frameIntervalNanos 没有 Choreographer 时的帧间隔
+     */
+    public static FrameLoop create(Handler handler, long frameIntervalNanos, Callback callback) {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN
+                ? new VsyncFrameLoop(callback) : new HandlerFrameLoop(handler, frameIntervalNanos, callback);
+    }
+
+    /**
+     * 请求下一帧，在下一帧回调之前重复调用也只回调一次
+     */
+    public abstract void scheduleNext();
+
+    /**
+     * 取消已请求但还没有回调的帧
+     */
+    public abstract void cancel();
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static class VsyncFrameLoop extends FrameLoop implements Choreographer.FrameCallback {
+
+        VsyncFrameLoop(Callback callback) {
+            super(callback);
+        }
+
+        @Override
+        public void scheduleNext() {
+            Choreographer choreographer = Choreographer.getInstance();
+            choreographer.removeFrameCallback(this);
+            choreographer.postFrameCallback(this);
+        }
+
+        @Override
+        public void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            mCallback.onFrame(frameTimeNanos);
+        }
+    }
+
+    private static class HandlerFrameLoop extends FrameLoop implements Runnable {
+        private final Handler mHandler;
+        private final long mFrameIntervalNanos;
+        private long mNextFrameUptimeNanos;
+
+        HandlerFrameLoop(Handler handler, long frameIntervalNanos, Callback callback) {
+            super(callback);
+            mHandler = handler;
+            mFrameIntervalNanos = frameIntervalNanos;
+        }
+
+        @Override
+        public void scheduleNext() {
+            mHandler.removeCallbacks(this);
+            long nowNanos = SystemClock.uptimeMillis() * 1000000;
+            mNextFrameUptimeNanos = Math.max(mNextFrameUptimeNanos + mFrameIntervalNanos, nowNanos);
+            mHandler.postAtTime(this, mNextFrameUptimeNanos / 1000000);
+        }
+
+        @Override
+        public void cancel() {
+            mHandler.removeCallbacks(this);
+        }
+
+        @Override
+        public void run() {
+            mCallback.onFrame(System.nanoTime());
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.deanxd.elegantclock.render;
+
+import android.annotation.TargetApi;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.BatteryManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.PowerManager;
+
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+
+/**
+ * 把亮灭屏、省电模式和电池温度的系统广播转给 {@link FrameRateGovernor}
+ * <p>
+ * 系统没有提供发热状态接口（compileSdk 26），用电池温度作为发热程度的近似。
+ *
+ * @author Dean
+ */
+
+class FrameRateInputs extends BroadcastReceiver {
+
+    private final Context mContext;
+    private final FrameRateGovernor mGovernor;
+    private final PowerManager mPowerManager;
+
+    FrameRateInputs(Context context, FrameRateGovernor governor) {
+        mContext = context;
+        mGovernor = governor;
+        mPowerManager = (PowerManager) context.getSystemService(Context.POWER_SERVICE);
+    }
+
+    /**
+     * 注册广播并读取当前状态，广播在 handler 所在线程上处理
+     */
+    void register(Handler handler) {
+        IntentFilter filter = new IntentFilter();
+        filter.addAction(Intent.ACTION_SCREEN_ON);
+        filter.addAction(Intent.ACTION_SCREEN_OFF);
+        filter.addAction(Intent.ACTION_BATTERY_CHANGED);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            filter.addAction(PowerManager.ACTION_POWER_SAVE_MODE_CHANGED);
+        }
+        //电池状态是粘性广播，注册时直接返回最近一次的值
+        Intent battery = mContext.registerReceiver(this, filter, null, handler);
+        if (battery != null) {
+            updateThermalLevel(battery);
+        }
+        if (mPowerManager != null) {
+            mGovernor.setVisible(isInteractive());
+            updatePowerSave();
+        }
+    }
+
+    void unregister() {
+        mContext.unregisterReceiver(this);
+    }
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (Intent.ACTION_SCREEN_ON.equals(action)) {
+            mGovernor.setVisible(true);
+        } else if (Intent.ACTION_SCREEN_OFF.equals(action)) {
+            mGovernor.setVisible(false);
+        } else if (Intent.ACTION_BATTERY_CHANGED.equals(action)) {
+            updateThermalLevel(intent);
+        } else if (mPowerManager != null) {
+            updatePowerSave();
+        }
+    }
+
+    private void updateThermalLevel(Intent battery) {
+        int temperature = battery.getIntExtra(BatteryManager.EXTRA_TEMPERATURE, 0);
+        mGovernor.setThermalLevel(FrameRateGovernor.thermalLevelForBatteryTemperature(temperature));
+    }
+
+    private void updatePowerSave() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            mGovernor.setPowerSave(isPowerSaveMode());
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.LOLLIPOP)
+    private boolean isPowerSaveMode() {
+        return mPowerManager.isPowerSaveMode();
+    }
+
+    @SuppressWarnings("deprecation")
+    private boolean isInteractive() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT_WATCH) {
+            return mPowerManager.isInteractive();
+        }
+        return mPowerManager.isScreenOn();
+    }
+}
@@ -0,0 +1,67 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Path;
+import android.graphics.RectF;
+
+/**
+ * 渐细指针的轮廓
+ * <p>
+ * 指针指向 12 点、圆心在原点：根部宽、尖端窄并带圆头，尾部有一个圆形配重。
+ * 轮廓只在尺寸或外观变化时构建一次，绘制时由调用方旋转 Canvas 后直接填充。
+ *
+ * @author Dean
+ */
+
+final class HandShape {
+
+    /**
+     * 尖端宽度 / 根部宽度
+     */
+    private static final float TIP_WIDTH_RATIO = 0.35f;
+    /**
+     * 配重半径 / 根部宽度
+     */
+    private static final float COUNTERWEIGHT_RADIUS_RATIO = 0.9f;
+    /**
+     * 配重圆心到圆心的距离 / 尾部长度
+     */
+    private static final float COUNTERWEIGHT_POSITION_RATIO = 0.6f;
+
+    private HandShape() {
+    }
+
+    /**
+     * @param out         输出的轮廓，原有内容会被清空
+     * @param frontLength 指向 12 点方向的长度
+     * @param backLength  反向超过圆心的长度
+     * @param width       根部宽度
+     * @param arcBounds   计算圆头用的临时对象
+     */
+    static void build(Path out, float frontLength, float backLength, float width, RectF arcBounds) {
+        out.reset();
+        out.setFillType(Path.FillType.WINDING);
+        float half = width / 2f;
+        float tipHalf = half * TIP_WIDTH_RATIO;
+
+        //所有轮廓都按顺时针方向，重叠部分按 WINDING 规则合并填充
+        out.moveTo(-half, backLength);
+        out.lineTo(-tipHalf, -frontLength);
+        arcBounds.set(-tipHalf, -frontLength - tipHalf, tipHalf, -frontLength + tipHalf);
+        out.arcTo(arcBounds, 180f, 180f);
+        out.lineTo(half, backLength);
+        out.close();
+
+        out.addCircle(0, backLength * COUNTERWEIGHT_POSITION_RATIO, getCounterweightRadius(width), Path.Direction.CW);
+    }
+
+    /**
+     * 轮廓离指针中线最远的距离，用于估算指针占据的区域
+     */
+    static float getHalfExtent(float width) {
+        return Math.max(width / 2f, getCounterweightRadius(width));
+    }
+
+    private static float getCounterweightRadius(float width) {
+        return width * COUNTERWEIGHT_RADIUS_RATIO;
+    }
+}
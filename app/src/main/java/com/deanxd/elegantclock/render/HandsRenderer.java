@@ -0,0 +1,307 @@
+package com.deanxd.elegantclock.render;
+
+import android.graphics.Canvas;
+import android.graphics.Paint;
+import android.graphics.Path;
+import android.graphics.Rect;
+import android.graphics.RectF;
+
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.core.HandGeometry;
+
+/**
+ * 绘制时针、分针、秒针和圆心
+ * <p>
+ * 先 {@link #update} 计算指针坐标，再 {@link #draw} 绘制，两步都不产生对象，也不修改 Paint；
+ * Paint 和指针长度只在 {@link #setStyle}、{@link #setSize} 或 {@link #setGeometry} 时重新配置。
+ * 渐细指针（{@link ClockStyle#HAND_SHAPE_TAPERED}）的轮廓也只在这两处构建，每帧只旋转 Canvas 后填充。
+ * 非线程安全，每个使用者持有自己的实例。
+ *
+ * @author Dean
+ */
+
+public class HandsRenderer {
+
+    public static final int HOUR = 0;
+    public static final int MINUTE = 1;
+    public static final int SECOND = 2;
+
+    /**
+     * 指针区域外扩的像素，留给抗锯齿
+     */
+    private static final int BOUNDS_PADDING = 2;
+    /**
+     * 渐细指针根部宽度 / 直线指针线宽，根部略宽，视觉粗细与直线指针相近
+     */
+    private static final float TAPERED_WIDTH_RATIO = 1.5f;
+
+    private final Paint mHourPaint;
+    private final Paint mMinutePaint;
+    private final Paint mSecondPaint;
+    private final Paint mPaintCircle;
+    private final HandAngles mHandAngles = new HandAngles();
+    private final float[] mHourPoints = new float[4];
+    private final float[] mMinutePoints = new float[4];
+    private final float[] mSecondPoints = new float[4];
+    private final Path mHourPath = new Path();
+    private final Path mMinutePath = new Path();
+    private final Path mSecondPath = new Path();
+    private final RectF mArcBounds = new RectF();
+
+    private ClockStyle mStyle = ClockStyle.DEFAULT;
+    private ClockGeometry mGeometry = ClockGeometry.EMPTY;
+    private boolean mTapered;
+    /**
+     * 渐细指针轮廓离中线的最远距离，按线宽计算区域时代替线宽的一半
+     */
+    private float mHourHalfExtent;
+    private float mMinuteHalfExtent;
+    private float mSecondHalfExtent;
+    private boolean mSecondHandVisible = true;
+
+    public HandsRenderer() {
+        mHourPaint = new Paint();
+        mHourPaint.setAntiAlias(true);
+        mMinutePaint = new Paint(mHourPaint);
+        mSecondPaint = new Paint(mHourPaint);
+
+        mPaintCircle = new Paint();
+        mPaintCircle.setAntiAlias(true);
+        applyColors();
+    }
+
+    /**
+     * 切换外观，与当前外观是同一个对象时什么也不做
+     *
+     * @return 外观是否发生变化
+     */
+    public boolean setStyle(ClockStyle style) {
+        if (style == mStyle) {
+            return false;
+        }
+        mStyle = style;
+        applyColors();
+        layout(style.layout(mGeometry.width, mGeometry.height));
+        return true;
+    }
+
+    /**
+     * 按表盘尺寸和当前外观的比例计算指针长度和线宽
+     */
+    public void setSize(int width, int height) {
+        layout(mStyle.layout(width, height));
+    }
+
+    /**
+     * 直接使用调用方在其他线程算好的几何参数，与当前几何参数是同一个对象时什么也不做
+     *
+     * @return 几何参数是否发生变化
+     */
+    public boolean setGeometry(ClockGeometry geometry) {
+        if (geometry == mGeometry) {
+            return false;
+        }
+        layout(geometry);
+        return true;
+    }
+
+    public ClockGeometry getGeometry() {
+        return mGeometry;
+    }
+
+    /**
+     * 按分钟刷新时隐藏秒针，只影响 {@link #draw} 和 {@link #getBounds}
+     */
+    public void setSecondHandVisible(boolean visible) {
+        mSecondHandVisible = visible;
+    }
+
+    private void applyColors() {
+        mHourPaint.setColor(mStyle.handColor);
+        mMinutePaint.setColor(mStyle.handColor);
+        mSecondPaint.setColor(mStyle.handColor);
+        mPaintCircle.setColor(mStyle.centerColor);
+    }
+
+    private void layout(ClockGeometry geometry) {
+        mGeometry = geometry;
+        mHourPaint.setStrokeWidth(geometry.hourHandWidth);
+        mMinutePaint.setStrokeWidth(geometry.minuteHandWidth);
+        mSecondPaint.setStrokeWidth(geometry.secondHandWidth);
+
+        mTapered = mStyle.handShape == ClockStyle.HAND_SHAPE_TAPERED;
+        mHourHalfExtent = mHourPaint.getStrokeWidth() / 2f;
+        mMinuteHalfExtent = mMinutePaint.getStrokeWidth() / 2f;
+        mSecondHalfExtent = mSecondPaint.getStrokeWidth() / 2f;
+        if (mTapered) {
+            mHourHalfExtent = buildShape(mHourPath, geometry.hourHandLength, mHourPaint.getStrokeWidth());
+            mMinuteHalfExtent = buildShape(mMinutePath, geometry.minuteHandLength, mMinutePaint.getStrokeWidth());
+            mSecondHalfExtent = buildShape(mSecondPath, geometry.secondHandLength, mSecondPaint.getStrokeWidth());
+        }
+    }
+
+    /**
+     * 构建渐细指针轮廓，区域估算与轮廓使用同一个根部宽度
+     *
+     * @return 轮廓离中线的最远距离
+     */
+    private float buildShape(Path path, float length, float strokeWidth) {
+        float width = strokeWidth * TAPERED_WIDTH_RATIO;
+        HandShape.build(path, length, mGeometry.handBackLength, width, mArcBounds);
+        return HandShape.getHalfExtent(width);
+    }
+
+    /**
+     * 计算指定时刻的指针坐标
+     *
+     * @param localMillis 已加上时区偏移的毫秒数
+     */
+    public void update(long localMillis) {
+        HandAngles angles = mHandAngles;
+        ClockGeometry geometry = mGeometry;
+        angles.set(localMillis);
+        HandGeometry.calculatePoint(angles.second, geometry.secondHandLength, geometry.handBackLength, mSecondPoints);
+        HandGeometry.calculatePoint(angles.minute, geometry.minuteHandLength, geometry.handBackLength, mMinutePoints);
+        HandGeometry.calculatePoint(angles.hour, geometry.hourHandLength, geometry.handBackLength, mHourPoints);
+    }
+
+    /**
+     * 用给定角度替换最近一次 {@link #update} 的秒针，秒表模式下中央秒针显示计时秒数
+     */
+    public void setSecondAngle(float angle) {
+        ClockGeometry geometry = mGeometry;
+        mHandAngles.second = angle;
+        HandGeometry.calculatePoint(angle, geometry.secondHandLength, geometry.handBackLength, mSecondPoints);
+    }
+
+    /**
+     * 最近一次 {@link #update} 的指针（含圆心）占据的区域
+     *
+     * @param centerX 圆心在目标坐标系中的位置
+     */
+    public void getBounds(Rect out, int centerX, int centerY) {
+        out.setEmpty();
+        includeLine(out, mHourPoints, mHourHalfExtent, centerX, centerY);
+        includeLine(out, mMinutePoints, mMinuteHalfExtent, centerX, centerY);
+        if (mSecondHandVisible) {
+            includeLine(out, mSecondPoints, mSecondHalfExtent, centerX, centerY);
+        }
+        int circleRadius = (int) mGeometry.centerRadius + BOUNDS_PADDING;
+        out.union(centerX - circleRadius, centerY - circleRadius, centerX + circleRadius, centerY + circleRadius);
+    }
+
+    /**
+     * 绘制最近一次 {@link #update} 的指针，坐标原点需已移到圆心
+     */
+    public void draw(Canvas canvas) {
+        if (mTapered) {
+            HandAngles angles = mHandAngles;
+            drawShape(canvas, mHourPath, angles.hour, mHourPaint);
+            drawShape(canvas, mMinutePath, angles.minute, mMinutePaint);
+            if (mSecondHandVisible) {
+                drawShape(canvas, mSecondPath, angles.second, mSecondPaint);
+            }
+            drawCenter(canvas);
+            return;
+        }
+        float[] secondPoints = mSecondPoints;
+        float[] minutePoints = mMinutePoints;
+        float[] hourPoints = mHourPoints;
+
+        canvas.drawLine(hourPoints[0], hourPoints[1], hourPoints[2], hourPoints[3], mHourPaint);
+        canvas.drawLine(minutePoints[0], minutePoints[1], minutePoints[2], minutePoints[3], mMinutePaint);
+        if (mSecondHandVisible) {
+            canvas.drawLine(secondPoints[0], secondPoints[1], secondPoints[2], secondPoints[3], mSecondPaint);
+        }
+
+        drawCenter(canvas);
+    }
+
+    /**
+     * 绘制指向 12 点的单根指针，由调用方旋转到实际角度，坐标原点需已移到圆心
+     *
+     * @param hand {@link #HOUR}、{@link #MINUTE} 或 {@link #SECOND}
+     */
+    public void drawUpright(Canvas canvas, int hand) {
+        if (mTapered) {
+            switch (hand) {
+                case HOUR:
+                    canvas.drawPath(mHourPath, mHourPaint);
+                    return;
+                case MINUTE:
+                    canvas.drawPath(mMinutePath, mMinutePaint);
+                    return;
+                case SECOND:
+                    canvas.drawPath(mSecondPath, mSecondPaint);
+                    return;
+                default:
+                    throw new IllegalArgumentException("unknown hand: " + hand);
+            }
+        }
+        ClockGeometry geometry = mGeometry;
+        switch (hand) {
+            case HOUR:
+                canvas.drawLine(0, geometry.handBackLength, 0, -geometry.hourHandLength, mHourPaint);
+                break;
+            case MINUTE:
+                canvas.drawLine(0, geometry.handBackLength, 0, -geometry.minuteHandLength, mMinutePaint);
+                break;
+            case SECOND:
+                canvas.drawLine(0, geometry.handBackLength, 0, -geometry.secondHandLength, mSecondPaint);
+                break;
+            default:
+                throw new IllegalArgumentException("unknown hand: " + hand);
+        }
+    }
+
+    /**
+     * 渐细指针指向 12 点的轮廓，直线指针时内容无意义
+     *
+     * @param hand {@link #HOUR}、{@link #MINUTE} 或 {@link #SECOND}
+     */
+    Path getShape(int hand) {
+        switch (hand) {
+            case HOUR:
+                return mHourPath;
+            case MINUTE:
+                return mMinutePath;
+            case SECOND:
+                return mSecondPath;
+            default:
+                throw new IllegalArgumentException("unknown hand: " + hand);
+        }
+    }
+
+    /**
+     * 最近一次 {@link #update} 的指针角度
+     */
+    HandAngles getHandAngles() {
+        return mHandAngles;
+    }
+
+    /**
+     * 画圆心
+     */
+    public void drawCenter(Canvas canvas) {
+        canvas.drawCircle(0, 0, mGeometry.centerRadius, mPaintCircle);
+    }
+
+    private static void drawShape(Canvas canvas, Path path, float angle, Paint paint) {
+        int saveCount = canvas.save();
+        canvas.rotate(angle);
+        canvas.drawPath(path, paint);
+        canvas.restoreToCount(saveCount);
+    }
+
+    /**
+     * @param halfExtent 指针离中线的最远距离
+     */
+    private static void includeLine(Rect bounds, float[] points, float halfExtent, int centerX, int centerY) {
+        float padding = halfExtent + BOUNDS_PADDING;
+        bounds.union((int) Math.floor(Math.min(points[0], points[2]) - padding) + centerX,
+                (int) Math.floor(Math.min(points[1], points[3]) - padding) + centerY,
+                (int) Math.ceil(Math.max(points[0], points[2]) + padding) + centerX,
+                (int) Math.ceil(Math.max(points[1], points[3]) + padding) + centerY);
+    }
+}
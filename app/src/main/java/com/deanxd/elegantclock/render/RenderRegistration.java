@@ -0,0 +1,88 @@
+package com.deanxd.elegantclock.render;
+
+/**
+ * 按 Surface、窗口可见性和页面状态决定一个时钟是否注册到 {@link RenderScheduler}
+ * <p>
+ * 三个条件同时满足才注册，任一条件不满足立即注销；所有时钟都注销后渲染线程退出，隐藏期间不占用 CPU 和线程。
+ * 重新注册后调度器会立即绘制一帧，不等下一个刷新周期。只在主线程调用。
+ *
+ * @author Dean
+ */
+
+public final class RenderRegistration {
+
+    private final RenderScheduler mRenderScheduler;
+    private final RenderScheduler.Callback mCallback;
+
+    private boolean mSurfaceReady;
+    private boolean mWindowVisible = true;
+    private boolean mPaused;
+    private boolean mRegistered;
+    private boolean mAmbient;
+    private boolean mChronographRunning;
+
+    public RenderRegistration(RenderScheduler renderScheduler, RenderScheduler.Callback callback) {
+        mRenderScheduler = renderScheduler;
+        mCallback = callback;
+    }
+
+    /**
+     * Surface 销毁时必须在返回前调用，返回后渲染线程不会再使用这个 Surface
+     */
+    public void setSurfaceReady(boolean ready) {
+        mSurfaceReady = ready;
+        update();
+    }
+
+    public void setWindowVisible(boolean visible) {
+        mWindowVisible = visible;
+        update();
+    }
+
+    /**
+     * 由页面的 onStart / onStop 控制
+     */
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+        update();
+    }
+
+    /**
+     * 这个时钟自己的常亮模式，不影响其他时钟的刷新频率
+     */
+    public void setAmbient(boolean ambient) {
+        mAmbient = ambient;
+        updateMode();
+    }
+
+    /**
+     * 这个时钟的秒表是否在屏幕上计时，不影响其他时钟的刷新频率
+     */
+    public void setChronographRunning(boolean running) {
+        mChronographRunning = running;
+        updateMode();
+    }
+
+    private void updateMode() {
+        if (mRegistered) {
+            mRenderScheduler.setMode(mCallback, mAmbient, mChronographRunning);
+        }
+    }
+
+    public boolean isRegistered() {
+        return mRegistered;
+    }
+
+    private void update() {
+        boolean register = mSurfaceReady && mWindowVisible && !mPaused;
+        if (register == mRegistered) {
+            return;
+        }
+        mRegistered = register;
+        if (register) {
+            mRenderScheduler.register(mCallback, mAmbient, mChronographRunning);
+        } else {
+            mRenderScheduler.unregister(mCallback);
+        }
+    }
+}
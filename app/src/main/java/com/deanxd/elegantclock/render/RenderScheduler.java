@@ -0,0 +1,484 @@
+package com.deanxd.elegantclock.render;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.Looper;
+import android.os.Process;
+import android.support.v4.os.TraceCompat;
+import android.util.Log;
+import android.view.Display;
+import android.view.WindowManager;
+
+import com.deanxd.elegantclock.core.FrameMetrics;
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+
+/**
+ * 进程内共享的渲染调度器
+ * <p>
+ * 所有时钟 Surface 注册到同一个调度器上，由一个 display 优先级的渲染线程在每次 vsync 时统一唤醒并依次绘制，
+ * 回调带上这一帧预计显示到屏幕上的时间，绘制时应以该时间计算指针位置。
+ * 一帧的总耗时超过预算时，后续帧把各个时钟分给一个小的工作线程池并行绘制，负载下降后再收回。
+ * <p>
+ * 刷新频率由 {@link FrameRateGovernor} 决定：按整秒或整分钟绘制时，渲染线程睡到下一个周期边界再请求 vsync；
+ * 灭屏时不再请求任何帧。常亮模式和秒表计时按注册者分别设置（{@link #setMode}），渲染线程按最快的注册者请求帧，
+ * 较慢的注册者只在自己的周期边界后绘制，不会被其他时钟带着提速或降频。
+ * <p>
+ * 没有任何注册者时渲染线程和工作线程都会退出。API 16 以下没有 Choreographer，退化为按屏幕刷新间隔定时（见 {@link FrameLoop}）。
+ *
+ * @author Dean
+ */
+
+public class RenderScheduler {
+
+    private static final String TAG = "RenderScheduler";
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private static final float DEFAULT_REFRESH_RATE = 60f;
+
+    /**
+     * 一帧可用于绘制的时间占帧间隔的比例，超过即视为超出预算
+     */
+    private static final float FRAME_BUDGET_RATIO = 0.8f;
+
+    /**
+     * 连续这么多帧耗时低于预算的一半后收回工作线程
+     */
+    private static final int IDLE_FRAMES_BEFORE_SERIAL = 120;
+
+    private static final int MAX_WORKERS = 3;
+
+    private static final String TRACE_FRAME = "RenderScheduler#frame";
+
+    public interface Callback {
+        /**
+         * 在渲染线程或工作线程上调用，同一个 Callback 不会被并发调用
+         *
+         * @param presentationNanos 这一帧预计显示的时间，{@link System#nanoTime()} 时基
+         * @param decision          这个注册者本帧的刷新决策，绘制时应按它对时间取整、隐藏秒针
+         */
+        void onFrame(long presentationNanos, FrameRateGovernor.Decision decision);
+    }
+
+    private static RenderScheduler sInstance;
+
+    private final Context mContext;
+    private final Object mLock = new Object();
+
+    /**
+     * 注册者快照，只在注册/注销时替换，渲染线程遍历时不产生对象
+     */
+    private volatile Client[] mClients = new Client[0];
+
+    private HandlerThread mThread;
+    private volatile Handler mHandler;
+    private FrameLoop mFrameLoop;
+    private volatile boolean mRunning;
+    private long mFrameIntervalNanos;
+
+    private RenderWorkerPool mWorkerPool;
+    private int mIdleFrames;
+
+    private final FrameRateGovernor mFrameRateGovernor = new FrameRateGovernor();
+    private FrameRateInputs mFrameRateInputs;
+    /**
+     * 在主线程上自己请求帧的时钟使用的广播输入，按引用计数注册，只在主线程访问
+     */
+    private FrameRateInputs mMainFrameRateInputs;
+    private int mMainFrameRateInputsCount;
+    /**
+     * 以下只在渲染线程上访问：是否已经请求了下一帧、是否正睡到周期边界、降频时的 vsync 计数
+     */
+    private boolean mFramePending;
+    private boolean mWakeUpPending;
+    private int mVsyncCount;
+
+    private final Runnable mWakeUp = new Runnable() {
+        @Override
+        public void run() {
+            mWakeUpPending = false;
+            if (mRunning) {
+                mFrameLoop.scheduleNext();
+            }
+        }
+    };
+
+    /**
+     * 决策变化后立即按新的频率重新调度，不等当前的周期睡完
+     */
+    private final Runnable mReschedule = new Runnable() {
+        @Override
+        public void run() {
+            if (!mRunning) {
+                return;
+            }
+            if (mWakeUpPending) {
+                mHandler.removeCallbacks(mWakeUp);
+                mWakeUpPending = false;
+                mFramePending = false;
+            }
+            if (!mFramePending && !fastestDecision(mClients).paused) {
+                mFramePending = true;
+                mFrameLoop.scheduleNext();
+            }
+        }
+    };
+
+    /**
+     * 所有时钟合计的每帧耗时、相对 vsync 的调度延迟和丢帧
+     */
+    private final FrameMetrics mFrameMetrics = new FrameMetrics();
+
+    public static synchronized RenderScheduler getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new RenderScheduler(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private RenderScheduler(Context context) {
+        mContext = context;
+        mFrameRateGovernor.addListener(new FrameRateGovernor.Listener() {
+            @Override
+            public void onDecisionChanged(FrameRateGovernor.Decision decision) {
+                Log.i(TAG, "frame rate: " + decision);
+                //广播在渲染线程上处理，stop() 持有 mLock 等待渲染线程退出，这里不能再取 mLock
+                Handler handler = mHandler;
+                if (mRunning && handler != null) {
+                    handler.post(mReschedule);
+                }
+            }
+        });
+    }
+
+    /**
+     * 注册后立即请求一帧，不等当前的刷新周期结束；第一个注册者会启动渲染线程
+     */
+    public void register(Callback callback) {
+        register(callback, false, false);
+    }
+
+    /**
+     * 带着注册者自己的常亮、秒表状态注册，见 {@link #setMode}
+     */
+    public void register(Callback callback, boolean ambient, boolean chronographRunning) {
+        synchronized (mLock) {
+            Client[] clients = mClients;
+            for (Client client : clients) {
+                if (client.mCallback == callback) {
+                    return;
+                }
+            }
+            Client[] newClients = new Client[clients.length + 1];
+            System.arraycopy(clients, 0, newClients, 0, clients.length);
+            newClients[clients.length] = new Client(callback, mFrameRateGovernor, ambient, chronographRunning);
+            mClients = newClients;
+            if (!mRunning) {
+                start();
+            } else {
+                mHandler.post(mReschedule);
+            }
+        }
+    }
+
+    /**
+     * 注销，返回后不会再有该 Callback 的 {@link Callback#onFrame} 被调用；最后一个注销者会结束渲染线程
+     */
+    public void unregister(Callback callback) {
+        Client removed = null;
+        synchronized (mLock) {
+            Client[] clients = mClients;
+            int index = -1;
+            for (int i = 0; i < clients.length; i++) {
+                if (clients[i].mCallback == callback) {
+                    index = i;
+                    break;
+                }
+            }
+            if (index < 0) {
+                return;
+            }
+            removed = clients[index];
+            Client[] newClients = new Client[clients.length - 1];
+            System.arraycopy(clients, 0, newClients, 0, index);
+            System.arraycopy(clients, index + 1, newClients, index, clients.length - index - 1);
+            mClients = newClients;
+            removed.mActive = false;
+            if (newClients.length == 0) {
+                stop();
+            }
+        }
+        //等待正在进行的这一帧结束
+        synchronized (removed) {
+            removed.mActive = false;
+        }
+    }
+
+    /**
+     * 设置一个注册者自己的常亮模式和秒表计时状态，只改变它自己的刷新决策并立即按新决策绘制一帧；
+     * 未注册时什么也不做
+     */
+    public void setMode(Callback callback, boolean ambient, boolean chronographRunning) {
+        for (Client client : mClients) {
+            if (client.mCallback == callback) {
+                client.mAmbient = ambient;
+                client.mChronographRunning = chronographRunning;
+                client.mForceFrame = true;
+                Handler handler = mHandler;
+                if (mRunning && handler != null) {
+                    handler.post(mReschedule);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * 尺寸等变化后请求所有注册者立即绘制一帧，不等当前的刷新周期结束；没有注册者时什么也不做
+     */
+    public void requestFrame() {
+        for (Client client : mClients) {
+            client.mForceFrame = true;
+        }
+        Handler handler = mHandler;
+        if (mRunning && handler != null) {
+            handler.post(mReschedule);
+        }
+    }
+
+    /**
+     * 一帧的时长（纳秒）
+     */
+    public long getFrameIntervalNanos() {
+        return mFrameIntervalNanos;
+    }
+
+    public FrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
+
+    /**
+     * 设置进程共用的指针运动方式；各个注册者本帧的决策通过 {@link Callback#onFrame} 传入
+     */
+    public FrameRateGovernor getFrameRateGovernor() {
+        return mFrameRateGovernor;
+    }
+
+    /**
+     * 不注册到调度器、在主线程上自己请求帧的时钟运行期间调用，让亮灭屏、省电和发热广播也送到
+     * {@link #getFrameRateGovernor()}；与 {@link #releaseFrameRateInputs()} 成对调用，只在主线程调用
+     */
+    public void acquireFrameRateInputs() {
+        if (mMainFrameRateInputsCount++ == 0) {
+            mMainFrameRateInputs = new FrameRateInputs(mContext, mFrameRateGovernor);
+            mMainFrameRateInputs.register(new Handler(Looper.getMainLooper()));
+        }
+    }
+
+    public void releaseFrameRateInputs() {
+        if (mMainFrameRateInputsCount > 0 && --mMainFrameRateInputsCount == 0) {
+            mMainFrameRateInputs.unregister();
+            mMainFrameRateInputs = null;
+        }
+    }
+
+    /**
+     * 当前并行绘制使用的工作线程数，0 表示只在渲染线程上绘制
+     */
+    public int getWorkerCount() {
+        RenderWorkerPool workerPool = mWorkerPool;
+        return workerPool == null ? 0 : workerPool.getWorkerCount();
+    }
+
+    /**
+     * 读取屏幕刷新率，60 / 90 / 120 Hz 的屏幕都按实际值调度
+     */
+    public static float getRefreshRate(Context context) {
+        WindowManager windowManager = (WindowManager) context.getSystemService(Context.WINDOW_SERVICE);
+        if (windowManager == null) {
+            return DEFAULT_REFRESH_RATE;
+        }
+        Display display = windowManager.getDefaultDisplay();
+        float refreshRate = display == null ? 0 : display.getRefreshRate();
+        return refreshRate < 1f ? DEFAULT_REFRESH_RATE : refreshRate;
+    }
+
+    private void start() {
+        mFrameIntervalNanos = (long) (NANOS_PER_SECOND / getRefreshRate(mContext));
+        mThread = new HandlerThread(TAG, Process.THREAD_PRIORITY_DISPLAY);
+        mThread.start();
+        mHandler = new Handler(mThread.getLooper());
+        mFrameLoop = FrameLoop.create(mHandler, mFrameIntervalNanos, new FrameLoop.Callback() {
+            @Override
+            public void onFrame(long frameTimeNanos) {
+                //画面会在下一次 vsync 时显示
+                dispatchFrame(frameTimeNanos + mFrameIntervalNanos);
+            }
+        });
+        mRunning = true;
+        mFramePending = false;
+        mWakeUpPending = false;
+        mFrameRateInputs = new FrameRateInputs(mContext, mFrameRateGovernor);
+        mFrameRateInputs.register(mHandler);
+        //第一帧总是立即绘制，之后再按决策调度
+        mHandler.post(mReschedule);
+    }
+
+    private void stop() {
+        mRunning = false;
+        mFrameRateInputs.unregister();
+        mFrameRateInputs = null;
+        mThread.quit();
+        if (Thread.currentThread() != mThread) {
+            try {
+                mThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        if (mWorkerPool != null) {
+            mWorkerPool.quit();
+            mWorkerPool = null;
+        }
+        mThread = null;
+        mHandler = null;
+        mFrameLoop = null;
+    }
+
+    private void dispatchFrame(long presentationNanos) {
+        mFramePending = false;
+        if (!mRunning) {
+            return;
+        }
+        Client[] clients = mClients;
+        FrameRateGovernor.Decision decision = fastestDecision(clients);
+        if (decision.paused) {
+            return;
+        }
+        if (decision.vsyncDivisor > 1 && ++mVsyncCount % decision.vsyncDivisor != 0) {
+            mFramePending = true;
+            mFrameLoop.scheduleNext();
+            return;
+        }
+        long start = System.nanoTime();
+        TraceCompat.beginSection(TRACE_FRAME);
+        try {
+            if (mWorkerPool != null && clients.length > 1) {
+                mWorkerPool.runFrame(clients, presentationNanos);
+            } else {
+                for (Client client : clients) {
+                    client.dispatch(presentationNanos);
+                }
+            }
+        } finally {
+            TraceCompat.endSection();
+        }
+        long end = System.nanoTime();
+        mFrameMetrics.recordFrame(presentationNanos - mFrameIntervalNanos, start, end, mFrameIntervalNanos);
+        adjustParallelism(clients.length, end - start);
+
+        if (mRunning) {
+            scheduleFrame(fastestDecision(mClients));
+        }
+    }
+
+    /**
+     * 所有注册者中刷新最快的决策，没有注册者时为进程共用的决策
+     */
+    private FrameRateGovernor.Decision fastestDecision(Client[] clients) {
+        FrameRateGovernor.Decision fastest = null;
+        for (Client client : clients) {
+            FrameRateGovernor.Decision decision = client.getDecision();
+            fastest = fastest == null ? decision : FrameRateGovernor.faster(fastest, decision);
+        }
+        return fastest == null ? mFrameRateGovernor.getDecision() : fastest;
+    }
+
+    /**
+     * 按决策请求下一帧：按周期绘制时先睡到下一个整周期（墙上时间），暂停时什么也不做
+     */
+    private void scheduleFrame(FrameRateGovernor.Decision decision) {
+        if (decision.paused) {
+            return;
+        }
+        mFramePending = true;
+        if (decision.periodMillis > 0) {
+            long period = decision.periodMillis;
+            mWakeUpPending = true;
+            mHandler.postDelayed(mWakeUp, period - System.currentTimeMillis() % period);
+        } else {
+            mFrameLoop.scheduleNext();
+        }
+    }
+
+    /**
+     * 超出预算时启用工作线程，连续空闲一段时间后收回
+     */
+    private void adjustParallelism(int clientCount, long costNanos) {
+        long budgetNanos = (long) (mFrameIntervalNanos * FRAME_BUDGET_RATIO);
+        if (mWorkerPool == null) {
+            int workers = Math.min(Math.min(Runtime.getRuntime().availableProcessors() - 1, MAX_WORKERS), clientCount - 1);
+            if (costNanos > budgetNanos && workers > 0) {
+                mWorkerPool = new RenderWorkerPool(workers);
+                mIdleFrames = 0;
+            }
+        } else if (costNanos < budgetNanos / 2) {
+            if (++mIdleFrames >= IDLE_FRAMES_BEFORE_SERIAL) {
+                mWorkerPool.quit();
+                mWorkerPool = null;
+            }
+        } else {
+            mIdleFrames = 0;
+        }
+    }
+
+    static final class Client {
+        final Callback mCallback;
+        final FrameRateGovernor mFrameRateGovernor;
+        volatile boolean mActive = true;
+        volatile boolean mAmbient;
+        volatile boolean mChronographRunning;
+        /**
+         * 下一帧不论周期都绘制：刚注册、请求立即绘制或状态变化之后
+         */
+        volatile boolean mForceFrame = true;
+        /**
+         * 上一次绘制所在的周期序号，只在绘制这个注册者的线程上访问
+         */
+        private long mLastPeriodIndex = -1;
+
+        Client(Callback callback, FrameRateGovernor frameRateGovernor, boolean ambient, boolean chronographRunning) {
+            mCallback = callback;
+            mFrameRateGovernor = frameRateGovernor;
+            mAmbient = ambient;
+            mChronographRunning = chronographRunning;
+        }
+
+        FrameRateGovernor.Decision getDecision() {
+            return mFrameRateGovernor.getDecision(mAmbient, mChronographRunning);
+        }
+
+        /**
+         * 按周期绘制的注册者在同一个周期内只画一次，渲染线程为更快的注册者请求的帧直接跳过
+         */
+        synchronized void dispatch(long presentationNanos) {
+            if (!mActive) {
+                return;
+            }
+            FrameRateGovernor.Decision decision = getDecision();
+            if (decision.paused) {
+                return;
+            }
+            if (decision.periodMillis > 0) {
+                long periodIndex = System.currentTimeMillis() / decision.periodMillis;
+                if (periodIndex == mLastPeriodIndex && !mForceFrame) {
+                    return;
+                }
+                mLastPeriodIndex = periodIndex;
+            }
+            mForceFrame = false;
+            mCallback.onFrame(presentationNanos, decision);
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.deanxd.elegantclock.render;
+
+import android.os.Process;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 一帧内并行绘制多个时钟的工作线程池
+ * <p>
+ * 渲染线程与工作线程一起从同一个下标计数器上领取待绘制的时钟，直到全部领完；
+ * 渲染线程等所有工作线程完成后返回。整个过程不产生对象。
+ *
+ * @author Dean
+ */
+
+final class RenderWorkerPool {
+
+    private final Thread[] mThreads;
+    private final Object mLock = new Object();
+    private final AtomicInteger mNextIndex = new AtomicInteger();
+    private final AtomicInteger mPendingWorkers = new AtomicInteger();
+
+    private RenderScheduler.Client[] mClients;
+    private long mPresentationNanos;
+    private int mFrameId;
+    private boolean mQuit;
+    private volatile Throwable mWorkerError;
+
+    RenderWorkerPool(int workerCount) {
+        mThreads = new Thread[workerCount];
+        for (int i = 0; i < workerCount; i++) {
+            mThreads[i] = new Thread(new Worker(), "RenderWorker-" + i);
+            mThreads[i].start();
+        }
+    }
+
+    int getWorkerCount() {
+        return mThreads.length;
+    }
+
+    /**
+     * 在调用线程上参与绘制，所有时钟画完后返回
+     */
+    void runFrame(RenderScheduler.Client[] clients, long presentationNanos) {
+        synchronized (mLock) {
+            mClients = clients;
+            mPresentationNanos = presentationNanos;
+            mNextIndex.set(0);
+            mPendingWorkers.set(mThreads.length);
+            mFrameId++;
+            mLock.notifyAll();
+        }
+
+        drain(clients, presentationNanos);
+
+        synchronized (mLock) {
+            while (mPendingWorkers.get() > 0) {
+                try {
+                    mLock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            mClients = null;
+        }
+
+        Throwable error = mWorkerError;
+        if (error != null) {
+            mWorkerError = null;
+            if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            }
+            throw new RuntimeException(error);
+        }
+    }
+
+    void quit() {
+        synchronized (mLock) {
+            mQuit = true;
+            mLock.notifyAll();
+        }
+    }
+
+    private void drain(RenderScheduler.Client[] clients, long presentationNanos) {
+        int index;
+        while ((index = mNextIndex.getAndIncrement()) < clients.length) {
+            clients[index].dispatch(presentationNanos);
+        }
+    }
+
+    private class Worker implements Runnable {
+
+        @Override
+        public void run() {
+            Process.setThreadPriority(Process.THREAD_PRIORITY_DISPLAY);
+            int handledFrameId = 0;
+            while (true) {
+                RenderScheduler.Client[] clients;
+                long presentationNanos;
+                synchronized (mLock) {
+                    while (!mQuit && mFrameId == handledFrameId) {
+                        try {
+                            mLock.wait();
+                        } catch (InterruptedException e) {
+                            return;
+                        }
+                    }
+                    if (mQuit) {
+                        return;
+                    }
+                    handledFrameId = mFrameId;
+                    clients = mClients;
+                    presentationNanos = mPresentationNanos;
+                }
+
+                try {
+                    drain(clients, presentationNanos);
+                } catch (Throwable t) {
+                    mWorkerError = t;
+                } finally {
+                    if (mPendingWorkers.decrementAndGet() == 0) {
+                        synchronized (mLock) {
+                            mLock.notifyAll();
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
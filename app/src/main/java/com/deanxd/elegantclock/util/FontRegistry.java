@@ -0,0 +1,195 @@
+package com.deanxd.elegantclock.util;
+
+import android.content.Context;
+import android.content.res.AssetManager;
+import android.graphics.Typeface;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Process;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 进程内共享的字体
+ * <p>
+ * 每个字体文件只解析一次。{@link #preload()} 在后台线程加载内置字体，加载完成前 {@link #get} 返回系统默认字体，
+ * 并把没见过的字体也放到后台加载；使用者可以先用默认字体绘制，收到 {@link OnFontLoadedListener} 回调后再重画。
+ * 后台线程空闲一会儿后自动退出。
+ *
+ * @author Dean
+ */
+
+public class FontRegistry {
+
+    private final static String TAG = "FontRegistry";
+
+    public static final String FONT_SATISFY = "Satisfy-Regular.ttf";
+    public static final String FONT_HELVETICA = "HelveticaNeueLt.ttf";
+
+    private static final String[] FONTS = {FONT_HELVETICA, FONT_SATISFY};
+
+    private static final long KEEP_ALIVE_SECONDS = 1;
+
+    /**
+     * 字体加载完成的回调，在主线程调用
+     */
+    public interface OnFontLoadedListener {
+        void onFontLoaded(String asset);
+    }
+
+    private static FontRegistry sInstance;
+
+    private final AssetManager mAssets;
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ConcurrentHashMap<String, Typeface> mTypefaces = new ConcurrentHashMap<>();
+    private final ArrayList<OnFontLoadedListener> mListeners = new ArrayList<>();
+    private final Object mLoadLock = new Object();
+    private final HashSet<String> mRequested = new HashSet<>();
+    private final ThreadPoolExecutor mExecutor;
+    /**
+     * 解析字体花掉的总时间，每个字体只计一次
+     */
+    private volatile long mLoadNanos;
+
+    public static synchronized FontRegistry getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new FontRegistry(context.getApplicationContext().getAssets());
+        }
+        return sInstance;
+    }
+
+    private FontRegistry(AssetManager assets) {
+        mAssets = assets;
+        mExecutor = new ThreadPoolExecutor(0, 1, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+            @Override
+            public Thread newThread(final Runnable r) {
+                return new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+                        r.run();
+                    }
+                }, TAG);
+            }
+        });
+    }
+
+    /**
+     * 在后台线程加载内置字体，重复调用无效
+     */
+    public void preload() {
+        for (String asset : FONTS) {
+            requestLoad(asset);
+        }
+    }
+
+    private void requestLoad(final String asset) {
+        synchronized (mRequested) {
+            if (!mRequested.add(asset)) {
+                return;
+            }
+        }
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                load(asset);
+            }
+        });
+    }
+
+    /**
+     * 已加载的字体，尚未加载完成时返回系统默认字体并开始预加载，不会阻塞
+     */
+    public Typeface get(String asset) {
+        Typeface typeface = mTypefaces.get(asset);
+        if (typeface != null) {
+            return typeface;
+        }
+        requestLoad(asset);
+        return Typeface.DEFAULT;
+    }
+
+    public boolean isLoaded(String asset) {
+        return mTypefaces.containsKey(asset);
+    }
+
+    /**
+     * 内置字体是否都已加载
+     */
+    public boolean isAllLoaded() {
+        for (String asset : FONTS) {
+            if (!mTypefaces.containsKey(asset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 同步加载字体，供没有界面、不能先画默认字体的场景（离线导出等）在后台线程调用
+     */
+    public void loadBlocking(String... assets) {
+        for (String asset : assets) {
+            load(asset);
+        }
+    }
+
+    public long getLoadNanos() {
+        return mLoadNanos;
+    }
+
+    /**
+     * 在主线程调用
+     */
+    public void addListener(OnFontLoadedListener listener) {
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    /**
+     * 在主线程调用
+     */
+    public void removeListener(OnFontLoadedListener listener) {
+        mListeners.remove(listener);
+    }
+
+    /**
+     * 加载一个字体，已加载时直接返回；同时只有一个线程在解析
+     */
+    private Typeface load(final String asset) {
+        Typeface typeface = mTypefaces.get(asset);
+        if (typeface != null) {
+            return typeface;
+        }
+        synchronized (mLoadLock) {
+            typeface = mTypefaces.get(asset);
+            if (typeface != null) {
+                return typeface;
+            }
+            long startNanos = System.nanoTime();
+            typeface = Typeface.createFromAsset(mAssets, asset);
+            long costNanos = System.nanoTime() - startNanos;
+            mTypefaces.put(asset, typeface);
+            mLoadNanos += costNanos;
+            Log.i(TAG, asset + " loaded in " + costNanos / 1000 + " us on " + Thread.currentThread().getName());
+        }
+        mMainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                for (int i = mListeners.size() - 1; i >= 0; i--) {
+                    mListeners.get(i).onFontLoaded(asset);
+                }
+            }
+        });
+        return typeface;
+    }
+}
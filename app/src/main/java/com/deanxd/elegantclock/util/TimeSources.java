@@ -0,0 +1,49 @@
+package com.deanxd.elegantclock.util;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+
+import com.deanxd.elegantclock.core.SystemTimeSource;
+import com.deanxd.elegantclock.core.TimeSource;
+
+/**
+ * 进程内共享的系统时间来源
+ * <p>
+ * 监听时区、系统时间变化的广播，收到后让 {@link SystemTimeSource} 重新锚定。
+ *
+ * @author Dean
+ */
+
+public class TimeSources {
+
+    private static SystemTimeSource sSystem;
+
+    private TimeSources() {
+    }
+
+    public static synchronized TimeSource getSystem(Context context) {
+        if (sSystem == null) {
+            final SystemTimeSource timeSource = new SystemTimeSource();
+            IntentFilter filter = new IntentFilter();
+            filter.addAction(Intent.ACTION_TIMEZONE_CHANGED);
+            filter.addAction(Intent.ACTION_TIME_CHANGED);
+            context.getApplicationContext().registerReceiver(new BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    timeSource.invalidate();
+                }
+            }, filter);
+            sSystem = timeSource;
+        }
+        return sSystem;
+    }
+
+    /**
+     * 立即让系统时间来源重新锚定，用于在自己的广播接收者里先于动态注册的接收者处理时间变化
+     */
+    public static void invalidateSystem(Context context) {
+        ((SystemTimeSource) getSystem(context)).invalidate();
+    }
+}
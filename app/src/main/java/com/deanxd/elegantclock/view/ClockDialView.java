@@ -1,113 +1,220 @@
 package com.deanxd.elegantclock.view;
 
 import android.content.Context;
+import android.graphics.Bitmap;
 import android.graphics.Canvas;
-import android.graphics.Color;
 import android.graphics.Paint;
-import android.graphics.PointF;
-import android.graphics.Rect;
-import android.graphics.Typeface;
+import android.graphics.Path;
 import android.support.annotation.Nullable;
 import android.util.AttributeSet;
-import android.util.Log;
+import android.util.DisplayMetrics;
 import android.util.TypedValue;
 import android.view.View;
 
-import com.deanxd.elegantclock.util.CommonUtils;
+import com.deanxd.elegantclock.alarm.Alarms;
+import com.deanxd.elegantclock.core.BurnInShift;
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DialLayerCache;
+import com.deanxd.elegantclock.render.DialRenderer;
+import com.deanxd.elegantclock.util.FontRegistry;
+
+import java.util.TimeZone;
 
 /**
- * 绘制时钟表盘
+ * 绘制时钟表盘，12 小时内有闹钟时在表盘边缘对应的时针位置画一个标记
  *
  * @author Dean
  */
 
-public class ClockDialView extends View {
-    private final static String TAG = "clockPannelView";
+public class ClockDialView extends View implements FontRegistry.OnFontLoadedListener,
+        Alarms.OnNextAlarmChangedListener {
+
+    /**
+     * 常亮模式下画面最多平移的距离（dp）
+     */
+    private static final int BURN_IN_SHIFT_DP = 4;
 
     /**
      * View默认最小宽度
      */
     private float mDefaultWidth;
+
+    private DialRenderer mDialRenderer;
+    private DialLayerCache mDialLayerCache;
+    private FontRegistry mFontRegistry;
+    private ClockStyle mClockStyle;
     /**
-     * 外圆边框宽度
+     * 当前尺寸的表盘位图，来自 {@link DialLayerCache}
      */
-    private float mBordWith;
+    private Bitmap mDialBitmap;
+    private int mDialGeneration;
+    private boolean mAmbient;
+    private int mBurnInShift;
     /**
-     * 长刻度线
+     * 常亮模式下每个整分钟重画一次，同一时刻只排一个
      */
-    private float mLongDegreeLength;
+    private final Runnable mAmbientTick = new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+            scheduleAmbientTick();
+        }
+    };
+
+    private Alarms mAlarms;
+    private long mNextAlarmMillis = Long.MAX_VALUE;
+    private final Paint mAlarmMarkerPaint = new Paint(Paint.ANTI_ALIAS_FLAG);
     /**
-     * 短刻度线
+     * 指向 12 点的标记，绘制时旋转到闹钟时间对应的时针角度
      */
-    private float mShortDegreeLength;
-
+    private final Path mAlarmMarkerPath = new Path();
+    private final HandAngles mAlarmAngles = new HandAngles();
     /**
-     * 刻度字大小
+     * 闹钟进入 12 小时范围或到期时重画，下一个闹钟变化时重新安排
      */
-    private int mDegreeNumSize;
-    private float mRadius;
-
-    private Paint mPaintCircle;
-    private Paint mPaintDegree;
-    private Paint mPaintDegreeNumber;
-    private Rect mDegreeTextRect;
-    private Typeface mTypeSatisfy;
-    private Typeface mTypeHelvetica;
+    private final Runnable mAlarmMarkerUpdate = new Runnable() {
+        @Override
+        public void run() {
+            invalidate();
+            scheduleAlarmMarkerUpdate();
+        }
+    };
 
     public ClockDialView(Context context) {
         super(context);
-        init();
+        init(null, 0);
     }
 
     public ClockDialView(Context context, @Nullable AttributeSet attrs) {
         super(context, attrs);
-        init();
+        init(attrs, 0);
     }
 
     public ClockDialView(Context context, @Nullable AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
+        init(attrs, defStyleAttr);
     }
 
-    private void init() {
+    private void init(AttributeSet attrs, int defStyleAttr) {
         mDefaultWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 200, getResources().getDisplayMetrics());
 
-        mPaintCircle = new Paint();
-        mPaintCircle.setStyle(Paint.Style.STROKE);
-        mPaintCircle.setAntiAlias(true);
+        mDialRenderer = new DialRenderer(getContext());
+        mDialLayerCache = DialLayerCache.getInstance(getContext());
+        mFontRegistry = FontRegistry.getInstance(getContext());
+        mClockStyle = ClockStyle.fromAttributes(getContext(), attrs, defStyleAttr);
+        mBurnInShift = getBurnInShift(getResources().getDisplayMetrics());
+        mAlarms = Alarms.getInstance(getContext());
+    }
+
+    static int getBurnInShift(DisplayMetrics metrics) {
+        return (int) TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, BURN_IN_SHIFT_DP, metrics);
+    }
+
+    /**
+     * 切换外观，在主线程调用
+     */
+    public void setClockStyle(ClockStyle style) {
+        if (style != mClockStyle) {
+            mClockStyle = style;
+            mDialBitmap = null;
+            invalidate();
+        }
+    }
+
+    public ClockStyle getClockStyle() {
+        return mClockStyle;
+    }
 
-        mPaintDegree = new Paint();
-        mPaintDegree.setAntiAlias(true);
+    /**
+     * 进出常亮模式，在主线程调用：改画轮廓表盘，每个整分钟重画一次并随 {@link PointerView} 一起平移
+     */
+    public void setAmbientMode(boolean ambient) {
+        if (ambient != mAmbient) {
+            mAmbient = ambient;
+            mDialBitmap = null;
+            invalidate();
+            scheduleAmbientTick();
+        }
+    }
 
-        mPaintDegreeNumber = new Paint();
-        mPaintDegreeNumber.setTextAlign(Paint.Align.CENTER);
-        mPaintDegreeNumber.setFakeBoldText(true);
+    /**
+     * 在常亮模式下且挂在窗口上时排下一个整分钟的重画，否则取消
+     */
+    private void scheduleAmbientTick() {
+        removeCallbacks(mAmbientTick);
+        if (mAmbient && getWindowToken() != null) {
+            long wallMillis = System.currentTimeMillis();
+            postDelayed(mAmbientTick, HandAngles.MINUTE_MILLIS - wallMillis % HandAngles.MINUTE_MILLIS);
+        }
+    }
 
-        mDegreeTextRect = new Rect();
-        mTypeSatisfy = Typeface.createFromAsset(getContext().getAssets(), "Satisfy-Regular.ttf");
-        mTypeHelvetica = Typeface.createFromAsset(getContext().getAssets(), "HelveticaNeueLt.ttf");
+    public boolean isAmbientMode() {
+        return mAmbient;
     }
 
     @Override
-    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
-        setMeasuredDimension(measure(widthMeasureSpec), measure(heightMeasureSpec));
-        setSize();
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mFontRegistry.addListener(this);
+        mAlarms.addListener(this);
+        mNextAlarmMillis = mAlarms.getNextAlarmMillis();
+        scheduleAmbientTick();
+        scheduleAlarmMarkerUpdate();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mFontRegistry.removeListener(this);
+        mAlarms.removeListener(this);
+        removeCallbacks(mAmbientTick);
+        removeCallbacks(mAlarmMarkerUpdate);
     }
 
     /**
-     * 测量长度
+     * 字体加载完成后表盘缓存会被清空，这里只需重画
      */
-    private void setSize() {
-        int sizeLength = Math.min(getHeight() / 2, getWidth() / 2);
-        mBordWith = sizeLength * 0.03f;
-        mRadius = (Math.min(getHeight() / 2, getWidth() / 2) - mBordWith / 2);
+    @Override
+    public void onFontLoaded(String asset) {
+        invalidate();
+    }
 
-        mLongDegreeLength = mRadius * 0.10f;
-        mShortDegreeLength = mRadius * 0.08f;
+    @Override
+    public void onNextAlarmChanged(long nextAlarmMillis) {
+        mNextAlarmMillis = nextAlarmMillis;
+        invalidate();
+        scheduleAlarmMarkerUpdate();
+    }
 
-        mDegreeNumSize = (int) (mRadius * 0.18f);
+    /**
+     * 闹钟还在 12 小时外时排在进入范围的时刻重画，已在范围内时排在到期时刻重画以去掉标记
+     */
+    private void scheduleAlarmMarkerUpdate() {
+        removeCallbacks(mAlarmMarkerUpdate);
+        long next = mNextAlarmMillis;
+        if (next == Long.MAX_VALUE || getWindowToken() == null) {
+            return;
+        }
+        long remaining = next - System.currentTimeMillis();
+        if (remaining >= HandAngles.HALF_DAY_MILLIS) {
+            postDelayed(mAlarmMarkerUpdate, remaining - HandAngles.HALF_DAY_MILLIS + 1);
+        } else if (remaining > 0) {
+            postDelayed(mAlarmMarkerUpdate, remaining);
+        }
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        setMeasuredDimension(measure(widthMeasureSpec), measure(heightMeasureSpec));
     }
 
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mDialBitmap = null;
+    }
 
     private int measure(int origin) {
         int result = (int) mDefaultWidth;
@@ -132,63 +239,68 @@ public class ClockDialView extends View {
     @Override
     protected void onDraw(Canvas canvas) {
         super.onDraw(canvas);
-        Log.e(TAG, "ClockDialView onDraw-->" + this);
         drawPanel(canvas);
     }
 
     /**
-     * 绘制表盘
+     * 绘制表盘，同尺寸的表盘在所有实例间共享一张位图
      */
     private void drawPanel(Canvas canvas) {
-        //画外圆
-        mPaintCircle.setColor(Color.BLACK);
-        mPaintCircle.setStrokeWidth(mBordWith);
-        mPaintCircle.setStyle(Paint.Style.STROKE);
-        canvas.drawCircle(getWidth() / 2, getHeight() / 2, mRadius, mPaintCircle);
-
-        mPaintCircle.setStyle(Paint.Style.FILL);
-        mPaintCircle.setColor(Color.parseColor("#B2FA9C"));
-        canvas.drawCircle(getWidth() / 2, getHeight() / 2, mRadius, mPaintCircle);
-
-        //画刻度线
-        float degreeLength;
-        for (int i = 0; i < 60; i++) {
-            if (i % 5 == 0) {
-                mPaintDegree.setStrokeWidth(getStrokeWidth(6));
-                degreeLength = mLongDegreeLength;
-            } else {
-                mPaintDegree.setStrokeWidth(getStrokeWidth(3));
-                degreeLength = mShortDegreeLength;
-            }
-            canvas.drawLine(getWidth() / 2, Math.abs(getHeight() / 2 - mRadius),
-                    getWidth() / 2, Math.abs(getHeight() / 2 - mRadius) + degreeLength, mPaintDegree);
-
-            canvas.rotate(360 / 60, getWidth() / 2, getHeight() / 2);
+        if (getWidth() <= 0 || getHeight() <= 0) {
+            return;
         }
-
-        mPaintDegreeNumber.setTextSize(mDegreeNumSize);
-        mPaintDegreeNumber.setTypeface(mTypeHelvetica);
-        //刻度数字
-
-        canvas.translate(getWidth() / 2, getHeight() / 2);
-
-        for (int i = 0; i < 12; i++) {
-            float[] floats = CommonUtils.calculatePoint((i + 1) * 30, mRadius * 0.8f * 0.98f, 0);
-            String text = String.valueOf(i + 1);
-
-            mPaintDegreeNumber.getTextBounds(text, 0, text.length(), mDegreeTextRect);
-            canvas.drawText(text, floats[2], floats[3] + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2, mPaintDegreeNumber);
+        int generation = mDialLayerCache.getGeneration();
+        if (mDialBitmap == null || mDialGeneration != generation) {
+            mDialGeneration = generation;
+            ClockStyle style = mAmbient ? mClockStyle.toAmbient() : mClockStyle;
+            mDialBitmap = mDialLayerCache.get(getWidth(), getHeight(), style, mDialRenderer);
+            layoutAlarmMarker(style, style.layout(getWidth(), getHeight()));
+        }
+        long wallMillis = System.currentTimeMillis();
+        if (!mAmbient) {
+            canvas.drawBitmap(mDialBitmap, 0, 0, null);
+            drawAlarmMarker(canvas, getWidth() / 2, getHeight() / 2, wallMillis);
+            return;
         }
+        //与指针使用同一个分钟序号计算偏移，下一个整分钟由 mAmbientTick 重画
+        int dx = BurnInShift.offsetX(wallMillis, mBurnInShift);
+        int dy = BurnInShift.offsetY(wallMillis, mBurnInShift);
+        canvas.drawBitmap(mDialBitmap, dx, dy, null);
+        drawAlarmMarker(canvas, getWidth() / 2 + dx, getHeight() / 2 + dy, wallMillis);
+    }
 
-        mPaintDegreeNumber.setTypeface(mTypeSatisfy);
-        String tips = "Designed by Dean";
-        mPaintDegreeNumber.setTextSize(mDegreeNumSize / 2);
-        mPaintDegreeNumber.getTextBounds(tips, 0, tips.length(), mDegreeTextRect);
-        canvas.drawText(tips, 0, getHeight() / 4 + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2, mPaintDegreeNumber);
+    /**
+     * 标记是贴着边框内侧、尖端朝向圆心的三角形
+     */
+    private void layoutAlarmMarker(ClockStyle style, ClockGeometry geometry) {
+        mAlarmMarkerPaint.setColor(style.handColor);
+        float outer = geometry.radius - geometry.borderWidth / 2;
+        float length = geometry.getStrokeWidth(20);
+        float halfWidth = length * 0.5f;
+        mAlarmMarkerPath.reset();
+        mAlarmMarkerPath.moveTo(-halfWidth, -outer);
+        mAlarmMarkerPath.lineTo(halfWidth, -outer);
+        mAlarmMarkerPath.lineTo(0, -outer + length);
+        mAlarmMarkerPath.close();
     }
 
-    private int getStrokeWidth(int width) {
-        float factor = mRadius * 0.005f;
-        return (int) (factor * width);
+    /**
+     * 只标记 12 小时内还没到期的闹钟，进入和离开这个范围时由 {@link #mAlarmMarkerUpdate} 重画
+     */
+    private void drawAlarmMarker(Canvas canvas, int centerX, int centerY, long wallMillis) {
+        long next = mNextAlarmMillis;
+        if (next == Long.MAX_VALUE) {
+            return;
+        }
+        long remaining = next - wallMillis;
+        if (remaining <= 0 || remaining >= HandAngles.HALF_DAY_MILLIS) {
+            return;
+        }
+        mAlarmAngles.set(next + TimeZone.getDefault().getOffset(next));
+        int saveCount = canvas.save();
+        canvas.translate(centerX, centerY);
+        canvas.rotate(mAlarmAngles.hour);
+        canvas.drawPath(mAlarmMarkerPath, mAlarmMarkerPaint);
+        canvas.restoreToCount(saveCount);
     }
 }
@@ -3,23 +3,29 @@ package com.deanxd.elegantclock.view;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.PorterDuff;
-import android.graphics.Rect;
-import android.graphics.Typeface;
+import android.os.Debug;
+import android.support.v4.os.TraceCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.FrameMetrics;
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+import com.deanxd.elegantclock.core.TimeSource;
+import com.deanxd.elegantclock.render.ClockRenderer;
+import com.deanxd.elegantclock.render.ClockSnapshot;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DebugOverlay;
+import com.deanxd.elegantclock.render.RenderRegistration;
+import com.deanxd.elegantclock.render.RenderScheduler;
+import com.deanxd.elegantclock.util.TimeSources;
+
 import java.lang.ref.WeakReference;
-import java.text.Format;
-import java.util.Calendar;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 绘制时钟面板
@@ -31,76 +37,42 @@ public class ClockPannelView extends SurfaceView implements SurfaceHolder.Callba
 
     private final static String TAG = "clockPannelView";
 
-    private final static long FRESH_TIME = 1000 / 60;
+    private final static String TRACE_FRAME = "ClockPannelView#onFrame";
 
     /**
      * View默认最小宽度
      */
     private float mDefaultWidth;
+    private RenderScheduler mRenderScheduler;
+    private DrawFrameCallback mFrameCallback;
+    private RenderRegistration mRenderRegistration;
+    private ClockRenderer mClockRenderer;
+    private volatile TimeSource mTimeSource;
     /**
-     * 外圆边框宽度
-     */
-    private float mBordWith;
-
-    /**
-     * 秒针长度
-     */
-    private float mSecondPointerLength;
-    /**
-     * 分针长度
-     */
-    private float mMinutePointerLength;
-    /**
-     * 时针长度
-     */
-    private float mHourPointerLength;
-
-    /**
-     * 指针反向超过圆点的长度
-     */
-    private float mPointBackLength;
-    /**
-     * 长刻度线
-     */
-    private float mLongDegreeLength;
-    /**
-     * 短刻度线
-     */
-    private float mShortDegreeLength;
-
-    /**
-     * 刻度字大小
+     * 外观和几何参数，只在 UI 线程整体替换（surfaceChanged、setClockStyle），渲染线程每帧读一次
      */
-    private int mDegreeNumSize;
-    private float mRadius;
-
-    private Paint mPaintCircle;
-    private Paint mPaintDegree;
-    private Paint mPaintDegreeNumber;
-    private Paint mPaintPoint;
-    private DrawTimerTask mTimerTask;
-    private ScheduledExecutorService mScheduledService;
-    private Rect mDegreeTextRect;
-    private Typeface mTypeSatisfy;
-    private Typeface mTypeHelvetica;
+    private volatile ClockSnapshot mSnapshot;
 
+    private final FrameMetrics mFrameMetrics = new FrameMetrics();
+    private DebugOverlay mDebugOverlay;
+    private volatile boolean mDebugOverlayEnabled;
 
     public ClockPannelView(Context context) {
         super(context);
-        init();
+        init(null, 0);
     }
 
     public ClockPannelView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        init();
+        init(attrs, 0);
     }
 
     public ClockPannelView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
+        init(attrs, defStyleAttr);
     }
 
-    private void init() {
+    private void init(AttributeSet attrs, int defStyleAttr) {
         mDefaultWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 200, getResources().getDisplayMetrics());
 
         SurfaceHolder mSurfaceHolder = getHolder();
@@ -108,98 +80,132 @@ public class ClockPannelView extends SurfaceView implements SurfaceHolder.Callba
         setZOrderOnTop(true);
         mSurfaceHolder.setFormat(PixelFormat.TRANSLUCENT);
 
-        mPaintCircle = new Paint();
-        mPaintCircle.setStyle(Paint.Style.STROKE);
-        mPaintCircle.setAntiAlias(true);
-
-        mPaintDegree = new Paint();
-        mPaintDegree.setAntiAlias(true);
-
-        mPaintDegreeNumber = new Paint();
-        mPaintDegreeNumber.setTextAlign(Paint.Align.CENTER);
-        mPaintDegreeNumber.setFakeBoldText(true);
-
-        mPaintPoint = new Paint();
-        mPaintPoint.setColor(Color.BLACK);
-        mPaintPoint.setAntiAlias(true);
-
-        mTimerTask = new DrawTimerTask(this);
-        mScheduledService = new ScheduledThreadPoolExecutor(1);
-
-        mDegreeTextRect = new Rect();
-        mTypeSatisfy = Typeface.createFromAsset(getContext().getAssets(), "Satisfy-Regular.ttf");
-        mTypeHelvetica = Typeface.createFromAsset(getContext().getAssets(), "HelveticaNeueLt.ttf");
-
+        mRenderScheduler = RenderScheduler.getInstance(getContext());
+        mFrameCallback = new DrawFrameCallback(this);
+        mRenderRegistration = new RenderRegistration(mRenderScheduler, mFrameCallback);
+        mTimeSource = TimeSources.getSystem(getContext());
+        mDebugOverlay = new DebugOverlay(getResources().getDisplayMetrics().density);
+        mClockRenderer = new ClockRenderer(getContext());
+        mSnapshot = ClockSnapshot.of(ClockStyle.fromAttributes(getContext(), attrs, defStyleAttr));
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
         Log.e(TAG, "on surfaceCreate");
-        mScheduledService.scheduleAtFixedRate(mTimerTask, 0, FRESH_TIME, TimeUnit.MILLISECONDS);
-        setSize();
     }
 
+    /**
+     * 每次创建 Surface 后至少回调一次，拿到尺寸后才开始绘制
+     */
     @Override
     public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
         Log.e(TAG, "on surfaceChanged");
+        mSnapshot = mSnapshot.withSize(width, height);
+        mRenderRegistration.setSurfaceReady(true);
+        mRenderScheduler.requestFrame();
     }
 
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
         Log.e(TAG, "on surfaceDestroyed");
-        mScheduledService.shutdown();
+        mRenderRegistration.setSurfaceReady(false);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mRenderRegistration.setWindowVisible(visibility == VISIBLE);
     }
 
     /**
-     * 测量长度
+     * 在页面的 onStart / onStop 中调用，暂停期间不绘制；恢复后立即绘制一帧
      */
-    private void setSize() {
-        int sizeLength = Math.min(getHeight() / 2, getWidth() / 2);
-        mBordWith = sizeLength * 0.03f;
-        mRadius = (Math.min(getHeight() / 2, getWidth() / 2) - mBordWith / 2);
+    public void setPaused(boolean paused) {
+        mRenderRegistration.setPaused(paused);
+    }
 
-        Log.e(TAG, "mRadius :" + mRadius);
+    /**
+     * 替换时间来源，测试或演示时可传入 {@link com.deanxd.elegantclock.core.SimulatedTimeSource}
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        mTimeSource = timeSource;
+    }
+
+    /**
+     * 切换外观，在主线程调用，下一帧生效
+     */
+    public void setClockStyle(ClockStyle style) {
+        mSnapshot = mSnapshot.withStyle(style);
+    }
 
-        mLongDegreeLength = mRadius * 0.10f;
-        mShortDegreeLength = mRadius * 0.08f;
+    public ClockStyle getClockStyle() {
+        return mSnapshot.style;
+    }
 
-        mPointBackLength = mRadius * 0.10f;
+    /**
+     * 本 View 的帧耗时统计
+     */
+    public FrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
 
-        mSecondPointerLength = mRadius * 0.8f;
-        mMinutePointerLength = mRadius * 0.6f;
-        mHourPointerLength = mRadius * 0.5f;
+    /**
+     * 在左上角显示帧耗时调试信息
+     */
+    public void setDebugOverlayEnabled(boolean enabled) {
+        mDebugOverlayEnabled = enabled;
+    }
 
-        mDegreeNumSize = (int) (mRadius * 0.18f);
+    private void recordFrame(long presentationNanos, long startNanos, long endNanos, long startCpuNanos) {
+        long frameIntervalNanos = mRenderScheduler.getFrameIntervalNanos();
+        mFrameMetrics.recordFrame(presentationNanos - frameIntervalNanos, startNanos, endNanos, frameIntervalNanos);
+        //不支持线程 CPU 时间的设备返回 -1
+        if (startCpuNanos >= 0) {
+            mFrameMetrics.recordCpuTime(Debug.threadCpuTimeNanos() - startCpuNanos);
+        }
     }
 
 
-    private static class DrawTimerTask implements Runnable {
+    private static class DrawFrameCallback implements RenderScheduler.Callback {
         private WeakReference<ClockPannelView> mViewRef;
 
-        DrawTimerTask(ClockPannelView view) {
+        DrawFrameCallback(ClockPannelView view) {
             mViewRef = new WeakReference<>(view);
         }
 
         @Override
-        public void run() {
+        public void onFrame(long presentationNanos, FrameRateGovernor.Decision decision) {
             ClockPannelView clockPannelView = mViewRef.get();
             if (clockPannelView == null) {
                 return;
             }
+            //没有尺寸前不绘制
+            ClockSnapshot snapshot = clockPannelView.mSnapshot;
+            ClockGeometry geometry = snapshot.geometry;
+            if (geometry.isEmpty()) {
+                return;
+            }
+            long startNanos = System.nanoTime();
+            long startCpuNanos = Debug.threadCpuTimeNanos();
+            TraceCompat.beginSection(TRACE_FRAME);
             Canvas canvas = null;
             try {
-                long currentTimeMillis = System.currentTimeMillis();
                 canvas = clockPannelView.getHolder().lockCanvas(null);
+                if (canvas == null) {
+                    return;
+                }
                 canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-                clockPannelView.drawPanel(canvas);
-                clockPannelView.drawPoint(canvas);
-
-
-                Log.e(TAG, "cost -->" + (System.currentTimeMillis() - currentTimeMillis));
-
+                clockPannelView.drawClock(canvas, snapshot, presentationNanos, decision);
+                if (clockPannelView.mDebugOverlayEnabled) {
+                    clockPannelView.mDebugOverlay.draw(canvas, geometry.width, clockPannelView.mFrameMetrics, startNanos);
+                }
             } finally {
-                clockPannelView.getHolder().unlockCanvasAndPost(canvas);
+                if (canvas != null) {
+                    clockPannelView.getHolder().unlockCanvasAndPost(canvas);
+                }
+                TraceCompat.endSection();
             }
+            clockPannelView.recordFrame(presentationNanos, startNanos, System.nanoTime(), startCpuNanos);
         }
     }
 
@@ -230,120 +236,20 @@ public class ClockPannelView extends SurfaceView implements SurfaceHolder.Callba
     }
 
     /**
-     * 绘制表盘
-     */
-    private void drawPanel(Canvas canvas) {
-        //画外圆
-        mPaintCircle.setColor(Color.BLACK);
-        mPaintCircle.setStrokeWidth(mBordWith);
-        mPaintCircle.setStyle(Paint.Style.STROKE);
-        canvas.drawCircle(getWidth() / 2, getHeight() / 2, mRadius, mPaintCircle);
-
-        mPaintCircle.setStyle(Paint.Style.FILL);
-        mPaintCircle.setColor(Color.parseColor("#B2FA9C"));
-        canvas.drawCircle(getWidth() / 2, getHeight() / 2, mRadius, mPaintCircle);
-
-        //画刻度线
-        float degreeLength;
-        for (int i = 0; i < 60; i++) {
-            if (i % 5 == 0) {
-                mPaintDegree.setStrokeWidth(getStrokeWidth(6));
-                degreeLength = mLongDegreeLength;
-            } else {
-                mPaintDegree.setStrokeWidth(getStrokeWidth(3));
-                degreeLength = mShortDegreeLength;
-            }
-            canvas.drawLine(getWidth() / 2, Math.abs(getHeight() / 2 - mRadius),
-                    getWidth() / 2, Math.abs(getHeight() / 2 - mRadius) + degreeLength, mPaintDegree);
-            canvas.rotate(360 / 60, getWidth() / 2, getHeight() / 2);
-        }
-
-        mPaintDegreeNumber.setTextSize(mDegreeNumSize);
-        mPaintDegreeNumber.setTypeface(mTypeHelvetica);
-        //刻度数字
-
-        canvas.translate(getWidth() / 2, getHeight() / 2);
-
-        for (int i = 0; i < 12; i++) {
-            float[] temp = calculatePoint((i + 1) * 30, mSecondPointerLength * 0.98f);
-            String text = String.valueOf(i + 1);
-            mPaintDegreeNumber.getTextBounds(text, 0, text.length(), mDegreeTextRect);
-
-            canvas.drawText(text, temp[2], temp[3] + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2, mPaintDegreeNumber);
-        }
-
-        mPaintDegreeNumber.setTypeface(mTypeSatisfy);
-        String tips = "Designed by Dean";
-        mPaintDegreeNumber.setTextSize(mDegreeNumSize / 2);
-        mPaintDegreeNumber.getTextBounds(tips, 0, tips.length(), mDegreeTextRect);
-        canvas.drawText(tips, 0, getHeight() / 4 + Math.abs(mDegreeTextRect.bottom - mDegreeTextRect.top) / 2, mPaintDegreeNumber);
-    }
-
-
-    /**
-     * 画指针
+     * 绘制表盘和指针，表盘只在尺寸变化或缓存被释放后重新绘制一次，其余帧直接贴图
+     *
+     * @param presentationNanos 这一帧预计显示的时间，{@link System#nanoTime()} 时基
+     * @param decision          本帧的刷新决策
      */
-    private void drawPoint(Canvas canvas) {
-        Calendar now = Calendar.getInstance();
-        int hour = now.get(Calendar.HOUR);
-        int minute = now.get(Calendar.MINUTE);
-        int second = now.get(Calendar.SECOND);
-        int millisecond = now.get(Calendar.MILLISECOND);
-
-        int secondMill = second * 1000 + millisecond;
-        int minuteMill = minute * 60 * 1000 + secondMill;
-        int hourMill = hour * 60 * 60 * 1000 + minuteMill;
-
-        float[] secondPoints = calculatePoint(secondMill / (60 * 1000f) * 360, mSecondPointerLength);
-        float[] minutePoints = calculatePoint(minuteMill / (60 * 60 * 1000f) * 360, mMinutePointerLength);
-
-        float[] hourPoints = calculatePoint(hourMill / (12 * 60 * 60 * 1000f) * 360, mHourPointerLength);
-
-        mPaintPoint.setStrokeWidth(getStrokeWidth(13));
-        canvas.drawLine(hourPoints[0], hourPoints[1], hourPoints[2], hourPoints[3], mPaintPoint);
-        mPaintPoint.setStrokeWidth(getStrokeWidth(10));
-        canvas.drawLine(minutePoints[0], minutePoints[1], minutePoints[2], minutePoints[3], mPaintPoint);
-        mPaintPoint.setStrokeWidth(getStrokeWidth(5));
-        canvas.drawLine(secondPoints[0], secondPoints[1], secondPoints[2], secondPoints[3], mPaintPoint);
-
-        //画圆心
-        mPaintCircle.setColor(Color.WHITE);
-        canvas.drawCircle(0, 0, getStrokeWidth(4), mPaintCircle);
-    }
-
-
-    private int getStrokeWidth(int width) {
-        float factor = mRadius * 0.005f;
-        return (int) (factor * width);
-    }
-
-    /**
-     * 根据角度和长度计算线段的起点和终点的坐标
-     */
-    private float[] calculatePoint(float angle, float length) {
-        float[] points = new float[4];
-        if (angle <= 90f) {
-            points[0] = -(float) Math.sin(angle * Math.PI / 180) * mPointBackLength;
-            points[1] = (float) Math.cos(angle * Math.PI / 180) * mPointBackLength;
-            points[2] = (float) Math.sin(angle * Math.PI / 180) * length;
-            points[3] = -(float) Math.cos(angle * Math.PI / 180) * length;
-        } else if (angle <= 180f) {
-            points[0] = -(float) Math.cos((angle - 90) * Math.PI / 180) * mPointBackLength;
-            points[1] = -(float) Math.sin((angle - 90) * Math.PI / 180) * mPointBackLength;
-            points[2] = (float) Math.cos((angle - 90) * Math.PI / 180) * length;
-            points[3] = (float) Math.sin((angle - 90) * Math.PI / 180) * length;
-        } else if (angle <= 270f) {
-            points[0] = (float) Math.sin((angle - 180) * Math.PI / 180) * mPointBackLength;
-            points[1] = -(float) Math.cos((angle - 180) * Math.PI / 180) * mPointBackLength;
-            points[2] = -(float) Math.sin((angle - 180) * Math.PI / 180) * length;
-            points[3] = (float) Math.cos((angle - 180) * Math.PI / 180) * length;
-        } else if (angle <= 360f) {
-            points[0] = (float) Math.cos((angle - 270) * Math.PI / 180) * mPointBackLength;
-            points[1] = (float) Math.sin((angle - 270) * Math.PI / 180) * mPointBackLength;
-            points[2] = -(float) Math.cos((angle - 270) * Math.PI / 180) * length;
-            points[3] = -(float) Math.sin((angle - 270) * Math.PI / 180) * length;
-        }
-        return points;
+    private void drawClock(Canvas canvas, ClockSnapshot snapshot, long presentationNanos,
+                           FrameRateGovernor.Decision decision) {
+        //presentationNanos 是 System.nanoTime() 时基，换算成时间来源自己的时基
+        TimeSource timeSource = mTimeSource;
+        long nanoTime = timeSource.nanoTime() + (presentationNanos - System.nanoTime());
+        mClockRenderer.setStyle(snapshot.style);
+        mClockRenderer.setGeometry(snapshot.geometry);
+        mClockRenderer.getHandsRenderer().setSecondHandVisible(decision.secondHandVisible);
+        mClockRenderer.draw(canvas, decision.quantize(timeSource.localMillisAt(nanoTime)));
     }
 
 }
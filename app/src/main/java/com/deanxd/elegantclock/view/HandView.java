@@ -0,0 +1,54 @@
+package com.deanxd.elegantclock.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.view.View;
+
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.HandsRenderer;
+
+/**
+ * 硬件加速模式下的单根指针
+ * <p>
+ * 只画一根指向 12 点的指针，显示列表录制一次后不再变化，走动靠 {@link #setRotation} 修改渲染属性，
+ * 不触发重新录制。秒针层顺带画圆心，圆心在旋转中心上，旋转不影响它。
+ *
+ * @author Dean
+ */
+
+class HandView extends View {
+
+    private final int mHand;
+    private final HandsRenderer mHandsRenderer = new HandsRenderer();
+
+    /**
+     * @param hand {@link HandsRenderer#HOUR}、{@link HandsRenderer#MINUTE} 或 {@link HandsRenderer#SECOND}
+     */
+    HandView(Context context, int hand) {
+        super(context);
+        mHand = hand;
+    }
+
+    void setClockStyle(ClockStyle style) {
+        if (mHandsRenderer.setStyle(style)) {
+            invalidate();
+        }
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        mHandsRenderer.setSize(w, h);
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        int saveCount = canvas.save();
+        canvas.translate(getWidth() / 2, getHeight() / 2);
+        mHandsRenderer.drawUpright(canvas, mHand);
+        if (mHand == HandsRenderer.SECOND) {
+            mHandsRenderer.drawCenter(canvas);
+        }
+        canvas.restoreToCount(saveCount);
+    }
+}
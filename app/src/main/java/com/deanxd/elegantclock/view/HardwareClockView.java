@@ -0,0 +1,336 @@
+package com.deanxd.elegantclock.view;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.os.Debug;
+import android.os.Handler;
+import android.os.Looper;
+import android.support.v4.os.TraceCompat;
+import android.util.AttributeSet;
+import android.widget.FrameLayout;
+
+import com.deanxd.elegantclock.core.FrameMetrics;
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.core.TimeSource;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DebugOverlay;
+import com.deanxd.elegantclock.render.FrameLoop;
+import com.deanxd.elegantclock.render.HandsRenderer;
+import com.deanxd.elegantclock.render.RenderScheduler;
+import com.deanxd.elegantclock.util.TimeSources;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * 硬件加速的时钟
+ * <p>
+ * 与 {@link ClockDialView} + {@link PointerView} 的软件绘制方式相对：表盘和三根指针都是普通 View，
+ * 各自的显示列表只在尺寸变化时录制一次；每帧在主线程上只修改指针 View 的旋转角度，
+ * 由 RenderThread 合成，不锁 Surface 也不重新光栅化。
+ * <p>
+ * 刷新频率与软件绘制共用 {@link RenderScheduler#getFrameRateGovernor()} 的决策：按整秒、整分钟绘制时睡到周期边界，
+ * 轻度发热时隔帧绘制，按决策对时间取整、隐藏秒针，灭屏时不请求帧；运行期间同样接收亮灭屏、省电和发热广播。
+ * <p>
+ * 每帧 CPU 时间与软件绘制测的是同一种量：生成这一帧的线程的线程 CPU 时间。这里是主线程从更新角度到
+ * 遍历、录制和同步显示列表结束；RenderThread 发出绘制命令的时间不计入，正如软件绘制不计入 SurfaceFlinger 合成。
+ *
+ * @author Dean
+ */
+
+public class HardwareClockView extends FrameLayout {
+
+    private final static String TRACE_FRAME = "HardwareClockView#onFrame";
+
+    private static final long NANOS_PER_SECOND = 1000000000L;
+
+    private ClockDialView mDialView;
+    private HandView mHourView;
+    private HandView mMinuteView;
+    private HandView mSecondView;
+    private FrameLoop mFrameLoop;
+    private long mFrameIntervalNanos;
+    private boolean mAttached;
+    private boolean mRunning;
+    private boolean mPaused;
+    /**
+     * 已经请求了下一帧，或正睡到下一个周期边界
+     */
+    private boolean mScheduled;
+    private int mVsyncCount;
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mWakeUp = new Runnable() {
+        @Override
+        public void run() {
+            if (mRunning) {
+                mFrameLoop.scheduleNext();
+            } else {
+                mScheduled = false;
+            }
+        }
+    };
+    /**
+     * 决策变化后立即按新的频率重新调度，不等当前的周期睡完
+     */
+    private final Runnable mReschedule = new Runnable() {
+        @Override
+        public void run() {
+            reschedule();
+        }
+    };
+    private final FrameRateGovernor.Listener mDecisionListener = new FrameRateGovernor.Listener() {
+        @Override
+        public void onDecisionChanged(FrameRateGovernor.Decision decision) {
+            //在改变输入的线程上回调，切回主线程
+            mHandler.post(mReschedule);
+        }
+    };
+    private RenderScheduler mRenderScheduler;
+    private FrameRateGovernor mFrameRateGovernor;
+    private final Runnable mFrameEnd = new Runnable() {
+        @Override
+        public void run() {
+            onFrameEnd();
+        }
+    };
+    private long mFrameStartCpuNanos = -1;
+
+    private volatile TimeSource mTimeSource;
+    private final HandAngles mHandAngles = new HandAngles();
+
+    private final FrameMetrics mFrameMetrics = new FrameMetrics();
+    private DebugOverlay mDebugOverlay;
+    private boolean mDebugOverlayEnabled;
+
+    public HardwareClockView(Context context) {
+        super(context);
+        init(null, 0);
+    }
+
+    public HardwareClockView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+        init(attrs, 0);
+    }
+
+    public HardwareClockView(Context context, AttributeSet attrs, int defStyleAttr) {
+        super(context, attrs, defStyleAttr);
+        init(attrs, defStyleAttr);
+    }
+
+    private void init(AttributeSet attrs, int defStyleAttr) {
+        Context context = getContext();
+        mDialView = new ClockDialView(context);
+        addView(mDialView, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        mHourView = addHandView(HandsRenderer.HOUR);
+        mMinuteView = addHandView(HandsRenderer.MINUTE);
+        mSecondView = addHandView(HandsRenderer.SECOND);
+        setClockStyle(ClockStyle.fromAttributes(context, attrs, defStyleAttr));
+
+        mFrameIntervalNanos = (long) (NANOS_PER_SECOND / RenderScheduler.getRefreshRate(context));
+        mFrameLoop = FrameLoop.create(mHandler, mFrameIntervalNanos, new FrameCallback(this));
+        mRenderScheduler = RenderScheduler.getInstance(context);
+        mFrameRateGovernor = mRenderScheduler.getFrameRateGovernor();
+        mTimeSource = TimeSources.getSystem(context);
+        mDebugOverlay = new DebugOverlay(getResources().getDisplayMetrics().density);
+    }
+
+    private HandView addHandView(int hand) {
+        HandView handView = new HandView(getContext(), hand);
+        addView(handView, new LayoutParams(LayoutParams.MATCH_PARENT, LayoutParams.MATCH_PARENT));
+        return handView;
+    }
+
+    /**
+     * 替换时间来源，测试或演示时可传入 {@link com.deanxd.elegantclock.core.SimulatedTimeSource}
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        mTimeSource = timeSource;
+    }
+
+    /**
+     * 切换外观，在主线程调用；表盘和指针各重新录制一次显示列表
+     */
+    public void setClockStyle(ClockStyle style) {
+        mDialView.setClockStyle(style);
+        mHourView.setClockStyle(style);
+        mMinuteView.setClockStyle(style);
+        mSecondView.setClockStyle(style);
+    }
+
+    public ClockStyle getClockStyle() {
+        return mDialView.getClockStyle();
+    }
+
+    /**
+     * 本 View 的帧耗时统计，CPU 时间是主线程上更新角度和遍历绘制的线程 CPU 时间
+     */
+    public FrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
+
+    /**
+     * 在左上角显示帧耗时调试信息，开启后每帧都要重新录制本 View 的显示列表
+     */
+    public void setDebugOverlayEnabled(boolean enabled) {
+        mDebugOverlayEnabled = enabled;
+        invalidate();
+    }
+
+    /**
+     * 在页面的 onStart / onStop 中调用，暂停期间不请求 vsync；恢复后下一次 vsync 就绘制
+     */
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+        updateRunning();
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        mAttached = true;
+        updateRunning();
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        mAttached = false;
+        mHandler.removeCallbacks(mFrameEnd);
+        mFrameStartCpuNanos = -1;
+        updateRunning();
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        updateRunning();
+    }
+
+    private void updateRunning() {
+        boolean running = mAttached && !mPaused && getWindowVisibility() == VISIBLE;
+        if (running == mRunning) {
+            return;
+        }
+        mRunning = running;
+        if (running) {
+            mRenderScheduler.acquireFrameRateInputs();
+            mFrameRateGovernor.addListener(mDecisionListener);
+            reschedule();
+        } else {
+            mFrameRateGovernor.removeListener(mDecisionListener);
+            mRenderScheduler.releaseFrameRateInputs();
+            mHandler.removeCallbacks(mReschedule);
+            mHandler.removeCallbacks(mWakeUp);
+            mFrameLoop.cancel();
+            mScheduled = false;
+        }
+    }
+
+    /**
+     * 丢掉正在等待的周期边界，下一次 vsync 立即绘制
+     */
+    private void reschedule() {
+        mHandler.removeCallbacks(mWakeUp);
+        mScheduled = false;
+        if (mRunning && !mFrameRateGovernor.getDecision().paused) {
+            mScheduled = true;
+            mFrameLoop.scheduleNext();
+        }
+    }
+
+    /**
+     * 按决策请求下一帧：按周期绘制时先睡到下一个整周期（墙上时间），暂停时等决策变化再调度
+     */
+    private void scheduleFrame(FrameRateGovernor.Decision decision) {
+        if (!mRunning || mScheduled || decision.paused) {
+            return;
+        }
+        mScheduled = true;
+        if (decision.periodMillis > 0) {
+            long period = decision.periodMillis;
+            mHandler.postDelayed(mWakeUp, period - System.currentTimeMillis() % period);
+        } else {
+            mFrameLoop.scheduleNext();
+        }
+    }
+
+    @Override
+    protected void dispatchDraw(Canvas canvas) {
+        super.dispatchDraw(canvas);
+        if (mDebugOverlayEnabled) {
+            mDebugOverlay.draw(canvas, getWidth(), mFrameMetrics, System.nanoTime());
+        }
+    }
+
+    /**
+     * @param frameTimeNanos 这次 vsync 的时间，画面会在下一次 vsync 时显示
+     */
+    private void onFrame(long frameTimeNanos) {
+        mScheduled = false;
+        if (!mRunning) {
+            return;
+        }
+        FrameRateGovernor.Decision decision = mFrameRateGovernor.getDecision();
+        if (decision.paused) {
+            return;
+        }
+        if (decision.vsyncDivisor > 1 && ++mVsyncCount % decision.vsyncDivisor != 0) {
+            mScheduled = true;
+            mFrameLoop.scheduleNext();
+            return;
+        }
+        long startNanos = System.nanoTime();
+        if (mFrameStartCpuNanos < 0) {
+            //遍历绘制在同一个 vsync 消息里紧接着执行，插到队首的消息在它之后第一个运行（API 16 起）
+            mFrameStartCpuNanos = Debug.threadCpuTimeNanos();
+            mHandler.postAtFrontOfQueue(mFrameEnd);
+        }
+        TraceCompat.beginSection(TRACE_FRAME);
+        try {
+            //presentationNanos 是 System.nanoTime() 时基，换算成时间来源自己的时基
+            long presentationNanos = frameTimeNanos + mFrameIntervalNanos;
+            TimeSource timeSource = mTimeSource;
+            long nanoTime = timeSource.nanoTime() + (presentationNanos - startNanos);
+            HandAngles angles = mHandAngles;
+            angles.set(decision.quantize(timeSource.localMillisAt(nanoTime)));
+
+            //只改渲染属性，指针的显示列表不会重新录制
+            mHourView.setRotation(angles.hour);
+            mMinuteView.setRotation(angles.minute);
+            mSecondView.setRotation(angles.second);
+            mSecondView.setVisibility(decision.secondHandVisible ? VISIBLE : INVISIBLE);
+            if (mDebugOverlayEnabled) {
+                invalidate();
+            }
+        } finally {
+            TraceCompat.endSection();
+        }
+        mFrameMetrics.recordFrame(frameTimeNanos, startNanos, System.nanoTime(), mFrameIntervalNanos);
+        scheduleFrame(decision);
+    }
+
+    private void onFrameEnd() {
+        long startCpuNanos = mFrameStartCpuNanos;
+        mFrameStartCpuNanos = -1;
+        //不支持线程 CPU 时间的设备返回 -1
+        if (startCpuNanos >= 0) {
+            mFrameMetrics.recordCpuTime(Debug.threadCpuTimeNanos() - startCpuNanos);
+        }
+    }
+
+    private static class FrameCallback implements FrameLoop.Callback {
+        private WeakReference<HardwareClockView> mViewRef;
+
+        FrameCallback(HardwareClockView view) {
+            mViewRef = new WeakReference<>(view);
+        }
+
+        @Override
+        public void onFrame(long frameTimeNanos) {
+            HardwareClockView view = mViewRef.get();
+            if (view != null) {
+                view.onFrame(frameTimeNanos);
+            }
+        }
+    }
+}
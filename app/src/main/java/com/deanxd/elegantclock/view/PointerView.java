@@ -3,22 +3,33 @@ package com.deanxd.elegantclock.view;
 import android.content.Context;
 import android.graphics.Canvas;
 import android.graphics.Color;
-import android.graphics.Paint;
 import android.graphics.PixelFormat;
 import android.graphics.PorterDuff;
+import android.graphics.Rect;
+import android.os.Debug;
+import android.support.v4.os.TraceCompat;
 import android.util.AttributeSet;
 import android.util.Log;
 import android.util.TypedValue;
 import android.view.SurfaceHolder;
 import android.view.SurfaceView;
 
-import com.deanxd.elegantclock.util.CommonUtils;
+import com.deanxd.elegantclock.core.BurnInShift;
+import com.deanxd.elegantclock.core.Chronograph;
+import com.deanxd.elegantclock.core.ClockGeometry;
+import com.deanxd.elegantclock.core.FrameMetrics;
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+import com.deanxd.elegantclock.core.TimeSource;
+import com.deanxd.elegantclock.render.ChronographRenderer;
+import com.deanxd.elegantclock.render.ClockSnapshot;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DebugOverlay;
+import com.deanxd.elegantclock.render.HandsRenderer;
+import com.deanxd.elegantclock.render.RenderRegistration;
+import com.deanxd.elegantclock.render.RenderScheduler;
+import com.deanxd.elegantclock.util.TimeSources;
 
 import java.lang.ref.WeakReference;
-import java.util.Calendar;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
-import java.util.concurrent.TimeUnit;
 
 /**
  * 表盘指针
@@ -30,130 +41,322 @@ public class PointerView extends SurfaceView implements SurfaceHolder.Callback {
 
     private final static String TAG = "clockPannelView";
 
-    private final static long FRESH_TIME = 1000 / 60;
+    private final static String TRACE_FRAME = "PointerView#onFrame";
 
     /**
      * View默认最小宽度
      */
     private float mDefaultWidth;
 
+    private RenderScheduler mRenderScheduler;
+    private DrawFrameCallback mFrameCallback;
+    private RenderRegistration mRenderRegistration;
+    private volatile TimeSource mTimeSource;
     /**
-     * 秒针长度
+     * 外观和几何参数，只在 UI 线程整体替换（surfaceChanged、setClockStyle），渲染线程每帧读一次
      */
-    private float mSecondPointerLength;
+    private volatile ClockSnapshot mSnapshot;
+    private final HandsRenderer mHandsRenderer = new HandsRenderer();
+
+    /**
+     * 常亮模式：轮廓外观、只有时针分针、每分钟绘制一次并平移几个像素防烧屏
+     */
+    private volatile boolean mAmbient;
+    private int mBurnInShift;
+    /**
+     * 本帧圆心位置，常亮模式下带有防烧屏偏移
+     */
+    private int mCenterX;
+    private int mCenterY;
+
+    /**
+     * 秒表模式：中央秒针显示计时秒数，另加 30 分钟和 1/10 秒小表盘；计时用 {@link System#nanoTime()}，与时间来源无关
+     */
+    private volatile Chronograph mChronograph = new Chronograph();
+    private final ChronographRenderer mChronographRenderer = new ChronographRenderer();
+    private volatile boolean mChronographMode;
+    /**
+     * 本帧是否绘制小表盘，渲染线程使用
+     */
+    private boolean mChronographVisible;
+
     /**
-     * 分针长度
+     * 是否只重绘指针扫过的区域
      */
-    private float mMinutePointerLength;
+    private volatile boolean mDirtyRegionEnabled = true;
     /**
-     * 时针长度
+     * 本帧指针（含圆心）占据的区域，View 坐标
      */
-    private float mHourPointerLength;
+    private final Rect mHandBounds = new Rect();
     /**
-     * 指针反向超过圆点的长度
+     * 上一帧指针占据的区域，为空时需要整屏重绘
      */
-    private float mPointBackLength;
-    private Paint mPaintCircle;
-    private float mRadius;
-    private Paint mPointerPaint;
-    private DrawTimerTask mTimerTask;
-    private ScheduledExecutorService mScheduledService;
+    private final Rect mLastHandBounds = new Rect();
+    private final Rect mDirtyRect = new Rect();
+    private volatile float mLastDirtyFraction;
+    private volatile float mAverageDirtyFraction;
+    private long mDirtyFrameCount;
+    private double mDirtyFractionSum;
+
+    private final FrameMetrics mFrameMetrics = new FrameMetrics();
+    private DebugOverlay mDebugOverlay;
+    private volatile boolean mDebugOverlayEnabled;
 
     public PointerView(Context context) {
         super(context);
-        init();
+        init(null, 0);
     }
 
     public PointerView(Context context, AttributeSet attrs) {
         super(context, attrs);
-        init();
+        init(attrs, 0);
     }
 
     public PointerView(Context context, AttributeSet attrs, int defStyleAttr) {
         super(context, attrs, defStyleAttr);
-        init();
+        init(attrs, defStyleAttr);
     }
 
-    private void init() {
+    private void init(AttributeSet attrs, int defStyleAttr) {
         mDefaultWidth = TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_DIP, 200, getResources().getDisplayMetrics());
+        mBurnInShift = ClockDialView.getBurnInShift(getResources().getDisplayMetrics());
 
         SurfaceHolder mSurfaceHolder = getHolder();
         mSurfaceHolder.addCallback(this);
         setZOrderOnTop(true);
         mSurfaceHolder.setFormat(PixelFormat.TRANSLUCENT);
 
-        mPaintCircle = new Paint();
-        mPaintCircle.setStyle(Paint.Style.STROKE);
-        mPaintCircle.setAntiAlias(true);
-
-        mPointerPaint = new Paint();
-        mPointerPaint.setColor(Color.BLACK);
-        mPointerPaint.setAntiAlias(true);
-
-        mTimerTask = new DrawTimerTask(this);
-
-        mScheduledService = new ScheduledThreadPoolExecutor(1);
+        mRenderScheduler = RenderScheduler.getInstance(getContext());
+        mFrameCallback = new DrawFrameCallback(this);
+        mRenderRegistration = new RenderRegistration(mRenderScheduler, mFrameCallback);
+        mTimeSource = TimeSources.getSystem(getContext());
+        mDebugOverlay = new DebugOverlay(getResources().getDisplayMetrics().density);
+        mSnapshot = ClockSnapshot.of(ClockStyle.fromAttributes(getContext(), attrs, defStyleAttr));
     }
 
     @Override
     public void surfaceCreated(SurfaceHolder holder) {
         Log.e(TAG, "on surfaceCreate");
-        mScheduledService.scheduleAtFixedRate(mTimerTask, 0, FRESH_TIME, TimeUnit.MILLISECONDS);
-        setSize();
     }
 
+    /**
+     * 每次创建 Surface 后至少回调一次，拿到尺寸后才开始绘制
+     */
     @Override
     public void surfaceChanged(SurfaceHolder holder, int format, int width, int height) {
         Log.e(TAG, "on surfaceChanged");
+        mSnapshot = mSnapshot.withSize(width, height);
+        mRenderRegistration.setSurfaceReady(true);
+        mRenderScheduler.requestFrame();
     }
 
     @Override
     public void surfaceDestroyed(SurfaceHolder holder) {
         Log.e(TAG, "on surfaceDestroyed");
-        mScheduledService.shutdown();
+        mRenderRegistration.setSurfaceReady(false);
+    }
+
+    @Override
+    protected void onWindowVisibilityChanged(int visibility) {
+        super.onWindowVisibilityChanged(visibility);
+        mRenderRegistration.setWindowVisible(visibility == VISIBLE);
+    }
+
+    /**
+     * 在页面的 onStart / onStop 中调用，暂停期间不绘制；恢复后立即绘制一帧
+     */
+    public void setPaused(boolean paused) {
+        mRenderRegistration.setPaused(paused);
+    }
+
+    /**
+     * 替换时间来源，测试或演示时可传入 {@link com.deanxd.elegantclock.core.SimulatedTimeSource}
+     */
+    public void setTimeSource(TimeSource timeSource) {
+        mTimeSource = timeSource;
+    }
+
+    /**
+     * 切换外观，在主线程调用，下一帧生效
+     */
+    public void setClockStyle(ClockStyle style) {
+        mSnapshot = mSnapshot.withStyle(style);
+    }
+
+    public ClockStyle getClockStyle() {
+        return mSnapshot.style;
+    }
+
+    /**
+     * 进出常亮模式，在主线程调用，下一帧生效；与 {@link ClockDialView#setAmbientMode} 配合使用。
+     * 进出时只切换外观引用和本 View 的调度频率，不影响其他时钟，不重新创建绘制器，也不重新加载字体
+     */
+    public void setAmbientMode(boolean ambient) {
+        mAmbient = ambient;
+        mRenderRegistration.setAmbient(ambient);
+    }
+
+    public boolean isAmbientMode() {
+        return mAmbient;
+    }
+
+    /**
+     * 进出秒表模式，只在主线程调用；退出后秒表继续在后台计时
+     */
+    public void setChronographMode(boolean enabled) {
+        mChronographMode = enabled;
+        onChronographChanged();
+    }
+
+    public boolean isChronographMode() {
+        return mChronographMode;
+    }
+
+    /**
+     * 读取计圈记录，只在主线程使用；控制秒表请调用本类的方法，以便同步调整刷新频率
+     */
+    public Chronograph getChronograph() {
+        return mChronograph;
+    }
+
+    /**
+     * 换成页面重建前保留下来的秒表，只在主线程调用
+     */
+    public void setChronograph(Chronograph chronograph) {
+        mChronograph = chronograph;
+        onChronographChanged();
+    }
+
+    public void startChronograph() {
+        mChronograph.start(System.nanoTime());
+        onChronographChanged();
+    }
+
+    public void stopChronograph() {
+        mChronograph.stop(System.nanoTime());
+        onChronographChanged();
+    }
+
+    /**
+     * @return 单圈时间（纳秒），未在计时时返回 -1
+     */
+    public long lapChronograph() {
+        return mChronograph.lap(System.nanoTime());
+    }
+
+    public void resetChronograph() {
+        mChronograph.reset();
+        onChronographChanged();
+    }
+
+    private void onChronographChanged() {
+        updateChronographRate();
+        //停止或复位后可能已降到每秒、每分钟绘制，立即画一帧显示最终读数
+        mRenderScheduler.requestFrame();
+    }
+
+    /**
+     * 秒表在屏幕上计时时本 View 按 vsync 绘制；注销期间不绘制，自然也不占用刷新频率
+     */
+    private void updateChronographRate() {
+        mRenderRegistration.setChronographRunning(mChronographMode && mChronograph.isRunning());
     }
 
     /**
-     * 测量长度
+     * 开启后每帧只锁定并重绘上一帧与本帧指针区域的并集，关闭则每帧整屏重绘
      */
-    private void setSize() {
-        int sizeLength = Math.min(getHeight() / 2, getWidth() / 2);
+    public void setDirtyRegionEnabled(boolean enabled) {
+        mDirtyRegionEnabled = enabled;
+    }
+
+    public boolean isDirtyRegionEnabled() {
+        return mDirtyRegionEnabled;
+    }
 
-        float mBordWith = sizeLength * 0.03f;
-        mRadius = (Math.min(getHeight() / 2, getWidth() / 2) - mBordWith / 2);
+    /**
+     * 上一帧重绘的像素占整个 Surface 的比例
+     */
+    public float getLastDirtyFraction() {
+        return mLastDirtyFraction;
+    }
 
-        mPointBackLength = mRadius * 0.10f;
-        mSecondPointerLength = mRadius * 0.8f;
-        mMinutePointerLength = mRadius * 0.6f;
-        mHourPointerLength = mRadius * 0.5f;
+    /**
+     * Surface 创建以来每帧重绘比例的平均值
+     */
+    public float getAverageDirtyFraction() {
+        return mAverageDirtyFraction;
     }
 
+    /**
+     * 本 View 的帧耗时统计
+     */
+    public FrameMetrics getFrameMetrics() {
+        return mFrameMetrics;
+    }
 
-    private static class DrawTimerTask implements Runnable {
+    /**
+     * 在左上角显示帧耗时调试信息
+     */
+    public void setDebugOverlayEnabled(boolean enabled) {
+        mDebugOverlayEnabled = enabled;
+    }
+
+    private void recordFrame(long presentationNanos, long startNanos, long endNanos, long startCpuNanos) {
+        long frameIntervalNanos = mRenderScheduler.getFrameIntervalNanos();
+        mFrameMetrics.recordFrame(presentationNanos - frameIntervalNanos, startNanos, endNanos, frameIntervalNanos);
+        //不支持线程 CPU 时间的设备返回 -1
+        if (startCpuNanos >= 0) {
+            mFrameMetrics.recordCpuTime(Debug.threadCpuTimeNanos() - startCpuNanos);
+        }
+    }
+
+
+    private static class DrawFrameCallback implements RenderScheduler.Callback {
         private WeakReference<PointerView> mViewRef;
 
-        DrawTimerTask(PointerView view) {
+        DrawFrameCallback(PointerView view) {
             mViewRef = new WeakReference<>(view);
         }
 
         @Override
-        public void run() {
+        public void onFrame(long presentationNanos, FrameRateGovernor.Decision decision) {
             PointerView pointerView = mViewRef.get();
             if (pointerView == null) {
                 return;
             }
+            long startNanos = System.nanoTime();
+            long startCpuNanos = Debug.threadCpuTimeNanos();
+            TraceCompat.beginSection(TRACE_FRAME);
             Canvas canvas = null;
             try {
-                long currentTimeMillis = System.currentTimeMillis();
-                canvas = pointerView.getHolder().lockCanvas(null);
-                canvas.translate(pointerView.getWidth() / 2, pointerView.getHeight() / 2);
+                if (!pointerView.updatePointer(presentationNanos, decision)) {
+                    return;
+                }
+                Rect dirty = pointerView.getDirtyRect();
+                canvas = pointerView.getHolder().lockCanvas(dirty);
+                if (canvas == null) {
+                    return;
+                }
+                //lockCanvas 已把 canvas 裁剪到 dirty 区域，清屏也只清这一块
                 canvas.drawColor(Color.TRANSPARENT, PorterDuff.Mode.CLEAR);
-                pointerView.drawPointer(canvas);
-
-                Log.e(TAG, "cost -->" + (System.currentTimeMillis() - currentTimeMillis));
+                int saveCount = canvas.save();
+                canvas.translate(pointerView.mCenterX, pointerView.mCenterY);
+                if (pointerView.mChronographVisible) {
+                    pointerView.mChronographRenderer.draw(canvas);
+                }
+                pointerView.mHandsRenderer.draw(canvas);
+                canvas.restoreToCount(saveCount);
+                if (pointerView.mDebugOverlayEnabled) {
+                    pointerView.mDebugOverlay.draw(canvas, pointerView.mHandsRenderer.getGeometry().width, pointerView.mFrameMetrics, startNanos);
+                }
+                pointerView.recordDirtyRect(dirty);
             } finally {
-                pointerView.getHolder().unlockCanvasAndPost(canvas);
+                if (canvas != null) {
+                    pointerView.getHolder().unlockCanvasAndPost(canvas);
+                }
+                TraceCompat.endSection();
             }
+            pointerView.recordFrame(presentationNanos, startNanos, System.nanoTime(), startCpuNanos);
         }
     }
 
@@ -184,40 +387,89 @@ public class PointerView extends SurfaceView implements SurfaceHolder.Callback {
     }
 
     /**
-     * 画指针
+     * 计算本帧指针坐标及其占据的区域
+     *
+     * @param presentationNanos 这一帧预计显示的时间，{@link System#nanoTime()} 时基
+     * @return 还没有尺寸时返回 false，本帧不绘制
      */
-    private void drawPointer(Canvas canvas) {
-        Calendar now = Calendar.getInstance();
-        int hour = now.get(Calendar.HOUR);
-        int minute = now.get(Calendar.MINUTE);
-        int second = now.get(Calendar.SECOND);
-        int millisecond = now.get(Calendar.MILLISECOND);
-
-        int secondMill = second * 1000 + millisecond;
-        int minuteMill = minute * 60 * 1000 + secondMill;
-        int hourMill = hour * 60 * 60 * 1000 + minuteMill;
-
-        float[] secondPoints = CommonUtils.calculatePoint(secondMill / (60 * 1000f) * 360, mSecondPointerLength, mPointBackLength);
-        float[] minutePoints = CommonUtils.calculatePoint(minuteMill / (60 * 60 * 1000f) * 360, mMinutePointerLength, mPointBackLength);
-        float[] hourPoints = CommonUtils.calculatePoint(hourMill / (12 * 60 * 60 * 1000f) * 360, mHourPointerLength, mPointBackLength);
-
-        mPointerPaint.setStrokeWidth(getStrokeWidth(13));
-        canvas.drawLine(hourPoints[0], hourPoints[1], hourPoints[2], hourPoints[3], mPointerPaint);
-        mPointerPaint.setStrokeWidth(getStrokeWidth(10));
-        canvas.drawLine(minutePoints[0], minutePoints[1], minutePoints[2], minutePoints[3], mPointerPaint);
-        mPointerPaint.setStrokeWidth(getStrokeWidth(5));
-        canvas.drawLine(secondPoints[0], secondPoints[1], secondPoints[2], secondPoints[3], mPointerPaint);
-
-        //画圆心
-        mPaintCircle.setColor(Color.WHITE);
-        canvas.drawCircle(0, 0, getStrokeWidth(4), mPaintCircle);
+    private boolean updatePointer(long presentationNanos, FrameRateGovernor.Decision decision) {
+        ClockSnapshot snapshot = mSnapshot;
+        ClockGeometry geometry = snapshot.geometry;
+        if (geometry.isEmpty()) {
+            return false;
+        }
+        //presentationNanos 是 System.nanoTime() 时基，换算成时间来源自己的时基
+        TimeSource timeSource = mTimeSource;
+        long nanoTime = timeSource.nanoTime() + (presentationNanos - System.nanoTime());
+        boolean ambient = mAmbient;
+        ClockStyle style = ambient ? snapshot.style.toAmbient() : snapshot.style;
+        if (mHandsRenderer.setStyle(style)) {
+            //颜色或线宽变了，旧区域不再可靠，整屏重绘一次
+            mLastHandBounds.setEmpty();
+        }
+        //常亮模式不显示秒表
+        boolean chronograph = mChronographMode && !ambient;
+        if (chronograph != mChronographVisible) {
+            mChronographVisible = chronograph;
+            mLastHandBounds.setEmpty();
+        }
+        if (mHandsRenderer.setGeometry(geometry)) {
+            //尺寸变了，整屏重绘并重新统计重绘比例
+            mLastHandBounds.setEmpty();
+            mDirtyFrameCount = 0;
+            mDirtyFractionSum = 0;
+        }
+        //降频时把时间取整到整秒或整分钟，秒针逐秒跳动而不是停在两格之间
+        mHandsRenderer.setSecondHandVisible(decision.secondHandVisible || chronograph);
+        mHandsRenderer.update(decision.quantize(timeSource.localMillisAt(nanoTime)));
+        if (chronograph) {
+            mChronographRenderer.setStyle(style);
+            mChronographRenderer.setGeometry(geometry);
+            //计时与显示时间同一时基，不经过时间来源换算，也不按刷新频率取整
+            mChronographRenderer.update(mChronograph.getElapsedNanos(presentationNanos));
+            mHandsRenderer.setSecondAngle(mChronographRenderer.getSecondAngle());
+        }
+        mCenterX = geometry.centerX;
+        mCenterY = geometry.centerY;
+        if (ambient) {
+            long wallMillis = System.currentTimeMillis();
+            mCenterX += BurnInShift.offsetX(wallMillis, mBurnInShift);
+            mCenterY += BurnInShift.offsetY(wallMillis, mBurnInShift);
+        }
+        mHandsRenderer.getBounds(mHandBounds, mCenterX, mCenterY);
+        if (chronograph) {
+            mChronographRenderer.getBounds(mHandBounds, mCenterX, mCenterY);
+        }
+        return true;
     }
 
-
-    private int getStrokeWidth(int width) {
-        float factor = mRadius * 0.005f;
-        return (int) (factor * width);
+    /**
+     * @return 需要锁定的区域，null 表示整屏
+     */
+    private Rect getDirtyRect() {
+        if (!mDirtyRegionEnabled || mLastHandBounds.isEmpty()) {
+            return null;
+        }
+        mDirtyRect.set(mLastHandBounds);
+        mDirtyRect.union(mHandBounds);
+        if (mDebugOverlayEnabled) {
+            mDirtyRect.union(mDebugOverlay.getBounds(mHandsRenderer.getGeometry().width));
+        }
+        return mDirtyRect;
     }
 
-
-}
\ No newline at end of file
+    /**
+     * 记录本帧实际重绘的比例，lockCanvas 可能扩大 dirty 区域，这里用扩大后的值
+     */
+    private void recordDirtyRect(Rect dirty) {
+        mLastHandBounds.set(mHandBounds);
+
+        ClockGeometry geometry = mHandsRenderer.getGeometry();
+        int area = geometry.width * geometry.height;
+        float fraction = dirty == null || area <= 0 ? 1f : Math.min(1f, dirty.width() * (float) dirty.height() / area);
+        mDirtyFractionSum += fraction;
+        mDirtyFrameCount++;
+        mLastDirtyFraction = fraction;
+        mAverageDirtyFraction = (float) (mDirtyFractionSum / mDirtyFrameCount);
+    }
+}
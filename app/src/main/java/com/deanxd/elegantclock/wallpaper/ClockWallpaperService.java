@@ -0,0 +1,202 @@
+package com.deanxd.elegantclock.wallpaper;
+
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Rect;
+import android.service.wallpaper.WallpaperService;
+import android.support.v4.os.TraceCompat;
+import android.view.SurfaceHolder;
+
+import com.deanxd.elegantclock.core.FrameRateGovernor;
+import com.deanxd.elegantclock.core.TimeSource;
+import com.deanxd.elegantclock.render.ClockRenderer;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.RenderRegistration;
+import com.deanxd.elegantclock.render.RenderScheduler;
+import com.deanxd.elegantclock.util.TimeSources;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * 时钟动态壁纸
+ * <p>
+ * 与 {@link com.deanxd.elegantclock.view.ClockPannelView} 一样由 {@link RenderScheduler} 驱动、用 {@link ClockRenderer} 绘制。
+ * 只有壁纸可见且 Surface 存在时才注册到调度器，其余时间不绘制也不占用线程。
+ * 每帧只锁定上一帧与本帧时钟所在区域的并集，桌面滑动时时钟随偏移平移，开销与静止时相同。
+ *
+ * @author Dean
+ */
+
+public class ClockWallpaperService extends WallpaperService {
+
+    private final static String TRACE_FRAME = "ClockWallpaperService#onFrame";
+
+    /**
+     * 表盘直径占屏幕短边的比例
+     */
+    private static final float CLOCK_SIZE_RATIO = 0.7f;
+    /**
+     * 桌面从最左页滑到最右页时时钟平移的距离，占屏幕宽度的比例
+     */
+    private static final float PARALLAX_RATIO = 0.1f;
+    private static final int BACKGROUND_COLOR = Color.BLACK;
+
+    @Override
+    public Engine onCreateEngine() {
+        return new ClockEngine();
+    }
+
+    private class ClockEngine extends Engine {
+
+        private RenderScheduler mRenderScheduler;
+        private RenderRegistration mRenderRegistration;
+        private ClockRenderer mClockRenderer;
+        private TimeSource mTimeSource;
+
+        /**
+         * 以下主线程写、渲染线程读。Surface 宽高打包在一个 long 里（高 32 位为宽），渲染线程一次读出，
+         * 不会读到新旧尺寸各一半
+         */
+        private volatile long mSurfaceSize;
+        private volatile float mOffsetX = 0.5f;
+        /**
+         * Surface 重建或尺寸变化后需要整屏重绘一次
+         */
+        private volatile boolean mFullRedraw = true;
+
+        /**
+         * 以下只在渲染线程访问
+         */
+        private final Rect mClockRect = new Rect();
+        private final Rect mLastClockRect = new Rect();
+        private final Rect mDirtyRect = new Rect();
+
+        @Override
+        public void onCreate(SurfaceHolder surfaceHolder) {
+            super.onCreate(surfaceHolder);
+            mRenderScheduler = RenderScheduler.getInstance(ClockWallpaperService.this);
+            mRenderRegistration = new RenderRegistration(mRenderScheduler, new DrawFrameCallback(this));
+            mRenderRegistration.setWindowVisible(isVisible());
+            mClockRenderer = new ClockRenderer(ClockWallpaperService.this);
+            mClockRenderer.setStyle(ClockStyle.DEFAULT);
+            mTimeSource = TimeSources.getSystem(ClockWallpaperService.this);
+            setOffsetNotificationsEnabled(true);
+        }
+
+        @Override
+        public void onDestroy() {
+            super.onDestroy();
+            mRenderRegistration.setSurfaceReady(false);
+        }
+
+        @Override
+        public void onVisibilityChanged(boolean visible) {
+            if (visible) {
+                mFullRedraw = true;
+            }
+            mRenderRegistration.setWindowVisible(visible);
+        }
+
+        @Override
+        public void onSurfaceCreated(SurfaceHolder holder) {
+            super.onSurfaceCreated(holder);
+            mFullRedraw = true;
+        }
+
+        @Override
+        public void onSurfaceChanged(SurfaceHolder holder, int format, int width, int height) {
+            super.onSurfaceChanged(holder, format, width, height);
+            mSurfaceSize = ((long) width << 32) | (height & 0xFFFFFFFFL);
+            mFullRedraw = true;
+            mRenderRegistration.setSurfaceReady(true);
+        }
+
+        @Override
+        public void onSurfaceDestroyed(SurfaceHolder holder) {
+            //注销后返回，保证渲染线程不会再锁定这个 Surface
+            mRenderRegistration.setSurfaceReady(false);
+            super.onSurfaceDestroyed(holder);
+        }
+
+        @Override
+        public void onOffsetsChanged(float xOffset, float yOffset, float xOffsetStep, float yOffsetStep,
+                                     int xPixelOffset, int yPixelOffset) {
+            //只记录偏移，由下一帧绘制，不在主线程上画
+            mOffsetX = xOffset;
+        }
+
+        /**
+         * 计算本帧时钟所在区域
+         */
+        private void layoutClock() {
+            long surfaceSize = mSurfaceSize;
+            int width = (int) (surfaceSize >>> 32);
+            int height = (int) surfaceSize;
+            int size = (int) (Math.min(width, height) * CLOCK_SIZE_RATIO);
+            int left = (width - size) / 2 + (int) ((0.5f - mOffsetX) * width * PARALLAX_RATIO);
+            int top = (height - size) / 2;
+            mClockRect.set(left, top, left + size, top + size);
+            mClockRenderer.setSize(size, size);
+        }
+
+        /**
+         * @return 需要锁定的区域，null 表示整屏
+         */
+        private Rect getDirtyRect() {
+            if (mFullRedraw || mLastClockRect.isEmpty()) {
+                mFullRedraw = false;
+                return null;
+            }
+            mDirtyRect.set(mLastClockRect);
+            mDirtyRect.union(mClockRect);
+            return mDirtyRect;
+        }
+
+        private void drawClock(Canvas canvas, long presentationNanos, FrameRateGovernor.Decision decision) {
+            //lockCanvas 已把 canvas 裁剪到需要重绘的区域
+            canvas.drawColor(BACKGROUND_COLOR);
+
+            TimeSource timeSource = mTimeSource;
+            long nanoTime = timeSource.nanoTime() + (presentationNanos - System.nanoTime());
+            mClockRenderer.getHandsRenderer().setSecondHandVisible(decision.secondHandVisible);
+            int saveCount = canvas.save();
+            canvas.translate(mClockRect.left, mClockRect.top);
+            mClockRenderer.draw(canvas, decision.quantize(timeSource.localMillisAt(nanoTime)));
+            canvas.restoreToCount(saveCount);
+            mLastClockRect.set(mClockRect);
+        }
+    }
+
+    private static class DrawFrameCallback implements RenderScheduler.Callback {
+        private WeakReference<ClockEngine> mEngineRef;
+
+        DrawFrameCallback(ClockEngine engine) {
+            mEngineRef = new WeakReference<>(engine);
+        }
+
+        @Override
+        public void onFrame(long presentationNanos, FrameRateGovernor.Decision decision) {
+            ClockEngine engine = mEngineRef.get();
+            if (engine == null) {
+                return;
+            }
+            TraceCompat.beginSection(TRACE_FRAME);
+            SurfaceHolder holder = engine.getSurfaceHolder();
+            Canvas canvas = null;
+            try {
+                engine.layoutClock();
+                canvas = holder.lockCanvas(engine.getDirtyRect());
+                if (canvas == null) {
+                    engine.mFullRedraw = true;
+                    return;
+                }
+                engine.drawClock(canvas, presentationNanos, decision);
+            } finally {
+                if (canvas != null) {
+                    holder.unlockCanvasAndPost(canvas);
+                }
+                TraceCompat.endSection();
+            }
+        }
+    }
+}
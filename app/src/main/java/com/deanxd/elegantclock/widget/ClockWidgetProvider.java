@@ -0,0 +1,150 @@
+package com.deanxd.elegantclock.widget;
+
+import android.annotation.TargetApi;
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.util.DisplayMetrics;
+import android.widget.RemoteViews;
+
+import com.deanxd.elegantclock.MainActivity;
+import com.deanxd.elegantclock.R;
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.util.FontRegistry;
+import com.deanxd.elegantclock.util.TimeSources;
+
+/**
+ * 桌面时钟小部件
+ * <p>
+ * 用 {@link ClockWidgetRenderer} 画成位图后通过 RemoteViews 更新，只显示时针和分针。
+ * 用不唤醒设备的闹钟在每个整分钟刷新一次，另外在小部件尺寸、时区或系统时间变化时刷新。
+ *
+ * @author Dean
+ */
+
+public class ClockWidgetProvider extends AppWidgetProvider {
+
+    private static final String ACTION_MINUTE_TICK = "com.deanxd.elegantclock.widget.action.MINUTE_TICK";
+
+    /**
+     * API 16 以下读不到小部件尺寸时使用的边长（dp），与 clock_widget_info 的最小尺寸一致
+     */
+    private static final int DEFAULT_SIZE_DP = 110;
+
+    @Override
+    public void onReceive(Context context, Intent intent) {
+        String action = intent.getAction();
+        if (ACTION_MINUTE_TICK.equals(action)
+                || Intent.ACTION_TIME_CHANGED.equals(action)
+                || Intent.ACTION_TIMEZONE_CHANGED.equals(action)) {
+            if (!ACTION_MINUTE_TICK.equals(action)) {
+                //动态注册的广播不一定先到，这里主动让时间来源重新锚定
+                TimeSources.invalidateSystem(context);
+                ClockWidgetRenderer.getInstance(context).invalidate();
+            }
+            AppWidgetManager manager = AppWidgetManager.getInstance(context);
+            int[] ids = manager.getAppWidgetIds(new ComponentName(context, ClockWidgetProvider.class));
+            if (ids.length > 0) {
+                onUpdate(context, manager, ids);
+            }
+            return;
+        }
+        super.onReceive(context, intent);
+    }
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager appWidgetManager, int[] appWidgetIds) {
+        loadFonts(context);
+        for (int appWidgetId : appWidgetIds) {
+            updateWidget(context, appWidgetManager, appWidgetId);
+        }
+        scheduleNextMinute(context);
+    }
+
+    @Override
+    public void onAppWidgetOptionsChanged(Context context, AppWidgetManager appWidgetManager,
+                                          int appWidgetId, Bundle newOptions) {
+        super.onAppWidgetOptionsChanged(context, appWidgetManager, appWidgetId, newOptions);
+        loadFonts(context);
+        updateWidget(context, appWidgetManager, appWidgetId);
+    }
+
+    @Override
+    public void onDisabled(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager != null) {
+            alarmManager.cancel(getTickIntent(context));
+        }
+        ClockWidgetRenderer.release();
+    }
+
+    /**
+     * 进程可能刚被广播冷启动，字体还没加载；不等加载完就画会把默认字体的表盘缓存到下一分钟
+     */
+    private static void loadFonts(Context context) {
+        ClockStyle style = ClockStyle.DEFAULT;
+        FontRegistry.getInstance(context).loadBlocking(style.numeralFont, style.signatureFont);
+    }
+
+    private static void updateWidget(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        int size = getBitmapSize(context, appWidgetManager, appWidgetId);
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_clock);
+        views.setImageViewBitmap(R.id.widget_clock_image, ClockWidgetRenderer.getInstance(context).render(size));
+        views.setOnClickPendingIntent(R.id.widget_clock_image, PendingIntent.getActivity(context, 0,
+                new Intent(context, MainActivity.class), PendingIntent.FLAG_UPDATE_CURRENT));
+        appWidgetManager.updateAppWidget(appWidgetId, views);
+    }
+
+    private static int getBitmapSize(Context context, AppWidgetManager appWidgetManager, int appWidgetId) {
+        DisplayMetrics metrics = context.getResources().getDisplayMetrics();
+        int widthDp = DEFAULT_SIZE_DP;
+        int heightDp = DEFAULT_SIZE_DP;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            Bundle options = getOptions(appWidgetManager, appWidgetId);
+            //竖屏时宽度取最小值、高度取最大值
+            widthDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MIN_WIDTH, widthDp);
+            heightDp = options.getInt(AppWidgetManager.OPTION_APPWIDGET_MAX_HEIGHT, heightDp);
+        }
+        return ClockWidgetRenderer.getBitmapSize((int) (widthDp * metrics.density), (int) (heightDp * metrics.density));
+    }
+
+    @TargetApi(Build.VERSION_CODES.JELLY_BEAN)
+    private static Bundle getOptions(AppWidgetManager appWidgetManager, int appWidgetId) {
+        return appWidgetManager.getAppWidgetOptions(appWidgetId);
+    }
+
+    /**
+     * 在下一个整分钟（墙上时间）触发一次，设备休眠时推迟到唤醒后
+     */
+    private static void scheduleNextMinute(Context context) {
+        AlarmManager alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+        if (alarmManager == null) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long next = now - now % HandAngles.MINUTE_MILLIS + HandAngles.MINUTE_MILLIS;
+        PendingIntent tick = getTickIntent(context);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT) {
+            setExact(alarmManager, next, tick);
+        } else {
+            alarmManager.set(AlarmManager.RTC, next, tick);
+        }
+    }
+
+    @TargetApi(Build.VERSION_CODES.KITKAT)
+    private static void setExact(AlarmManager alarmManager, long triggerAtMillis, PendingIntent operation) {
+        alarmManager.setExact(AlarmManager.RTC, triggerAtMillis, operation);
+    }
+
+    private static PendingIntent getTickIntent(Context context) {
+        Intent intent = new Intent(context, ClockWidgetProvider.class).setAction(ACTION_MINUTE_TICK);
+        return PendingIntent.getBroadcast(context, 0, intent, PendingIntent.FLAG_UPDATE_CURRENT);
+    }
+}
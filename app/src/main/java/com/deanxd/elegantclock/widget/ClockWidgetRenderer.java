@@ -0,0 +1,105 @@
+package com.deanxd.elegantclock.widget;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.util.SparseArray;
+
+import com.deanxd.elegantclock.core.HandAngles;
+import com.deanxd.elegantclock.core.TimeSource;
+import com.deanxd.elegantclock.render.ClockRenderer;
+import com.deanxd.elegantclock.util.TimeSources;
+
+/**
+ * 把时钟画到桌面小部件用的位图上
+ * <p>
+ * 每种尺寸只保留一张位图，反复绘制；表盘取自 {@link com.deanxd.elegantclock.render.DialLayerCache}，
+ * 每分钟只贴图加两根指针。同一分钟、同一尺寸的位图已经画过时直接复用。只在主线程使用。
+ *
+ * @author Dean
+ */
+
+final class ClockWidgetRenderer {
+
+    /**
+     * RemoteViews 经 binder 传给桌面，单次事务上限约 1MB 且整个进程共用，位图控制在这个大小以内，
+     * 大尺寸的小部件由 ImageView 放大显示
+     */
+    private static final int MAX_BITMAP_BYTES = 512 * 1024;
+    private static final int BYTES_PER_PIXEL = 4;
+
+    /**
+     * 同时缓存的位图种类上限，桌面上通常只有一两种尺寸
+     */
+    private static final int MAX_CACHED_SIZES = 4;
+
+    private static ClockWidgetRenderer sInstance;
+
+    private final ClockRenderer mClockRenderer;
+    private final TimeSource mTimeSource;
+    /**
+     * 以边长为 key 的位图，以及每张位图上次绘制的分钟
+     */
+    private final SparseArray<Bitmap> mBitmaps = new SparseArray<>();
+    private final SparseArray<Long> mDrawnMinutes = new SparseArray<>();
+
+    static ClockWidgetRenderer getInstance(Context context) {
+        if (sInstance == null) {
+            sInstance = new ClockWidgetRenderer(context.getApplicationContext());
+        }
+        return sInstance;
+    }
+
+    private ClockWidgetRenderer(Context context) {
+        mClockRenderer = new ClockRenderer(context);
+        mClockRenderer.getHandsRenderer().setSecondHandVisible(false);
+        mTimeSource = TimeSources.getSystem(context);
+    }
+
+    /**
+     * 按小部件的显示尺寸计算位图边长，超出 binder 限制时等比缩小
+     */
+    static int getBitmapSize(int widthPx, int heightPx) {
+        int size = Math.max(1, Math.min(widthPx, heightPx));
+        int maxSize = (int) Math.sqrt(MAX_BITMAP_BYTES / BYTES_PER_PIXEL);
+        return Math.min(size, maxSize);
+    }
+
+    /**
+     * 返回画着当前分钟的位图，同一分钟内重复调用不会重画
+     *
+     * @param size {@link #getBitmapSize} 的结果
+     */
+    Bitmap render(int size) {
+        long localMillis = mTimeSource.localMillisAt(mTimeSource.nanoTime());
+        long minute = localMillis - localMillis % HandAngles.MINUTE_MILLIS;
+        Bitmap bitmap = mBitmaps.get(size);
+        if (bitmap == null) {
+            if (mBitmaps.size() >= MAX_CACHED_SIZES) {
+                mBitmaps.clear();
+                mDrawnMinutes.clear();
+            }
+            bitmap = Bitmap.createBitmap(size, size, Bitmap.Config.ARGB_8888);
+            mBitmaps.put(size, bitmap);
+        }
+        Long drawnMinute = mDrawnMinutes.get(size);
+        if (drawnMinute == null || drawnMinute != minute) {
+            mClockRenderer.render(bitmap, minute);
+            mDrawnMinutes.put(size, minute);
+        }
+        return bitmap;
+    }
+
+    /**
+     * 时区、时间或字体变化后，下次 {@link #render} 必须重画
+     */
+    void invalidate() {
+        mDrawnMinutes.clear();
+    }
+
+    /**
+     * 所有小部件都被移除后释放位图
+     */
+    static void release() {
+        sInstance = null;
+    }
+}
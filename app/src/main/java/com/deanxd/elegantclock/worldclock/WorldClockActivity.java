@@ -0,0 +1,63 @@
+package com.deanxd.elegantclock.worldclock;
+
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.support.v7.widget.GridLayoutManager;
+import android.support.v7.widget.RecyclerView;
+
+import com.deanxd.elegantclock.R;
+
+/**
+ * 世界时钟：每个城市时区一个表盘的滚动网格
+ *
+ * @author Dean
+ */
+
+public class WorldClockActivity extends AppCompatActivity {
+
+    private WorldClockAdapter mAdapter;
+    /**
+     * 时区数据更新后丢弃缓存的时区规则；停止期间也保持注册，回到前台时不会沿用旧规则
+     */
+    private final BroadcastReceiver mTimeZoneReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            mAdapter.invalidateZones();
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_world_clock);
+
+        RecyclerView recyclerView = (RecyclerView) findViewById(R.id.world_clock_grid);
+        recyclerView.setLayoutManager(new GridLayoutManager(this, getResources().getInteger(R.integer.world_clock_columns)));
+        recyclerView.setHasFixedSize(true);
+        mAdapter = new WorldClockAdapter(this, WorldClockAdapter.getCityZoneIds());
+        recyclerView.setAdapter(mAdapter);
+        registerReceiver(mTimeZoneReceiver, new IntentFilter(Intent.ACTION_TIMEZONE_CHANGED));
+    }
+
+    @Override
+    protected void onStart() {
+        super.onStart();
+        mAdapter.getTicker().setPaused(false);
+    }
+
+    @Override
+    protected void onStop() {
+        super.onStop();
+        mAdapter.getTicker().setPaused(true);
+    }
+
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        unregisterReceiver(mTimeZoneReceiver);
+    }
+}
@@ -0,0 +1,117 @@
+package com.deanxd.elegantclock.worldclock;
+
+import android.content.Context;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import com.deanxd.elegantclock.R;
+import com.deanxd.elegantclock.core.ZoneOffsetTable;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DialRenderer;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * 世界时钟网格的适配器
+ * <p>
+ * 所有格子共用一个 {@link DialRenderer}（字体只加载一次）和一个 {@link WorldClockTicker}；
+ * 各时区的偏移缓存在同一个 {@link ZoneOffsetTable} 里，时区对象在第一次绘制时才创建。
+ *
+ * @author Dean
+ */
+
+public class WorldClockAdapter extends RecyclerView.Adapter<WorldClockAdapter.ViewHolder> {
+
+    private final ZoneOffsetTable mZoneTable;
+    private final String[] mCities;
+    private final DialRenderer mDialRenderer;
+    private final WorldClockTicker mTicker = new WorldClockTicker();
+    private ClockStyle mClockStyle = ClockStyle.DEFAULT;
+
+    public WorldClockAdapter(Context context, List<String> zoneIds) {
+        mDialRenderer = new DialRenderer(context);
+        mZoneTable = new ZoneOffsetTable(zoneIds.toArray(new String[zoneIds.size()]));
+        mCities = new String[zoneIds.size()];
+        for (int i = 0; i < mCities.length; i++) {
+            String id = zoneIds.get(i);
+            mCities[i] = id.substring(id.lastIndexOf('/') + 1).replace('_', ' ');
+        }
+        setHasStableIds(true);
+    }
+
+    /**
+     * 形如 "Asia/Shanghai" 的城市时区，排除 Etc、SystemV 等非地理时区
+     */
+    public static List<String> getCityZoneIds() {
+        String[] ids = TimeZone.getAvailableIDs();
+        Arrays.sort(ids);
+        List<String> result = new ArrayList<>(ids.length);
+        for (String id : ids) {
+            if (id.indexOf('/') > 0 && !id.startsWith("Etc/") && !id.startsWith("SystemV/")) {
+                result.add(id);
+            }
+        }
+        return result;
+    }
+
+    public WorldClockTicker getTicker() {
+        return mTicker;
+    }
+
+    /**
+     * 时区数据更新后在主线程调用，所有格子从下一帧起按新的规则计算
+     */
+    public void invalidateZones() {
+        mZoneTable.invalidate();
+    }
+
+    /**
+     * 切换所有格子的外观，同一外观的表盘位图在格子间共享
+     */
+    public void setClockStyle(ClockStyle style) {
+        mClockStyle = style;
+        notifyDataSetChanged();
+    }
+
+    @Override
+    public ViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View itemView = LayoutInflater.from(parent.getContext()).inflate(R.layout.item_world_clock, parent, false);
+        ViewHolder holder = new ViewHolder(itemView);
+        holder.mClockView.setup(mTicker, mDialRenderer);
+        return holder;
+    }
+
+    @Override
+    public void onBindViewHolder(ViewHolder holder, int position) {
+        holder.mClockView.setClockStyle(mClockStyle);
+        holder.mClockView.setZone(mZoneTable, position);
+        holder.mCityView.setText(mCities[position]);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public int getItemCount() {
+        return mCities.length;
+    }
+
+    static class ViewHolder extends RecyclerView.ViewHolder {
+        final WorldClockCellView mClockView;
+        final TextView mCityView;
+
+        ViewHolder(View itemView) {
+            super(itemView);
+            mClockView = (WorldClockCellView) itemView.findViewById(R.id.world_clock_cell);
+            mCityView = (TextView) itemView.findViewById(R.id.world_clock_city);
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.deanxd.elegantclock.worldclock;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.util.AttributeSet;
+import android.view.View;
+
+import com.deanxd.elegantclock.core.ZoneOffsetTable;
+import com.deanxd.elegantclock.render.ClockRenderer;
+import com.deanxd.elegantclock.render.ClockStyle;
+import com.deanxd.elegantclock.render.DialLayerCache;
+import com.deanxd.elegantclock.render.DialRenderer;
+
+/**
+ * 世界时钟网格里的一个时钟
+ * <p>
+ * 表盘直接贴 {@link DialLayerCache} 里同尺寸共享的位图，只绘制三根指针；
+ * 字体、表盘、节拍和时区偏移都由 {@link WorldClockAdapter} 统一提供，格子本身很轻，可被 RecyclerView 反复复用。
+ *
+ * @author Dean
+ */
+
+public class WorldClockCellView extends View {
+
+    private WorldClockTicker mTicker;
+    private ClockRenderer mClockRenderer;
+    private ZoneOffsetTable mZoneTable;
+    private int mZoneIndex;
+
+    public WorldClockCellView(Context context) {
+        this(context, null);
+    }
+
+    public WorldClockCellView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * @param ticker       共享节拍
+     * @param dialRenderer 共享表盘绘制器，只在表盘缓存未命中时使用
+     */
+    void setup(WorldClockTicker ticker, DialRenderer dialRenderer) {
+        mTicker = ticker;
+        if (mClockRenderer == null) {
+            mClockRenderer = new ClockRenderer(getContext(), dialRenderer);
+            mClockRenderer.setSize(getWidth(), getHeight());
+        }
+        if (ticker != null && isAttachedToWindowCompat()) {
+            ticker.add(this);
+        }
+    }
+
+    public void setClockStyle(ClockStyle style) {
+        if (mClockRenderer != null && style != mClockRenderer.getStyle()) {
+            mClockRenderer.setStyle(style);
+            invalidate();
+        }
+    }
+
+    /**
+     * @param table 共享的时区偏移缓存，每帧只做一次比较和加法
+     * @param index 本格子的时区在 table 中的下标
+     */
+    void setZone(ZoneOffsetTable table, int index) {
+        mZoneTable = table;
+        mZoneIndex = index;
+        invalidate();
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        //正方形格子，高度跟随宽度
+        int width = MeasureSpec.getSize(widthMeasureSpec);
+        setMeasuredDimension(width, width);
+    }
+
+    @Override
+    protected void onSizeChanged(int w, int h, int oldw, int oldh) {
+        super.onSizeChanged(w, h, oldw, oldh);
+        if (mClockRenderer != null) {
+            mClockRenderer.setSize(w, h);
+        }
+    }
+
+    @Override
+    protected void onAttachedToWindow() {
+        super.onAttachedToWindow();
+        if (mTicker != null) {
+            mTicker.add(this);
+        }
+    }
+
+    @Override
+    protected void onDetachedFromWindow() {
+        super.onDetachedFromWindow();
+        if (mTicker != null) {
+            mTicker.remove(this);
+        }
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (mTicker == null || mClockRenderer == null || mZoneTable == null) {
+            return;
+        }
+        long utcMillis = mTicker.getFrameUtcMillis();
+        mClockRenderer.draw(canvas, mZoneTable.localMillisAt(mZoneIndex, utcMillis));
+    }
+
+    private boolean isAttachedToWindowCompat() {
+        return getWindowToken() != null;
+    }
+}
@@ -0,0 +1,96 @@
+package com.deanxd.elegantclock.worldclock;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.View;
+
+import com.deanxd.elegantclock.render.FrameLoop;
+
+import java.util.ArrayList;
+
+/**
+ * 世界时钟网格的统一节拍
+ * <p>
+ * 主线程上每次 vsync 只计算一次这一帧的 UTC 时间，然后 invalidate 当前挂在窗口上的时钟格子；
+ * 被 RecyclerView 回收、不在屏幕上的格子不会被驱动。没有格子时不再注册帧回调。
+ *
+ * @author Dean
+ */
+
+public class WorldClockTicker {
+
+    private static final long FALLBACK_FRAME_NANOS = 16000000L;
+
+    private final ArrayList<View> mCells = new ArrayList<>();
+    private final FrameLoop mFrameLoop;
+    private boolean mScheduled;
+    private boolean mPaused;
+
+    /**
+     * 这一帧对应的 UTC 毫秒数，所有格子共用
+     */
+    private long mFrameUtcMillis = System.currentTimeMillis();
+
+    public WorldClockTicker() {
+        mFrameLoop = FrameLoop.create(new Handler(Looper.getMainLooper()), FALLBACK_FRAME_NANOS,
+                new FrameLoop.Callback() {
+                    @Override
+                    public void onFrame(long frameTimeNanos) {
+                        WorldClockTicker.this.onFrame(frameTimeNanos);
+                    }
+                });
+    }
+
+    public long getFrameUtcMillis() {
+        return mFrameUtcMillis;
+    }
+
+    /**
+     * 在主线程调用，通常在格子 attach 到窗口时
+     */
+    void add(View cell) {
+        if (!mCells.contains(cell)) {
+            mCells.add(cell);
+        }
+        scheduleIfNeeded();
+    }
+
+    /**
+     * 界面不可见时暂停，恢复后从下一帧继续
+     */
+    public void setPaused(boolean paused) {
+        mPaused = paused;
+        scheduleIfNeeded();
+    }
+
+    private void scheduleIfNeeded() {
+        if (!mScheduled && !mPaused && !mCells.isEmpty()) {
+            mScheduled = true;
+            mFrameUtcMillis = System.currentTimeMillis();
+            mFrameLoop.scheduleNext();
+        }
+    }
+
+    /**
+     * 在主线程调用，通常在格子 detach 时
+     */
+    void remove(View cell) {
+        mCells.remove(cell);
+    }
+
+    public int getActiveCellCount() {
+        return mCells.size();
+    }
+
+    private void onFrame(long frameTimeNanos) {
+        if (mCells.isEmpty() || mPaused) {
+            mScheduled = false;
+            return;
+        }
+        mFrameUtcMillis = System.currentTimeMillis() + (frameTimeNanos - System.nanoTime()) / 1000000;
+        for (int i = 0, size = mCells.size(); i < size; i++) {
+            mCells.get(i).invalidate();
+        }
+        mFrameLoop.scheduleNext();
+    }
+}
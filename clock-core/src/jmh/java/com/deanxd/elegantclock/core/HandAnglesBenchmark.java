@@ -0,0 +1,78 @@
+package com.deanxd.elegantclock.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 每帧的时间分解与角度换算
+ *
+ * @author Dean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandAnglesBenchmark {
+
+    private final HandAngles mAngles = new HandAngles();
+    private final Calendar mCalendar = Calendar.getInstance();
+    private final float[] mPoints = new float[4];
+    private final SystemTimeSource mTimeSource = new SystemTimeSource();
+    private long mMillis = System.currentTimeMillis();
+
+    /**
+     * 改造前的做法：每帧新建 Calendar
+     */
+    @Benchmark
+    public HandAngles newCalendarPerFrame() {
+        mMillis += 16;
+        Calendar now = Calendar.getInstance();
+        now.setTimeInMillis(mMillis);
+        mAngles.set(now.get(Calendar.HOUR), now.get(Calendar.MINUTE), now.get(Calendar.SECOND), now.get(Calendar.MILLISECOND));
+        return mAngles;
+    }
+
+    @Benchmark
+    public HandAngles reusedCalendar() {
+        mMillis += 16;
+        mCalendar.setTimeInMillis(mMillis);
+        mAngles.set(mCalendar.get(Calendar.HOUR), mCalendar.get(Calendar.MINUTE), mCalendar.get(Calendar.SECOND), mCalendar.get(Calendar.MILLISECOND));
+        return mAngles;
+    }
+
+    @Benchmark
+    public HandAngles localMillis() {
+        mMillis += 16;
+        mAngles.set(mMillis);
+        return mAngles;
+    }
+
+    /**
+     * 单调时钟锚定的系统时间来源
+     */
+    @Benchmark
+    public HandAngles systemTimeSource() {
+        mAngles.set(mTimeSource.localMillisAt(mTimeSource.nanoTime()));
+        return mAngles;
+    }
+
+    /**
+     * 一帧完整的指针计算：时间换算 + 三根指针坐标
+     */
+    @Benchmark
+    public float[] fullFrame() {
+        mMillis += 16;
+        HandAngles angles = mAngles;
+        angles.set(mMillis);
+        HandGeometry.calculatePoint(angles.hour, 50f, 10f, mPoints);
+        HandGeometry.calculatePoint(angles.minute, 60f, 10f, mPoints);
+        HandGeometry.calculatePoint(angles.second, 80f, 10f, mPoints);
+        return mPoints;
+    }
+}
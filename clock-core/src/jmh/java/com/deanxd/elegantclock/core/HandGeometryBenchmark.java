@@ -1,20 +1,50 @@
-package com.deanxd.elegantclock.util;
+package com.deanxd.elegantclock.core;
 
-import android.graphics.PointF;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
 
 /**
+ * 指针坐标计算：查表 vs 原来按象限分支调用 {@link Math#sin}/{@link Math#cos} 的实现
+ *
  * @author Dean
  */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class HandGeometryBenchmark {
+
+    private final float[] mPoints = new float[4];
+    private float mAngle;
 
-public class CommonUtils {
+    @Setup
+    public void setUp() {
+        mAngle = 0f;
+    }
 
+    @Benchmark
+    public float[] lookupTable() {
+        mAngle = (mAngle + 0.37f) % 360f;
+        HandGeometry.calculatePoint(mAngle, 80f, 10f, mPoints);
+        return mPoints;
+    }
 
     /**
-     * 根据角度和长度计算  线段的起点和终点的坐标
-     *
-     * @param angle 偏移角度
+     * 对照组：原 CommonUtils.calculatePoint，逐字移植，每次调用分配数组并按象限分支
      */
-    public static float[] calculatePoint(float angle, float leftLength, float rigthLength) {
+    @Benchmark
+    public float[] mathTrig() {
+        mAngle = (mAngle + 0.37f) % 360f;
+        return originalCalculatePoint(mAngle, 80f, 10f);
+    }
+
+    private static float[] originalCalculatePoint(float angle, float leftLength, float rigthLength) {
         float[] points = new float[4];
         if (angle <= 90f) {
             points[0] = -(float) Math.sin(angle * Math.PI / 180) * rigthLength;
@@ -39,5 +69,4 @@ public class CommonUtils {
         }
         return points;
     }
-
 }
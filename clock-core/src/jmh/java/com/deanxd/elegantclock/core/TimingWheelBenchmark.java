@@ -0,0 +1,140 @@
+package com.deanxd.elegantclock.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.PriorityQueue;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 10 万个闹钟的插入、取消和到期：时间轮 vs {@link PriorityQueue}
+ * <p>
+ * 到期时间在一周内随机分布；每次调用前重新准备一个时间轮，单次调用的耗时即处理 10 万个闹钟的总耗时。
+ *
+ * @author Dean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class TimingWheelBenchmark {
+
+    private static final int ALARMS = 100000;
+    private static final long START = 1500000000000L;
+    private static final long HORIZON = 7 * HandAngles.DAY_MILLIS;
+
+    private final long[] mDue = new long[ALARMS];
+    private final TimingWheel.Listener mListener = new TimingWheel.Listener() {
+        @Override
+        public void onExpired(int id, long dueMillis) {
+            mExpired++;
+        }
+    };
+    private TimingWheel mFilledWheel;
+    private PriorityQueue<Long> mFilledQueue;
+    private File mFile;
+    private int mExpired;
+
+    @Setup(Level.Trial)
+    public void setUpTrial() throws IOException {
+        Random random = new Random(42);
+        for (int i = 0; i < ALARMS; i++) {
+            mDue[i] = START + (long) (random.nextDouble() * HORIZON);
+        }
+        mFile = File.createTempFile("alarms", ".bin");
+    }
+
+    @Setup(Level.Invocation)
+    public void setUpInvocation() {
+        mFilledWheel = new TimingWheel(AlarmEngine.TICK_MILLIS, START);
+        mFilledQueue = new PriorityQueue<>(ALARMS);
+        for (int i = 0; i < ALARMS; i++) {
+            mFilledWheel.schedule(i, mDue[i]);
+            mFilledQueue.add(mDue[i]);
+        }
+        mFile.delete();
+        mExpired = 0;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDownTrial() {
+        mFile.delete();
+    }
+
+    @Benchmark
+    public TimingWheel wheelInsert() {
+        TimingWheel wheel = new TimingWheel(AlarmEngine.TICK_MILLIS, START);
+        for (int i = 0; i < ALARMS; i++) {
+            wheel.schedule(i, mDue[i]);
+        }
+        return wheel;
+    }
+
+    @Benchmark
+    public TimingWheel wheelCancel() {
+        TimingWheel wheel = mFilledWheel;
+        for (int i = 0; i < ALARMS; i++) {
+            wheel.cancel(i);
+        }
+        return wheel;
+    }
+
+    /**
+     * 按 1 分钟的步长推进一周，与 {@link AlarmEngine} 被系统闹钟唤醒的频率同一量级
+     */
+    @Benchmark
+    public int wheelExpire() {
+        TimingWheel wheel = mFilledWheel;
+        for (long now = START; now <= START + HORIZON; now += HandAngles.MINUTE_MILLIS) {
+            wheel.advance(now, mListener);
+        }
+        return mExpired;
+    }
+
+    @Benchmark
+    public PriorityQueue<Long> priorityQueueInsert() {
+        PriorityQueue<Long> queue = new PriorityQueue<>(ALARMS);
+        for (int i = 0; i < ALARMS; i++) {
+            queue.add(mDue[i]);
+        }
+        return queue;
+    }
+
+    @Benchmark
+    public int priorityQueueExpire() {
+        PriorityQueue<Long> queue = mFilledQueue;
+        for (long now = START; now <= START + HORIZON; now += HandAngles.MINUTE_MILLIS) {
+            while (!queue.isEmpty() && queue.peek() <= now) {
+                queue.poll();
+                mExpired++;
+            }
+        }
+        return mExpired;
+    }
+
+    /**
+     * 插入并写入内存映射文件
+     */
+    @Benchmark
+    public int engineSchedule() throws IOException {
+        AlarmStore store = AlarmStore.open(mFile);
+        try {
+            AlarmEngine engine = new AlarmEngine(store, START);
+            for (int i = 0; i < ALARMS; i++) {
+                engine.schedule(mDue[i], 0);
+            }
+            return engine.size();
+        } finally {
+            store.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.deanxd.elegantclock.core;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一帧里把同一个 UTC 时间换算成 500 个时区的时、分、秒
+ * <p>
+ * 时区从 {@link TimeZone#getAvailableIDs()} 中循环取出，每次调用推进 16ms。
+ *
+ * @author Dean
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ZoneOffsetTableBenchmark {
+
+    private static final int ZONES = 500;
+
+    private final HandAngles mAngles = new HandAngles();
+    private TimeZone[] mZones;
+    private Calendar[] mCalendars;
+    private ZoneOffsetTable mTable;
+    private long mMillis = System.currentTimeMillis();
+
+    @Setup
+    public void setUp() {
+        String[] available = TimeZone.getAvailableIDs();
+        String[] ids = new String[ZONES];
+        mZones = new TimeZone[ZONES];
+        mCalendars = new Calendar[ZONES];
+        for (int i = 0; i < ZONES; i++) {
+            ids[i] = available[i % available.length];
+            mZones[i] = TimeZone.getTimeZone(ids[i]);
+            mCalendars[i] = Calendar.getInstance(mZones[i]);
+        }
+        mTable = new ZoneOffsetTable(ids);
+    }
+
+    /**
+     * 改造前的做法：每个时钟每帧新建 Calendar
+     */
+    @Benchmark
+    public int newCalendarPerZone() {
+        mMillis += 16;
+        int sum = 0;
+        for (int i = 0; i < ZONES; i++) {
+            Calendar calendar = Calendar.getInstance(mZones[i]);
+            calendar.setTimeInMillis(mMillis);
+            sum += calendar.get(Calendar.HOUR) + calendar.get(Calendar.MINUTE) + calendar.get(Calendar.SECOND);
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public int reusedCalendarPerZone() {
+        mMillis += 16;
+        int sum = 0;
+        for (int i = 0; i < ZONES; i++) {
+            Calendar calendar = mCalendars[i];
+            calendar.setTimeInMillis(mMillis);
+            sum += calendar.get(Calendar.HOUR) + calendar.get(Calendar.MINUTE) + calendar.get(Calendar.SECOND);
+        }
+        return sum;
+    }
+
+    /**
+     * 每帧查询时区规则，省掉 Calendar 的字段计算
+     */
+    @Benchmark
+    public float timeZoneGetOffset() {
+        mMillis += 16;
+        float sum = 0;
+        for (int i = 0; i < ZONES; i++) {
+            mAngles.set(mMillis + mZones[i].getOffset(mMillis));
+            sum += mAngles.second;
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public float offsetTable() {
+        mMillis += 16;
+        ZoneOffsetTable table = mTable;
+        float sum = 0;
+        for (int i = 0; i < ZONES; i++) {
+            mAngles.set(table.localMillisAt(i, mMillis));
+            sum += mAngles.second;
+        }
+        return sum;
+    }
+}
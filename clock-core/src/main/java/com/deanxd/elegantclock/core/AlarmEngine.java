@@ -0,0 +1,118 @@
+package com.deanxd.elegantclock.core;
+
+import java.io.IOException;
+
+/**
+ * 闹钟引擎：{@link AlarmStore} 保存闹钟，{@link TimingWheel} 安排到期
+ * <p>
+ * 创建时扫描一遍记录文件重建时间轮，关机期间错过的闹钟在第一次 {@link #advance} 时补响。
+ * 重复的闹钟响过后按间隔推到下一个未来的时刻，错过的多次只响一次。所有方法都是同步的，可在任意线程调用。
+ *
+ * @author Dean
+ */
+
+public final class AlarmEngine {
+
+    /**
+     * 时间轮精度
+     */
+    public static final long TICK_MILLIS = HandAngles.SECOND_MILLIS;
+
+    public interface Listener {
+        /**
+         * 闹钟到期，在调用 {@link #advance} 的线程上、持有引擎锁时调用
+         *
+         * @param dueMillis 本次的到期时间，可能早于当前时间（错过的闹钟）
+         */
+        void onAlarm(int id, long dueMillis);
+    }
+
+    private final AlarmStore mStore;
+    private final TimingWheel mWheel;
+    private final TimingWheel.Listener mExpiredListener = new TimingWheel.Listener() {
+        @Override
+        public void onExpired(int id, long dueMillis) {
+            onWheelExpired(id, dueMillis);
+        }
+    };
+    /**
+     * 本次 {@link #advance} 的参数，避免每次推进都创建回调对象
+     */
+    private long mAdvanceMillis;
+    private Listener mAdvanceListener;
+
+    public AlarmEngine(AlarmStore store, long nowMillis) {
+        mStore = store;
+        mWheel = new TimingWheel(TICK_MILLIS, nowMillis);
+        for (int id = 0, count = store.getRecordCount(); id < count; id++) {
+            if (store.isActive(id)) {
+                mWheel.schedule(id, store.getDueMillis(id));
+            }
+        }
+    }
+
+    /**
+     * @param dueMillis     墙上时间
+     * @param repeatMinutes 重复间隔（分钟），0 为不重复
+     * @return 闹钟 id
+     */
+    public synchronized int schedule(long dueMillis, int repeatMinutes) throws IOException {
+        int id = mStore.add(dueMillis, repeatMinutes);
+        mWheel.schedule(id, dueMillis);
+        return id;
+    }
+
+    /**
+     * @return 闹钟存在并被取消时返回 true
+     */
+    public synchronized boolean cancel(int id) {
+        mWheel.cancel(id);
+        return mStore.remove(id);
+    }
+
+    /**
+     * 推进到 nowMillis，依次回调到期的闹钟
+     *
+     * @return 到期的闹钟数
+     */
+    public synchronized int advance(long nowMillis, Listener listener) {
+        mAdvanceMillis = nowMillis;
+        mAdvanceListener = listener;
+        try {
+            return mWheel.advance(nowMillis, mExpiredListener);
+        } finally {
+            mAdvanceListener = null;
+        }
+    }
+
+    private void onWheelExpired(int id, long dueMillis) {
+        long repeatMillis = mStore.getRepeatMinutes(id) * HandAngles.MINUTE_MILLIS;
+        if (repeatMillis > 0) {
+            long periods = (mAdvanceMillis - dueMillis) / repeatMillis + 1;
+            long nextDue = dueMillis + periods * repeatMillis;
+            mStore.setDueMillis(id, nextDue);
+            mWheel.schedule(id, nextDue);
+        } else {
+            mStore.remove(id);
+        }
+        mAdvanceListener.onAlarm(id, dueMillis);
+    }
+
+    /**
+     * 最早的到期时间，没有闹钟时返回 {@link Long#MAX_VALUE}
+     */
+    public synchronized long nextDueMillis() {
+        return mWheel.nextDueMillis();
+    }
+
+    public synchronized int size() {
+        return mWheel.size();
+    }
+
+    /**
+     * 把记录文件的修改同步写到磁盘
+     */
+    public synchronized void flush() {
+        mStore.flush();
+    }
+}
@@ -0,0 +1,216 @@
+package com.deanxd.elegantclock.core;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * 闹钟记录的持久化，内存映射的定长记录文件
+ * <p>
+ * 文件由 16 字节的文件头和连续的 16 字节记录组成，记录序号就是闹钟 id：
+ * <pre>
+ * 文件头：int 魔数, int 版本, int 记录数（含已删除的）, int 保留
+ * 记录：  long 到期时间（墙上时间毫秒）, int 重复间隔（分钟，0 为不重复）, int 状态
+ * </pre>
+ * 启动时顺序扫描一遍记录即可，不需要解析数据库；新记录优先复用已删除的位置，否则追加到末尾，
+ * 文件不够时按两倍扩大映射区。每次修改只写对应记录的几个字节，写入由系统在后台刷到磁盘，
+ * 进程被杀也不会丢失；需要防止断电丢失时调用 {@link #flush()}。非线程安全。
+ *
+ * @author Dean
+ */
+
+public final class AlarmStore implements Closeable {
+
+    private static final int MAGIC = 0x45434c41;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 16;
+    private static final int RECORD_SIZE = 16;
+    private static final int OFFSET_COUNT = 8;
+    private static final int OFFSET_REPEAT = 8;
+    private static final int OFFSET_STATE = 12;
+    private static final int STATE_FREE = 0;
+    private static final int STATE_ACTIVE = 1;
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final RandomAccessFile mFile;
+    private final FileChannel mChannel;
+    private MappedByteBuffer mBuffer;
+    /**
+     * 映射区能容纳的记录数
+     */
+    private int mCapacity;
+    private int mRecordCount;
+    private int mActiveCount;
+    /**
+     * 已删除、可复用的记录序号
+     */
+    private int[] mFreeIds = new int[16];
+    private int mFreeCount;
+
+    private AlarmStore(RandomAccessFile file) {
+        mFile = file;
+        mChannel = file.getChannel();
+    }
+
+    /**
+     * 打开或创建文件
+     *
+     * @throws IOException 文件不是闹钟记录文件或版本不支持时也会抛出
+     */
+    public static AlarmStore open(File file) throws IOException {
+        AlarmStore store = new AlarmStore(new RandomAccessFile(file, "rw"));
+        try {
+            store.load();
+        } catch (IOException e) {
+            store.close();
+            throw e;
+        }
+        return store;
+    }
+
+    private void load() throws IOException {
+        long length = mChannel.size();
+        if (length < HEADER_SIZE) {
+            map(INITIAL_CAPACITY);
+            mBuffer.putInt(0, MAGIC);
+            mBuffer.putInt(4, VERSION);
+            mBuffer.putInt(OFFSET_COUNT, 0);
+            return;
+        }
+        map((int) Math.min(Integer.MAX_VALUE, Math.max(INITIAL_CAPACITY, (length - HEADER_SIZE) / RECORD_SIZE)));
+        if (mBuffer.getInt(0) != MAGIC) {
+            throw new IOException("not an alarm store: " + Integer.toHexString(mBuffer.getInt(0)));
+        }
+        if (mBuffer.getInt(4) != VERSION) {
+            throw new IOException("unsupported alarm store version: " + mBuffer.getInt(4));
+        }
+        //记录数超出文件长度说明文件被截断过，以文件实际长度为上限
+        mRecordCount = Math.max(0, Math.min(mBuffer.getInt(OFFSET_COUNT), mCapacity));
+        //倒序压栈，新记录先复用序号小的位置，id 保持紧凑
+        for (int id = mRecordCount - 1; id >= 0; id--) {
+            if (isActive(id)) {
+                mActiveCount++;
+            } else {
+                pushFree(id);
+            }
+        }
+    }
+
+    private void map(int capacity) throws IOException {
+        mBuffer = mChannel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + (long) capacity * RECORD_SIZE);
+        mBuffer.order(ByteOrder.BIG_ENDIAN);
+        mCapacity = capacity;
+    }
+
+    /**
+     * 新增一条记录
+     *
+     * @param repeatMinutes 重复间隔（分钟），0 为不重复
+     * @return 记录序号，即闹钟 id
+     */
+    public int add(long dueMillis, int repeatMinutes) throws IOException {
+        if (repeatMinutes < 0) {
+            throw new IllegalArgumentException("repeatMinutes must not be negative: " + repeatMinutes);
+        }
+        int id;
+        if (mFreeCount > 0) {
+            id = mFreeIds[--mFreeCount];
+        } else {
+            if (mRecordCount == mCapacity) {
+                map(mCapacity * 2);
+            }
+            id = mRecordCount;
+        }
+        //先写内容，最后写状态和记录数，中途被杀不会留下半条有效记录
+        int offset = offset(id);
+        mBuffer.putLong(offset, dueMillis);
+        mBuffer.putInt(offset + OFFSET_REPEAT, repeatMinutes);
+        mBuffer.putInt(offset + OFFSET_STATE, STATE_ACTIVE);
+        if (id == mRecordCount) {
+            mRecordCount++;
+            mBuffer.putInt(OFFSET_COUNT, mRecordCount);
+        }
+        mActiveCount++;
+        return id;
+    }
+
+    /**
+     * 修改到期时间，重复的闹钟响过后用来记录下一次到期时间
+     */
+    public void setDueMillis(int id, long dueMillis) {
+        checkActive(id);
+        mBuffer.putLong(offset(id), dueMillis);
+    }
+
+    /**
+     * @return 记录存在并被删除时返回 true
+     */
+    public boolean remove(int id) {
+        if (!isActive(id)) {
+            return false;
+        }
+        mBuffer.putInt(offset(id) + OFFSET_STATE, STATE_FREE);
+        mActiveCount--;
+        pushFree(id);
+        return true;
+    }
+
+    public boolean isActive(int id) {
+        return id >= 0 && id < mRecordCount && mBuffer.getInt(offset(id) + OFFSET_STATE) == STATE_ACTIVE;
+    }
+
+    public long getDueMillis(int id) {
+        checkActive(id);
+        return mBuffer.getLong(offset(id));
+    }
+
+    public int getRepeatMinutes(int id) {
+        checkActive(id);
+        return mBuffer.getInt(offset(id) + OFFSET_REPEAT);
+    }
+
+    /**
+     * 记录序号的上限（不含），遍历时配合 {@link #isActive} 跳过已删除的记录
+     */
+    public int getRecordCount() {
+        return mRecordCount;
+    }
+
+    public int getActiveCount() {
+        return mActiveCount;
+    }
+
+    /**
+     * 把修改同步写到磁盘
+     */
+    public void flush() {
+        mBuffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        mFile.close();
+    }
+
+    private static int offset(int id) {
+        return HEADER_SIZE + id * RECORD_SIZE;
+    }
+
+    private void checkActive(int id) {
+        if (!isActive(id)) {
+            throw new IllegalArgumentException("no such alarm: " + id);
+        }
+    }
+
+    private void pushFree(int id) {
+        if (mFreeCount == mFreeIds.length) {
+            mFreeIds = Arrays.copyOf(mFreeIds, mFreeCount * 2);
+        }
+        mFreeIds[mFreeCount++] = id;
+    }
+}
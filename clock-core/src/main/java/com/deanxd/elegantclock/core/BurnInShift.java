@@ -0,0 +1,44 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 常亮模式下的防烧屏偏移
+ * <p>
+ * 每分钟把整个画面平移一个像素，在 (2 * maxShift + 1)² 个位置之间逐行扫过，所有位置停留的时间相同。
+ * 偏移只由墙上时间的分钟序号决定，表盘和指针分别计算也能保持一致。
+ *
+ * @author Dean
+ */
+
+public final class BurnInShift {
+
+    private BurnInShift() {
+    }
+
+    /**
+     * @param wallMillis 墙上时间，如 {@link System#currentTimeMillis()}
+     * @param maxShift   最大偏移（像素），偏移范围为 [-maxShift, maxShift]
+     */
+    public static int offsetX(long wallMillis, int maxShift) {
+        int span = 2 * maxShift + 1;
+        return (int) floorMod(minuteIndex(wallMillis), span) - maxShift;
+    }
+
+    public static int offsetY(long wallMillis, int maxShift) {
+        int span = 2 * maxShift + 1;
+        return (int) floorMod(floorDiv(minuteIndex(wallMillis), span), span) - maxShift;
+    }
+
+    private static long minuteIndex(long wallMillis) {
+        return floorDiv(wallMillis, HandAngles.MINUTE_MILLIS);
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        return value < 0 && quotient * divisor != value ? quotient - 1 : quotient;
+    }
+
+    private static long floorMod(long value, long divisor) {
+        long mod = value % divisor;
+        return mod < 0 ? mod + divisor : mod;
+    }
+}
@@ -0,0 +1,101 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 秒表：开始、停止、计圈和复位
+ * <p>
+ * 所有时刻都来自调用方传入的单调时钟读数（例如 {@link System#nanoTime()}），不受系统时间调整影响。
+ * 累计时间始终以 long 纳秒保存，角度每帧由 {@link ChronographAngles} 从累计时间直接换算，连续运行数小时也不会累积误差。
+ * <p>
+ * 控制方法和 {@link #getElapsedNanos} 可在不同线程调用；{@link #getLaps()} 只应在调用 {@link #lap} 的线程读取。
+ *
+ * @author Dean
+ */
+
+public final class Chronograph {
+
+    public static final int DEFAULT_LAP_CAPACITY = 1000;
+
+    private final LapRingBuffer mLaps;
+
+    private boolean mRunning;
+    /**
+     * 本段开始的时刻
+     */
+    private long mStartNanos;
+    /**
+     * 之前各段的累计时间
+     */
+    private long mAccumulatedNanos;
+
+    public Chronograph() {
+        this(DEFAULT_LAP_CAPACITY);
+    }
+
+    /**
+     * @param lapCapacity 最多保存的圈数，超出后覆盖最早的一圈
+     */
+    public Chronograph(int lapCapacity) {
+        mLaps = new LapRingBuffer(lapCapacity);
+    }
+
+    /**
+     * 开始或继续计时，已在计时时什么也不做
+     */
+    public synchronized void start(long nowNanos) {
+        if (mRunning) {
+            return;
+        }
+        mRunning = true;
+        mStartNanos = nowNanos;
+    }
+
+    /**
+     * 停止计时并保留累计时间，未在计时时什么也不做
+     */
+    public synchronized void stop(long nowNanos) {
+        if (!mRunning) {
+            return;
+        }
+        mAccumulatedNanos += nowNanos - mStartNanos;
+        mRunning = false;
+    }
+
+    /**
+     * 记录一圈
+     *
+     * @return 单圈时间（纳秒），未在计时时不记录并返回 -1
+     */
+    public synchronized long lap(long nowNanos) {
+        if (!mRunning) {
+            return -1;
+        }
+        return mLaps.add(mAccumulatedNanos + nowNanos - mStartNanos);
+    }
+
+    /**
+     * 停止计时，清零累计时间和计圈记录
+     */
+    public synchronized void reset() {
+        mRunning = false;
+        mAccumulatedNanos = 0;
+        mLaps.clear();
+    }
+
+    public synchronized boolean isRunning() {
+        return mRunning;
+    }
+
+    /**
+     * @param nowNanos 与控制方法同一时基的读数，可以是将来的时刻（例如下一帧的显示时间）
+     */
+    public synchronized long getElapsedNanos(long nowNanos) {
+        if (!mRunning) {
+            return mAccumulatedNanos;
+        }
+        return mAccumulatedNanos + Math.max(0, nowNanos - mStartNanos);
+    }
+
+    public LapRingBuffer getLaps() {
+        return mLaps;
+    }
+}
@@ -0,0 +1,46 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 秒表累计时间到指针角度的换算
+ * <p>
+ * 角度与 {@link HandAngles} 相同，以 12 点方向为 0°，顺时针递增。每个角度都先对累计时间取余再转成浮点数，
+ * 累计时间再长也不损失精度。对象可复用，每帧调用 {@link #set} 不产生新对象。
+ *
+ * @author Dean
+ */
+
+public final class ChronographAngles {
+
+    public static final long SECOND_NANOS = 1000000000L;
+    public static final long MINUTE_NANOS = 60 * SECOND_NANOS;
+    /**
+     * 分钟小表盘一圈的时长
+     */
+    public static final long MINUTE_DIAL_NANOS = 30 * MINUTE_NANOS;
+
+    /**
+     * 1/10 秒小表盘：每秒一圈，连续扫动
+     */
+    public float tenth;
+    /**
+     * 中央秒针：每分钟一圈，连续扫动
+     */
+    public float second;
+    /**
+     * 分钟小表盘：每 30 分钟一圈，整分钟跳一格
+     */
+    public float minute;
+
+    /**
+     * @param elapsedNanos 秒表累计时间
+     */
+    public void set(long elapsedNanos) {
+        if (elapsedNanos < 0) {
+            elapsedNanos = 0;
+        }
+        tenth = (float) (elapsedNanos % SECOND_NANOS * 360.0 / SECOND_NANOS);
+        second = (float) (elapsedNanos % MINUTE_NANOS * 360.0 / MINUTE_NANOS);
+        long wholeMinutes = elapsedNanos % MINUTE_DIAL_NANOS / MINUTE_NANOS;
+        minute = wholeMinutes * 360f / (MINUTE_DIAL_NANOS / MINUTE_NANOS);
+    }
+}
@@ -0,0 +1,85 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 表盘的几何参数：尺寸、圆心、半径、指针长度和线宽
+ * <p>
+ * 不可变对象，由 UI 线程在尺寸变化时整体计算好，通过一个 volatile 引用交给渲染线程；
+ * 渲染线程每帧读一次引用，拿到的所有数值都来自同一次计算，不会出现新旧尺寸混用的画面。
+ *
+ * @author Dean
+ */
+
+public final class ClockGeometry {
+
+    public static final ClockGeometry EMPTY = of(0, 0, 0f, 0f, 0f, 0f, 0f);
+
+    public final int width;
+    public final int height;
+    public final int centerX;
+    public final int centerY;
+    /**
+     * 边框宽度与边框中线所在的半径
+     */
+    public final float borderWidth;
+    public final float radius;
+    public final float hourHandLength;
+    public final float minuteHandLength;
+    public final float secondHandLength;
+    /**
+     * 指针反向超过圆点的长度
+     */
+    public final float handBackLength;
+    public final float hourHandWidth;
+    public final float minuteHandWidth;
+    public final float secondHandWidth;
+    public final float centerRadius;
+
+    private ClockGeometry(int width, int height, float borderWidthRatio, float hourHandRatio,
+                          float minuteHandRatio, float secondHandRatio, float handBackRatio) {
+        this.width = width;
+        this.height = height;
+        centerX = width / 2;
+        centerY = height / 2;
+        int sizeLength = Math.min(height / 2, width / 2);
+        borderWidth = sizeLength * borderWidthRatio;
+        radius = sizeLength - borderWidth / 2;
+        hourHandLength = radius * hourHandRatio;
+        minuteHandLength = radius * minuteHandRatio;
+        secondHandLength = radius * secondHandRatio;
+        handBackLength = radius * handBackRatio;
+        hourHandWidth = getStrokeWidth(13);
+        minuteHandWidth = getStrokeWidth(10);
+        secondHandWidth = getStrokeWidth(5);
+        centerRadius = getStrokeWidth(4);
+    }
+
+    /**
+     * @param borderWidthRatio 边框宽度 / 短边的一半
+     * @param hourHandRatio    以下均相对表盘半径
+     */
+    public static ClockGeometry of(int width, int height, float borderWidthRatio, float hourHandRatio,
+                                   float minuteHandRatio, float secondHandRatio, float handBackRatio) {
+        return new ClockGeometry(Math.max(width, 0), Math.max(height, 0), borderWidthRatio,
+                hourHandRatio, minuteHandRatio, secondHandRatio, handBackRatio);
+    }
+
+    /**
+     * Surface 还没有尺寸时为 true，此时不应绘制
+     */
+    public boolean isEmpty() {
+        return width == 0 || height == 0;
+    }
+
+    /**
+     * 按表盘半径换算线宽，weight 为半径的千分之五的倍数
+     */
+    public int getStrokeWidth(int weight) {
+        float factor = radius * 0.005f;
+        return (int) (factor * weight);
+    }
+
+    @Override
+    public String toString() {
+        return "ClockGeometry[" + width + "x" + height + ", radius " + radius + "]";
+    }
+}
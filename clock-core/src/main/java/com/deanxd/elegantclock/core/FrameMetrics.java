@@ -0,0 +1,83 @@
+package com.deanxd.elegantclock.core;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 帧耗时统计：绘制耗时、CPU 时间、调度延迟和丢帧数
+ * <p>
+ * 所有记录方法都是无锁、不产生对象的，可在渲染线程上每帧调用。
+ *
+ * @author Dean
+ */
+
+public final class FrameMetrics {
+
+    private final FrameHistogram mDurations = new FrameHistogram();
+    private final FrameHistogram mLateness = new FrameHistogram();
+    private final FrameHistogram mCpuTimes = new FrameHistogram();
+    private final AtomicLong mMissedFrames = new AtomicLong();
+
+    /**
+     * 记录一帧
+     *
+     * @param expectedStartNanos 这一帧本应开始的时间（vsync 时间）
+     * @param startNanos         实际开始绘制的时间
+     * @param endNanos           绘制完成的时间
+     * @param frameIntervalNanos 帧间隔，绘制在下一次 vsync 之后才完成即视为丢帧
+     */
+    public void recordFrame(long expectedStartNanos, long startNanos, long endNanos, long frameIntervalNanos) {
+        mDurations.record(endNanos - startNanos);
+        mLateness.record(startNanos - expectedStartNanos);
+        long deadline = expectedStartNanos + frameIntervalNanos;
+        if (frameIntervalNanos > 0 && endNanos > deadline) {
+            //错过了 deadline 之后的每一次 vsync
+            mMissedFrames.addAndGet((endNanos - deadline + frameIntervalNanos - 1) / frameIntervalNanos);
+        }
+    }
+
+    /**
+     * 记录一帧在绘制线程上消耗的 CPU 时间，与 {@link #recordFrame} 分开调用，平台不支持线程 CPU 时间时不记录
+     */
+    public void recordCpuTime(long cpuNanos) {
+        mCpuTimes.record(cpuNanos);
+    }
+
+    public long getFrameCount() {
+        return mDurations.getCount();
+    }
+
+    public long getMissedFrameCount() {
+        return mMissedFrames.get();
+    }
+
+    /**
+     * @param percentile 0 ~ 100，例如 50 / 95 / 99
+     * @return 绘制耗时（纳秒）
+     */
+    public long getDurationPercentile(double percentile) {
+        return mDurations.getPercentile(percentile);
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 实际开始时间相对 vsync 的延迟（纳秒）
+     */
+    public long getLatenessPercentile(double percentile) {
+        return mLateness.getPercentile(percentile);
+    }
+
+    /**
+     * @param percentile 0 ~ 100
+     * @return 每帧 CPU 时间（纳秒），没有记录时为 0
+     */
+    public long getCpuTimePercentile(double percentile) {
+        return mCpuTimes.getPercentile(percentile);
+    }
+
+    public void reset() {
+        mDurations.reset();
+        mLateness.reset();
+        mCpuTimes.reset();
+        mMissedFrames.set(0);
+    }
+}
@@ -0,0 +1,302 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 按指针运动方式、省电模式、发热程度和可见性决定刷新频率
+ * <p>
+ * 秒针连续扫动时每次 vsync 都画；秒针逐秒跳动时每秒画一次；不显示秒针时每分钟画一次。
+ * 省电模式或严重发热时扫动的秒针降级为逐秒跳动，轻度发热时隔一帧画一帧，常亮模式每分钟画一次，不可见时暂停。
+ * <p>
+ * 运动方式、省电、发热和可见性是整个进程共用的输入；常亮模式和秒表计时只属于某一个时钟，
+ * 不作为输入保存，由 {@link #getDecision(boolean, boolean)} 按各个时钟自己的状态取决策，互不影响。
+ * <p>
+ * 输入变化时才重新决策并通知 {@link Listener}，{@link #getDecision()} 每帧调用也不产生对象。
+ *
+ * @author Dean
+ */
+
+public final class FrameRateGovernor {
+
+    /**
+     * 秒针连续扫动
+     */
+    public static final int MOTION_SWEEP = 0;
+    /**
+     * 秒针逐秒跳动
+     */
+    public static final int MOTION_TICK = 1;
+    /**
+     * 不显示秒针
+     */
+    public static final int MOTION_MINUTE = 2;
+
+    public static final int THERMAL_NONE = 0;
+    public static final int THERMAL_MODERATE = 1;
+    public static final int THERMAL_SEVERE = 2;
+
+    /**
+     * 电池温度（0.1 ℃）达到这些值时视为轻度 / 严重发热
+     */
+    private static final int MODERATE_BATTERY_TEMPERATURE = 400;
+    private static final int SEVERE_BATTERY_TEMPERATURE = 450;
+
+    public interface Listener {
+        /**
+         * 在改变输入的线程上调用
+         */
+        void onDecisionChanged(Decision decision);
+    }
+
+    /**
+     * 一次决策的结果，不可变
+     */
+    public static final class Decision {
+        /**
+         * 暂停绘制
+         */
+        public final boolean paused;
+        /**
+         * 大于 0 时按整周期绘制（毫秒），每个周期边界后的第一次 vsync 画一帧；为 0 时按 vsync 绘制
+         */
+        public final long periodMillis;
+        /**
+         * 按 vsync 绘制时每几次 vsync 画一帧
+         */
+        public final int vsyncDivisor;
+        /**
+         * 绘制前把时间向下取整到该粒度（毫秒），0 表示不取整
+         */
+        public final long quantumMillis;
+        public final boolean secondHandVisible;
+        /**
+         * 决策原因，用于监控和日志
+         */
+        public final String reason;
+
+        Decision(boolean paused, long periodMillis, int vsyncDivisor, long quantumMillis,
+                 boolean secondHandVisible, String reason) {
+            this.paused = paused;
+            this.periodMillis = periodMillis;
+            this.vsyncDivisor = vsyncDivisor;
+            this.quantumMillis = quantumMillis;
+            this.secondHandVisible = secondHandVisible;
+            this.reason = reason;
+        }
+
+        /**
+         * 实际刷新频率（Hz）
+         *
+         * @param displayRefreshRate 屏幕刷新率
+         */
+        public float getFrameRate(float displayRefreshRate) {
+            if (paused) {
+                return 0f;
+            }
+            if (periodMillis > 0) {
+                return 1000f / periodMillis;
+            }
+            return displayRefreshRate / vsyncDivisor;
+        }
+
+        /**
+         * 按 {@link #quantumMillis} 取整
+         */
+        public long quantize(long localMillis) {
+            if (quantumMillis <= 0) {
+                return localMillis;
+            }
+            long remainder = localMillis % quantumMillis;
+            if (remainder < 0) {
+                remainder += quantumMillis;
+            }
+            return localMillis - remainder;
+        }
+
+        @Override
+        public String toString() {
+            return "Decision[" + reason + (paused ? ", paused" : periodMillis > 0
+                    ? ", every " + periodMillis + " ms" : ", every " + vsyncDivisor + " vsync") + "]";
+        }
+    }
+
+    private static final Decision HIDDEN = new Decision(true, 0, 1, 0, true, "hidden");
+    private static final Decision SWEEP = new Decision(false, 0, 1, 0, true, "sweep");
+    private static final Decision SWEEP_THERMAL_MODERATE = new Decision(false, 0, 2, 0, true, "thermal moderate");
+    private static final Decision TICK = new Decision(false, HandAngles.SECOND_MILLIS, 1, HandAngles.SECOND_MILLIS, true, "tick");
+    private static final Decision TICK_POWER_SAVE = new Decision(false, HandAngles.SECOND_MILLIS, 1, HandAngles.SECOND_MILLIS, true, "power save");
+    private static final Decision TICK_THERMAL_SEVERE = new Decision(false, HandAngles.SECOND_MILLIS, 1, HandAngles.SECOND_MILLIS, true, "thermal severe");
+    private static final Decision MINUTE = new Decision(false, HandAngles.MINUTE_MILLIS, 1, HandAngles.MINUTE_MILLIS, false, "seconds hidden");
+    private static final Decision AMBIENT = new Decision(false, HandAngles.MINUTE_MILLIS, 1, HandAngles.MINUTE_MILLIS, false, "ambient");
+
+    private int mMotion = MOTION_SWEEP;
+    private boolean mPowerSave;
+    private int mThermalLevel = THERMAL_NONE;
+    private boolean mVisible = true;
+    private volatile Decision mDecision = SWEEP;
+    private volatile Decision mAmbientDecision = AMBIENT;
+    private volatile Decision mChronographDecision = SWEEP;
+    /**
+     * 监听者快照，只在增删时替换
+     */
+    private volatile Listener[] mListeners = new Listener[0];
+
+    /**
+     * 不在常亮模式、没有秒表计时的时钟的决策
+     */
+    public Decision getDecision() {
+        return mDecision;
+    }
+
+    /**
+     * 某个时钟按自己的常亮、秒表状态取决策，常亮模式优先；每帧调用也不产生对象
+     */
+    public Decision getDecision(boolean ambient, boolean chronographRunning) {
+        if (ambient) {
+            return mAmbientDecision;
+        }
+        return chronographRunning ? mChronographDecision : mDecision;
+    }
+
+    public synchronized void addListener(Listener listener) {
+        Listener[] listeners = mListeners;
+        Listener[] newListeners = new Listener[listeners.length + 1];
+        System.arraycopy(listeners, 0, newListeners, 0, listeners.length);
+        newListeners[listeners.length] = listener;
+        mListeners = newListeners;
+    }
+
+    public synchronized void removeListener(Listener listener) {
+        Listener[] listeners = mListeners;
+        for (int i = 0; i < listeners.length; i++) {
+            if (listeners[i] == listener) {
+                Listener[] newListeners = new Listener[listeners.length - 1];
+                System.arraycopy(listeners, 0, newListeners, 0, i);
+                System.arraycopy(listeners, i + 1, newListeners, i, listeners.length - i - 1);
+                mListeners = newListeners;
+                return;
+            }
+        }
+    }
+
+    /**
+     * @param motion {@link #MOTION_SWEEP}、{@link #MOTION_TICK} 或 {@link #MOTION_MINUTE}
+     */
+    public void setMotion(int motion) {
+        if (motion < MOTION_SWEEP || motion > MOTION_MINUTE) {
+            throw new IllegalArgumentException("unknown motion: " + motion);
+        }
+        synchronized (this) {
+            mMotion = motion;
+        }
+        update();
+    }
+
+    public void setPowerSave(boolean powerSave) {
+        synchronized (this) {
+            mPowerSave = powerSave;
+        }
+        update();
+    }
+
+    /**
+     * @param thermalLevel {@link #THERMAL_NONE}、{@link #THERMAL_MODERATE} 或 {@link #THERMAL_SEVERE}
+     */
+    public void setThermalLevel(int thermalLevel) {
+        synchronized (this) {
+            mThermalLevel = thermalLevel;
+        }
+        update();
+    }
+
+    /**
+     * 屏幕是否亮着、时钟是否可能被看到
+     */
+    public void setVisible(boolean visible) {
+        synchronized (this) {
+            mVisible = visible;
+        }
+        update();
+    }
+
+    /**
+     * 两个决策中刷新更快的一个，多个时钟共用一个调度器时按最快的那个请求帧；暂停的决策最慢
+     */
+    public static Decision faster(Decision a, Decision b) {
+        if (a.paused) {
+            return b;
+        }
+        if (b.paused) {
+            return a;
+        }
+        if (a.periodMillis == 0 && b.periodMillis == 0) {
+            return a.vsyncDivisor <= b.vsyncDivisor ? a : b;
+        }
+        if (a.periodMillis == 0 || b.periodMillis == 0) {
+            return a.periodMillis == 0 ? a : b;
+        }
+        return a.periodMillis <= b.periodMillis ? a : b;
+    }
+
+    /**
+     * 没有系统发热状态接口时用电池温度估计发热程度
+     *
+     * @param tenthsCelsius 电池温度，单位 0.1 ℃
+     */
+    public static int thermalLevelForBatteryTemperature(int tenthsCelsius) {
+        if (tenthsCelsius >= SEVERE_BATTERY_TEMPERATURE) {
+            return THERMAL_SEVERE;
+        }
+        if (tenthsCelsius >= MODERATE_BATTERY_TEMPERATURE) {
+            return THERMAL_MODERATE;
+        }
+        return THERMAL_NONE;
+    }
+
+    static Decision decide(int motion, boolean powerSave, int thermalLevel, boolean visible, boolean ambient) {
+        if (!visible) {
+            return HIDDEN;
+        }
+        if (ambient) {
+            return AMBIENT;
+        }
+        switch (motion) {
+            case MOTION_MINUTE:
+                return MINUTE;
+            case MOTION_TICK:
+                return TICK;
+            default:
+                if (powerSave) {
+                    return TICK_POWER_SAVE;
+                }
+                if (thermalLevel >= THERMAL_SEVERE) {
+                    return TICK_THERMAL_SEVERE;
+                }
+                if (thermalLevel >= THERMAL_MODERATE) {
+                    return SWEEP_THERMAL_MODERATE;
+                }
+                return SWEEP;
+        }
+    }
+
+    /**
+     * 常亮模式不论运动方式如何都只在整分钟绘制、不显示秒针；秒表计时期间不论运动方式如何都按 vsync 绘制，
+     * 1/10 秒小表盘才能连续扫动，省电模式和发热仍按原规则降频
+     */
+    private void update() {
+        Decision decision;
+        synchronized (this) {
+            decision = decide(mMotion, mPowerSave, mThermalLevel, mVisible, false);
+            Decision ambientDecision = decide(mMotion, mPowerSave, mThermalLevel, mVisible, true);
+            Decision chronographDecision = decide(MOTION_SWEEP, mPowerSave, mThermalLevel, mVisible, false);
+            if (decision == mDecision && ambientDecision == mAmbientDecision
+                    && chronographDecision == mChronographDecision) {
+                return;
+            }
+            mDecision = decision;
+            mAmbientDecision = ambientDecision;
+            mChronographDecision = chronographDecision;
+        }
+        for (Listener listener : mListeners) {
+            listener.onDecisionChanged(decision);
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 时间到指针角度的换算
+ * <p>
+ * 角度以 12 点方向为 0°，顺时针递增。对象可复用，每帧调用 {@link #set} 不产生新对象。
+ *
+ * @author Dean
+ */
+
+public final class HandAngles {
+
+    public static final long SECOND_MILLIS = 1000L;
+    public static final long MINUTE_MILLIS = 60 * SECOND_MILLIS;
+    public static final long HOUR_MILLIS = 60 * MINUTE_MILLIS;
+    public static final long HALF_DAY_MILLIS = 12 * HOUR_MILLIS;
+    public static final long DAY_MILLIS = 24 * HOUR_MILLIS;
+
+    /**
+     * 时针角度
+     */
+    public float hour;
+    /**
+     * 分针角度
+     */
+    public float minute;
+    /**
+     * 秒针角度
+     */
+    public float second;
+
+    /**
+     * 按时间字段换算
+     *
+     * @param hour        小时（0 ~ 23，超过 12 自动折算）
+     * @param minute      分钟
+     * @param second      秒
+     * @param millisecond 毫秒
+     */
+    public void set(int hour, int minute, int second, int millisecond) {
+        set(hour * HOUR_MILLIS + minute * MINUTE_MILLIS + second * SECOND_MILLIS + millisecond);
+    }
+
+    /**
+     * 按本地时间换算
+     *
+     * @param localMillis 已加上时区偏移的毫秒数（或当天零点起的毫秒数）
+     */
+    public void set(long localMillis) {
+        long halfDayMill = localMillis % HALF_DAY_MILLIS;
+        if (halfDayMill < 0) {
+            halfDayMill += HALF_DAY_MILLIS;
+        }
+        long minuteMill = halfDayMill % HOUR_MILLIS;
+        long secondMill = minuteMill % MINUTE_MILLIS;
+
+        this.second = secondMill * 360f / MINUTE_MILLIS;
+        this.minute = minuteMill * 360f / HOUR_MILLIS;
+        this.hour = halfDayMill * 360f / HALF_DAY_MILLIS;
+    }
+}
@@ -0,0 +1,78 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 指针几何计算
+ * <p>
+ * 使用预先计算好的正弦表（0.1° 精度，线性插值）代替 {@link Math#sin}/{@link Math#cos}，
+ * 结果写入调用方持有的数组，绘制每一帧时不产生任何对象。
+ *
+ * @author Dean
+ */
+
+public final class HandGeometry {
+
+    /**
+     * 每一度划分的格数
+     */
+    private static final int STEPS_PER_DEGREE = 10;
+    private static final int TABLE_SIZE = 360 * STEPS_PER_DEGREE;
+    private static final int QUARTER = 90 * STEPS_PER_DEGREE;
+
+    /**
+     * 多出一格用于插值时访问 i + 1
+     */
+    private static final float[] SIN_TABLE = new float[TABLE_SIZE + 1];
+
+    static {
+        for (int i = 0; i <= TABLE_SIZE; i++) {
+            SIN_TABLE[i] = (float) Math.sin(Math.toRadians(i / (double) STEPS_PER_DEGREE));
+        }
+    }
+
+    private HandGeometry() {
+    }
+
+    /**
+     * @param angle 角度（度）
+     */
+    public static float sin(float angle) {
+        return lookup(angle * STEPS_PER_DEGREE);
+    }
+
+    /**
+     * @param angle 角度（度）
+     */
+    public static float cos(float angle) {
+        return lookup(angle * STEPS_PER_DEGREE + QUARTER);
+    }
+
+    /**
+     * 根据角度和长度计算线段的起点和终点的坐标，坐标原点为表盘圆心，0° 指向 12 点方向
+     *
+     * @param angle       偏移角度（顺时针）
+     * @param frontLength 指向角度方向的长度
+     * @param backLength  反向超过圆心的长度
+     * @param out         输出 {起点x, 起点y, 终点x, 终点y}，长度至少为 4
+     */
+    public static void calculatePoint(float angle, float frontLength, float backLength, float[] out) {
+        float sin = sin(angle);
+        float cos = cos(angle);
+        out[0] = -sin * backLength;
+        out[1] = cos * backLength;
+        out[2] = sin * frontLength;
+        out[3] = -cos * frontLength;
+    }
+
+    private static float lookup(float index) {
+        index %= TABLE_SIZE;
+        if (index < 0) {
+            index += TABLE_SIZE;
+        }
+        int i = (int) index;
+        float fraction = index - i;
+        if (i >= TABLE_SIZE) {
+            i -= TABLE_SIZE;
+        }
+        return SIN_TABLE[i] + (SIN_TABLE[i + 1] - SIN_TABLE[i]) * fraction;
+    }
+}
@@ -0,0 +1,108 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 秒表计圈记录，容量固定的环形缓冲区
+ * <p>
+ * 只用两个 long 数组保存每圈的累计时间和单圈时间，记录满后覆盖最早的一圈；
+ * {@link #add} 不产生对象，连续计圈数千次也不会触发 GC。非线程安全。
+ *
+ * @author Dean
+ */
+
+public final class LapRingBuffer {
+
+    /**
+     * 每圈结束时的累计时间（纳秒）
+     */
+    private final long[] mSplits;
+    /**
+     * 每圈的单圈时间（纳秒）
+     */
+    private final long[] mLaps;
+    /**
+     * 下一圈写入的位置
+     */
+    private int mHead;
+    private int mSize;
+    /**
+     * 清空以来记录的总圈数，包括已被覆盖的
+     */
+    private int mTotalCount;
+    private long mLastSplitNanos;
+
+    public LapRingBuffer(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        mSplits = new long[capacity];
+        mLaps = new long[capacity];
+    }
+
+    /**
+     * 记录一圈
+     *
+     * @param splitNanos 这一圈结束时的累计时间，不小于上一圈
+     * @return 单圈时间
+     */
+    public long add(long splitNanos) {
+        long lapNanos = splitNanos - mLastSplitNanos;
+        mLastSplitNanos = splitNanos;
+        mSplits[mHead] = splitNanos;
+        mLaps[mHead] = lapNanos;
+        mHead = (mHead + 1) % mSplits.length;
+        if (mSize < mSplits.length) {
+            mSize++;
+        }
+        mTotalCount++;
+        return lapNanos;
+    }
+
+    public void clear() {
+        mHead = 0;
+        mSize = 0;
+        mTotalCount = 0;
+        mLastSplitNanos = 0;
+    }
+
+    public int capacity() {
+        return mSplits.length;
+    }
+
+    /**
+     * 当前保存的圈数，不超过 {@link #capacity()}
+     */
+    public int size() {
+        return mSize;
+    }
+
+    public int getTotalCount() {
+        return mTotalCount;
+    }
+
+    /**
+     * @param index 0 为保存的最早一圈，{@link #size()} - 1 为最近一圈
+     */
+    public long getSplitNanos(int index) {
+        return mSplits[position(index)];
+    }
+
+    public long getLapNanos(int index) {
+        return mLaps[position(index)];
+    }
+
+    /**
+     * 从 1 开始的圈号，覆盖后最早一圈的圈号大于 1
+     */
+    public int getLapNumber(int index) {
+        position(index);
+        return mTotalCount - mSize + index + 1;
+    }
+
+    private int position(int index) {
+        if (index < 0 || index >= mSize) {
+            throw new IndexOutOfBoundsException("index " + index + ", size " + mSize);
+        }
+        int position = mHead - mSize + index;
+        return position < 0 ? position + mSplits.length : position;
+    }
+}
@@ -0,0 +1,65 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 模拟时间来源，用于测试和基准测试
+ * <p>
+ * {@link #manual} 的时间只随 {@link #advanceMillis} 前进；{@link #accelerated} 跟随真实单调时钟，
+ * 但按倍速流逝，可以几秒钟跑完一整天。
+ *
+ * @author Dean
+ */
+
+public final class SimulatedTimeSource implements TimeSource {
+
+    private final long mStartLocalMillis;
+    private final double mSpeed;
+    private final boolean mManual;
+    private final long mOriginNanos;
+    private volatile long mManualNanos;
+
+    private SimulatedTimeSource(long startLocalMillis, double speed, boolean manual) {
+        mStartLocalMillis = startLocalMillis;
+        mSpeed = speed;
+        mManual = manual;
+        mOriginNanos = manual ? 0 : System.nanoTime();
+    }
+
+    /**
+     * @param startLocalMillis 起始本地时间（已含时区偏移）
+     */
+    public static SimulatedTimeSource manual(long startLocalMillis) {
+        return new SimulatedTimeSource(startLocalMillis, 1, true);
+    }
+
+    /**
+     * @param startLocalMillis 起始本地时间（已含时区偏移）
+     * @param speed            倍速，例如 3600 表示现实一秒等于模拟一小时
+     */
+    public static SimulatedTimeSource accelerated(long startLocalMillis, double speed) {
+        return new SimulatedTimeSource(startLocalMillis, speed, false);
+    }
+
+    /**
+     * 手动推进时间，只对 {@link #manual} 创建的实例有效
+     */
+    public void advanceMillis(long millis) {
+        if (!mManual) {
+            throw new IllegalStateException("only a manual time source can be advanced");
+        }
+        mManualNanos += millis * 1000000;
+    }
+
+    @Override
+    public long nanoTime() {
+        return mManual ? mManualNanos : System.nanoTime();
+    }
+
+    @Override
+    public long localMillisAt(long nanoTime) {
+        long elapsedNanos = nanoTime - mOriginNanos;
+        if (mSpeed == 1) {
+            return mStartLocalMillis + elapsedNanos / 1000000;
+        }
+        return mStartLocalMillis + (long) (elapsedNanos * mSpeed / 1000000);
+    }
+}
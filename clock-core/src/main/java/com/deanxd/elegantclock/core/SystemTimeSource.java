@@ -0,0 +1,93 @@
+package com.deanxd.elegantclock.core;
+
+import java.util.TimeZone;
+
+/**
+ * 系统时间来源
+ * <p>
+ * 把墙上时间锚定到 {@link System#nanoTime()}，每帧只做减法和除法；时区偏移只在可能变化的时刻
+ * （下一次夏令时切换）重新计算。系统时间或时区被修改时调用 {@link #invalidate()} 重新锚定；
+ * 另外每隔 {@link #REANCHOR_NANOS} 自动重新锚定一次，吸收 NTP 对墙上时间的微调。
+ *
+ * @author Dean
+ */
+
+public class SystemTimeSource implements TimeSource {
+
+    static final long REANCHOR_NANOS = 60 * 1000000000L;
+
+    private volatile Anchor mAnchor;
+
+    public SystemTimeSource() {
+        mAnchor = createAnchor(TimeZone.getDefault());
+    }
+
+    @Override
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    /**
+     * 墙上时间，测试中可覆盖为手动推进的时钟
+     */
+    long currentTimeMillis() {
+        return System.currentTimeMillis();
+    }
+
+    @Override
+    public long localMillisAt(long nanoTime) {
+        Anchor anchor = mAnchor;
+        if (nanoTime - anchor.mNanos > REANCHOR_NANOS) {
+            anchor = createAnchor(anchor.mZone);
+            mAnchor = anchor;
+        }
+        long utcMillis = anchor.mWallMillis + (nanoTime - anchor.mNanos) / 1000000;
+        if (utcMillis >= anchor.mOffsetValidUntil || utcMillis < anchor.mOffsetValidFrom) {
+            anchor = anchor.withOffsetAt(utcMillis);
+            mAnchor = anchor;
+        }
+        return utcMillis + anchor.mOffset;
+    }
+
+    /**
+     * 系统时间或默认时区变化后调用，重新读取时区并锚定
+     */
+    public void invalidate() {
+        mAnchor = createAnchor(TimeZone.getDefault());
+    }
+
+    /**
+     * 当前使用的时区偏移（毫秒）
+     */
+    public int getOffset() {
+        return mAnchor.mOffset;
+    }
+
+    private Anchor createAnchor(TimeZone zone) {
+        long wallMillis = currentTimeMillis();
+        long nanos = nanoTime();
+        return new Anchor(zone, wallMillis, nanos, wallMillis);
+    }
+
+    private static final class Anchor {
+        final TimeZone mZone;
+        final long mWallMillis;
+        final long mNanos;
+        final int mOffset;
+        final long mOffsetValidFrom;
+        final long mOffsetValidUntil;
+
+        Anchor(TimeZone zone, long wallMillis, long nanos, long offsetAt) {
+            mZone = zone;
+            mWallMillis = wallMillis;
+            mNanos = nanos;
+            mOffset = zone.getOffset(offsetAt);
+            mOffsetValidFrom = offsetAt;
+            mOffsetValidUntil = ZoneTransitions.nextTransition(zone, offsetAt);
+        }
+
+        Anchor withOffsetAt(long utcMillis) {
+            return new Anchor(mZone, mWallMillis, mNanos, utcMillis);
+        }
+    }
+}
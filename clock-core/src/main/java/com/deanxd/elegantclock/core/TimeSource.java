@@ -0,0 +1,26 @@
+package com.deanxd.elegantclock.core;
+
+/**
+ * 时钟的时间来源
+ * <p>
+ * 以单调时钟为基准换算本地时间，绘制时每帧只需要几次整数运算。实现需保证 {@link #localMillisAt}
+ * 可在渲染线程上频繁调用且不产生对象。
+ *
+ * @author Dean
+ */
+
+public interface TimeSource {
+
+    /**
+     * 单调时钟读数（纳秒），只能用来计算时间差
+     */
+    long nanoTime();
+
+    /**
+     * 单调时钟读数对应的本地时间
+     *
+     * @param nanoTime {@link #nanoTime()} 时基的读数，可以是将来的时刻（例如下一帧的显示时间）
+     * @return 已加上时区偏移的毫秒数，可直接交给 {@link HandAngles#set(long)}
+     */
+    long localMillisAt(long nanoTime);
+}
@@ -0,0 +1,288 @@
+package com.deanxd.elegantclock.core;
+
+import java.util.Arrays;
+
+/**
+ * 分层时间轮
+ * <p>
+ * 4 层，每层 64 格：第 0 层每格一个 tick，第 n 层每格 64<sup>n</sup> 个 tick；tick 为 1 秒时覆盖约 194 天，
+ * 更远的条目暂放在最高层，转到时再重新分配。插入和取消都是 O(1)，{@link #advance} 每个 tick
+ * 只处理到期的一格，第 0 层转完一圈时把上一层对应的一格重新分配到下层。
+ * 条目只在推进到的时间不早于其到期时间时才到期：推进到一个 tick 中间时，这一格里还没到时间的条目留在原处，
+ * 下一次推进时先处理。
+ * <p>
+ * 条目由调用方分配的非负整数 id 标识（例如在 {@link AlarmStore} 中的记录序号），
+ * 每格是用 int 数组串起来的双向链表，增删条目不产生对象。非线程安全。
+ *
+ * @author Dean
+ */
+
+public final class TimingWheel {
+
+    public interface Listener {
+        /**
+         * 条目到期，回调前已从时间轮移除，可以在回调中重新 {@link #schedule}
+         */
+        void onExpired(int id, long dueMillis);
+    }
+
+    private static final int LEVELS = 4;
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int SLOT_MASK = SLOTS - 1;
+    private static final int NONE = -1;
+
+    private final long mTickMillis;
+    /**
+     * 每格链表的头，下标为 level * SLOTS + slot
+     */
+    private final int[] mHeads = new int[LEVELS * SLOTS];
+    private long[] mDue;
+    private int[] mNext;
+    private int[] mPrev;
+    /**
+     * 条目所在的格，{@link #NONE} 表示不在时间轮中
+     */
+    private int[] mSlot;
+    private int mSize;
+    /**
+     * 已推进到的 tick，这一格里可能还留有到期时间晚于上次推进时间的条目
+     */
+    private long mCurrentTick;
+    /**
+     * 正在 {@link #advance} 中回调
+     */
+    private boolean mAdvancing;
+
+    /**
+     * @param tickMillis 每格的时长
+     * @param nowMillis  当前时间
+     */
+    public TimingWheel(long tickMillis, long nowMillis) {
+        if (tickMillis <= 0) {
+            throw new IllegalArgumentException("tickMillis must be positive: " + tickMillis);
+        }
+        mTickMillis = tickMillis;
+        mCurrentTick = floorDiv(nowMillis, tickMillis);
+        Arrays.fill(mHeads, NONE);
+        mDue = new long[16];
+        mNext = new int[16];
+        mPrev = new int[16];
+        mSlot = new int[16];
+        Arrays.fill(mSlot, NONE);
+    }
+
+    /**
+     * 加入或重新安排一个条目
+     * <p>
+     * 到期时间已过的条目在下一次 {@link #advance} 时到期；在到期回调里安排的条目最早在下一个 tick 到期，
+     * 不会在同一次推进里再次回调。
+     *
+     * @param id 非负整数，id 越大占用的数组越长，应尽量连续分配
+     */
+    public void schedule(int id, long dueMillis) {
+        if (id < 0) {
+            throw new IllegalArgumentException("id must not be negative: " + id);
+        }
+        ensureCapacity(id + 1);
+        if (mSlot[id] != NONE) {
+            unlink(id);
+        } else {
+            mSize++;
+        }
+        mDue[id] = dueMillis;
+        place(id, mAdvancing ? mCurrentTick + 1 : mCurrentTick);
+    }
+
+    /**
+     * @return 条目在时间轮中并被移除时返回 true
+     */
+    public boolean cancel(int id) {
+        if (id < 0 || id >= mSlot.length || mSlot[id] == NONE) {
+            return false;
+        }
+        unlink(id);
+        mSize--;
+        return true;
+    }
+
+    public boolean contains(int id) {
+        return id >= 0 && id < mSlot.length && mSlot[id] != NONE;
+    }
+
+    public long getDueMillis(int id) {
+        if (!contains(id)) {
+            throw new IllegalArgumentException("not scheduled: " + id);
+        }
+        return mDue[id];
+    }
+
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 推进到 nowMillis，依次回调所有到期时间不晚于 nowMillis 的条目
+     *
+     * @return 到期的条目数
+     */
+    public int advance(long nowMillis, Listener listener) {
+        long targetTick = floorDiv(nowMillis, mTickMillis);
+        mAdvancing = true;
+        try {
+            //上次推进留在当前格里的条目
+            int expired = expire((int) (mCurrentTick & SLOT_MASK), nowMillis, listener);
+            while (mCurrentTick < targetTick) {
+                if (mSize == 0) {
+                    //空转没有意义，直接跳到目标位置
+                    mCurrentTick = targetTick;
+                    break;
+                }
+                long tick = ++mCurrentTick;
+                if ((tick & SLOT_MASK) == 0) {
+                    cascade(tick);
+                }
+                expired += expire((int) (tick & SLOT_MASK), nowMillis, listener);
+            }
+            return expired;
+        } finally {
+            mAdvancing = false;
+        }
+    }
+
+    /**
+     * 回调第 0 层一格里到期时间不晚于 nowMillis 的条目
+     * <p>
+     * 回调里可能取消同一格的其他条目，所以每次回调后从头重新查找；留在格里的只有最后一个 tick 里还没到时间的少数条目。
+     * 回调里重新安排的条目最早落在下一个 tick 的格，不会回到这一格。
+     */
+    private int expire(int head, long nowMillis, Listener listener) {
+        int expired = 0;
+        int id = mHeads[head];
+        while (id != NONE) {
+            if (mDue[id] > nowMillis) {
+                id = mNext[id];
+                continue;
+            }
+            unlink(id);
+            mSize--;
+            expired++;
+            listener.onExpired(id, mDue[id]);
+            id = mHeads[head];
+        }
+        return expired;
+    }
+
+    /**
+     * 最早的到期时间，时间轮为空时返回 {@link Long#MAX_VALUE}
+     * <p>
+     * 每层只需看从当前位置起第一个非空的格（第 0 层从当前格起，其他层从下一格起），
+     * 最高层还有暂放的远期条目，需要整层查看。
+     */
+    public long nextDueMillis() {
+        if (mSize == 0) {
+            return Long.MAX_VALUE;
+        }
+        long min = Long.MAX_VALUE;
+        for (int level = 0; level < LEVELS; level++) {
+            int current = (int) ((mCurrentTick >> (level * SLOT_BITS)) & SLOT_MASK);
+            boolean top = level == LEVELS - 1;
+            int first = level == 0 ? 0 : 1;
+            for (int i = first; i < first + SLOTS; i++) {
+                int id = mHeads[level * SLOTS + ((current + i) & SLOT_MASK)];
+                if (id == NONE) {
+                    continue;
+                }
+                for (; id != NONE; id = mNext[id]) {
+                    min = Math.min(min, mDue[id]);
+                }
+                if (!top) {
+                    break;
+                }
+            }
+        }
+        return min;
+    }
+
+    /**
+     * 第 0 层转完一圈，把上层对应的格重新分配到下层；先处理高层，高层落下来的条目还会被低层继续分配
+     */
+    private void cascade(long tick) {
+        int level = 1;
+        while (level < LEVELS - 1 && ((tick >> (level * SLOT_BITS)) & SLOT_MASK) == 0) {
+            level++;
+        }
+        for (; level >= 1; level--) {
+            int head = level * SLOTS + (int) ((tick >> (level * SLOT_BITS)) & SLOT_MASK);
+            int id = mHeads[head];
+            mHeads[head] = NONE;
+            while (id != NONE) {
+                int next = mNext[id];
+                mSlot[id] = NONE;
+                //正好在这个 tick 到期的条目落到第 0 层当前格，紧接着就会到期
+                place(id, tick);
+                id = next;
+            }
+        }
+    }
+
+    /**
+     * @param earliestTick 到期 tick 早于此值时按此值放置
+     */
+    private void place(int id, long earliestTick) {
+        long dueTick = Math.max(floorDiv(mDue[id], mTickMillis), earliestTick);
+        long delta = dueTick - mCurrentTick;
+        int head;
+        if (delta < (1L << (LEVELS * SLOT_BITS))) {
+            int level = 0;
+            while (delta >= (1L << ((level + 1) * SLOT_BITS))) {
+                level++;
+            }
+            head = level * SLOTS + (int) ((dueTick >> (level * SLOT_BITS)) & SLOT_MASK);
+        } else {
+            //超出范围，放在最高层最后转到的一格，转到时重新分配
+            int top = LEVELS - 1;
+            head = top * SLOTS + (int) (((mCurrentTick >> (top * SLOT_BITS)) + SLOT_MASK) & SLOT_MASK);
+        }
+        int first = mHeads[head];
+        mNext[id] = first;
+        mPrev[id] = NONE;
+        if (first != NONE) {
+            mPrev[first] = id;
+        }
+        mHeads[head] = id;
+        mSlot[id] = head;
+    }
+
+    private void unlink(int id) {
+        int next = mNext[id];
+        int prev = mPrev[id];
+        if (prev != NONE) {
+            mNext[prev] = next;
+        } else {
+            mHeads[mSlot[id]] = next;
+        }
+        if (next != NONE) {
+            mPrev[next] = prev;
+        }
+        mSlot[id] = NONE;
+    }
+
+    private static long floorDiv(long value, long divisor) {
+        long quotient = value / divisor;
+        return value < 0 && quotient * divisor != value ? quotient - 1 : quotient;
+    }
+
+    private void ensureCapacity(int capacity) {
+        int length = mSlot.length;
+        if (capacity <= length) {
+            return;
+        }
+        int newLength = Math.max(capacity, length * 2);
+        mDue = Arrays.copyOf(mDue, newLength);
+        mNext = Arrays.copyOf(mNext, newLength);
+        mPrev = Arrays.copyOf(mPrev, newLength);
+        mSlot = Arrays.copyOf(mSlot, newLength);
+        Arrays.fill(mSlot, length, newLength, NONE);
+    }
+}
@@ -0,0 +1,84 @@
+package com.deanxd.elegantclock.core;
+
+import java.util.TimeZone;
+
+/**
+ * 多个时区的偏移缓存
+ * <p>
+ * 每个时区按下标保存当前偏移及其有效区间（到下一次夏令时切换为止），同一帧的 UTC 时间换算成各时区的本地时间
+ * 只需一次比较和一次加法；越过区间时才重新查询时区规则。时区对象在第一次查询时才创建。
+ * 不是线程安全的，应在同一个线程上使用。
+ *
+ * @author Dean
+ */
+
+public class ZoneOffsetTable {
+
+    private final String[] mIds;
+    private final TimeZone[] mZones;
+    private final int[] mOffsets;
+    private final long[] mValidFrom;
+    private final long[] mValidUntil;
+
+    public ZoneOffsetTable(String... ids) {
+        int size = ids.length;
+        mIds = ids.clone();
+        mZones = new TimeZone[size];
+        mOffsets = new int[size];
+        mValidFrom = new long[size];
+        mValidUntil = new long[size];
+        invalidate();
+    }
+
+    public int size() {
+        return mIds.length;
+    }
+
+    public String getId(int index) {
+        return mIds[index];
+    }
+
+    public TimeZone getZone(int index) {
+        TimeZone zone = mZones[index];
+        if (zone == null) {
+            zone = TimeZone.getTimeZone(mIds[index]);
+            mZones[index] = zone;
+        }
+        return zone;
+    }
+
+    /**
+     * @return 第 index 个时区在 utcMillis 时的偏移（毫秒），与 {@link TimeZone#getOffset(long)} 相同
+     */
+    public int getOffset(int index, long utcMillis) {
+        if (utcMillis >= mValidUntil[index] || utcMillis < mValidFrom[index]) {
+            refresh(index, utcMillis);
+        }
+        return mOffsets[index];
+    }
+
+    /**
+     * @return 第 index 个时区的本地时间，可直接交给 {@link HandAngles#set(long)}
+     */
+    public long localMillisAt(int index, long utcMillis) {
+        return utcMillis + getOffset(index, utcMillis);
+    }
+
+    /**
+     * 时区数据更新后调用，丢弃缓存的时区对象，下次查询时按新的规则重新创建并计算偏移
+     */
+    public void invalidate() {
+        for (int i = 0; i < mIds.length; i++) {
+            mZones[i] = null;
+            mValidFrom[i] = Long.MAX_VALUE;
+            mValidUntil[i] = Long.MIN_VALUE;
+        }
+    }
+
+    private void refresh(int index, long utcMillis) {
+        TimeZone zone = getZone(index);
+        mOffsets[index] = zone.getOffset(utcMillis);
+        mValidFrom[index] = utcMillis;
+        mValidUntil[index] = ZoneTransitions.nextTransition(zone, utcMillis);
+    }
+}
@@ -0,0 +1,43 @@
+package com.deanxd.elegantclock.core;
+
+import java.util.TimeZone;
+
+/**
+ * 查找时区偏移的下一次变化（夏令时切换等）
+ *
+ * @author Dean
+ */
+
+final class ZoneTransitions {
+
+    /**
+     * 向后探测的跨度，假定一天之内不会发生两次偏移变化
+     */
+    static final long PROBE_MILLIS = HandAngles.DAY_MILLIS;
+
+    private ZoneTransitions() {
+    }
+
+    /**
+     * @return utcMillis 之后时区偏移第一次不同于当前偏移的时刻；一天之内没有变化时返回 utcMillis + 一天，
+     * 届时需要再查一次
+     */
+    static long nextTransition(TimeZone zone, long utcMillis) {
+        int offset = zone.getOffset(utcMillis);
+        long high = utcMillis + PROBE_MILLIS;
+        if (zone.getOffset(high) == offset) {
+            return high;
+        }
+        //二分查找偏移变化的第一毫秒
+        long low = utcMillis;
+        while (high - low > 1) {
+            long middle = (low + high) >>> 1;
+            if (zone.getOffset(middle) == offset) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return high;
+    }
+}
@@ -0,0 +1,97 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class AlarmEngineTest {
+
+    private static final long START = 1500000000000L;
+    private static final long MINUTE = HandAngles.MINUTE_MILLIS;
+
+    private File mFile;
+    private final List<Integer> mFired = new ArrayList<>();
+    private final AlarmEngine.Listener mListener = new AlarmEngine.Listener() {
+        @Override
+        public void onAlarm(int id, long dueMillis) {
+            mFired.add(id);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        mFile = File.createTempFile("alarms", ".bin");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mFile.delete();
+    }
+
+    @Test
+    public void repeatingAlarmMovesToNextFutureTime() throws Exception {
+        AlarmStore store = AlarmStore.open(mFile);
+        AlarmEngine engine = new AlarmEngine(store, START);
+        int once = engine.schedule(START + MINUTE, 0);
+        int daily = engine.schedule(START + 2 * MINUTE, 24 * 60);
+        assertEquals(START + MINUTE, engine.nextDueMillis());
+
+        //错过三天，重复的闹钟只响一次
+        engine.advance(START + 3 * 24 * 60 * MINUTE + 5 * MINUTE, mListener);
+        assertEquals(2, mFired.size());
+        assertEquals(1, engine.size());
+        assertEquals(START + 2 * MINUTE + 4 * 24 * 60 * MINUTE, engine.nextDueMillis());
+        assertEquals(engine.nextDueMillis(), store.getDueMillis(daily));
+        assertEquals(false, store.isActive(once));
+        store.close();
+    }
+
+    /**
+     * 系统闹钟按到期时间唤醒，到期时间不在整秒上也要正好在那一刻响，不能提前
+     */
+    @Test
+    public void firesExactlyAtDueTime() throws Exception {
+        AlarmStore store = AlarmStore.open(mFile);
+        AlarmEngine engine = new AlarmEngine(store, START);
+        long due = START + MINUTE + 300;
+        int id = engine.schedule(due, 0);
+        engine.advance(due - 1, mListener);
+        assertEquals(0, mFired.size());
+        assertEquals(due, engine.nextDueMillis());
+        engine.advance(due, mListener);
+        assertEquals(1, mFired.size());
+        assertEquals(id, (int) mFired.get(0));
+        store.close();
+    }
+
+    @Test
+    public void missedAlarmsFireAfterRestart() throws Exception {
+        AlarmStore store = AlarmStore.open(mFile);
+        AlarmEngine engine = new AlarmEngine(store, START);
+        int id = engine.schedule(START + 10 * MINUTE, 0);
+        int cancelled = engine.schedule(START + 20 * MINUTE, 0);
+        assertTrue(engine.cancel(cancelled));
+        store.close();
+
+        //关机一小时后重新打开
+        store = AlarmStore.open(mFile);
+        engine = new AlarmEngine(store, START + 60 * MINUTE);
+        assertEquals(1, engine.size());
+        engine.advance(START + 60 * MINUTE + HandAngles.SECOND_MILLIS, mListener);
+        assertEquals(1, mFired.size());
+        assertEquals(id, (int) mFired.get(0));
+        assertEquals(0, store.getActiveCount());
+        store.close();
+    }
+}
@@ -0,0 +1,81 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class AlarmStoreTest {
+
+    private File mFile;
+
+    @Before
+    public void setUp() throws Exception {
+        mFile = File.createTempFile("alarms", ".bin");
+        assertTrue(mFile.delete());
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        mFile.delete();
+    }
+
+    @Test
+    public void persistsAcrossReopen() throws Exception {
+        AlarmStore store = AlarmStore.open(mFile);
+        int first = store.add(1000L, 0);
+        int second = store.add(2000L, 15);
+        int third = store.add(3000L, 0);
+        assertTrue(store.remove(second));
+        assertFalse(store.remove(second));
+        store.setDueMillis(third, 4000L);
+        store.close();
+
+        store = AlarmStore.open(mFile);
+        assertEquals(3, store.getRecordCount());
+        assertEquals(2, store.getActiveCount());
+        assertEquals(1000L, store.getDueMillis(first));
+        assertEquals(4000L, store.getDueMillis(third));
+        assertFalse(store.isActive(second));
+        //复用删除的位置
+        assertEquals(second, store.add(5000L, 30));
+        assertEquals(30, store.getRepeatMinutes(second));
+        store.close();
+    }
+
+    @Test
+    public void growsBeyondInitialMapping() throws Exception {
+        AlarmStore store = AlarmStore.open(mFile);
+        for (int i = 0; i < 10000; i++) {
+            assertEquals(i, store.add(i * 1000L, i % 60));
+        }
+        store.close();
+
+        store = AlarmStore.open(mFile);
+        assertEquals(10000, store.getActiveCount());
+        assertEquals(9999000L, store.getDueMillis(9999));
+        assertEquals(9999 % 60, store.getRepeatMinutes(9999));
+        store.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFile() throws Exception {
+        FileOutputStream out = new FileOutputStream(mFile);
+        try {
+            out.write(new byte[64]);
+        } finally {
+            out.close();
+        }
+        AlarmStore.open(mFile);
+    }
+}
@@ -0,0 +1,35 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class BurnInShiftTest {
+
+    @Test
+    public void constantWithinMinute() throws Exception {
+        long minute = 12345 * HandAngles.MINUTE_MILLIS;
+        assertEquals(BurnInShift.offsetX(minute, 4), BurnInShift.offsetX(minute + HandAngles.MINUTE_MILLIS - 1, 4));
+        assertEquals(BurnInShift.offsetY(minute, 4), BurnInShift.offsetY(minute + HandAngles.MINUTE_MILLIS - 1, 4));
+    }
+
+    @Test
+    public void visitsEveryPositionOnce() throws Exception {
+        int maxShift = 3;
+        int span = 2 * maxShift + 1;
+        boolean[] visited = new boolean[span * span];
+        for (int i = 0; i < span * span; i++) {
+            long millis = (i - 20) * HandAngles.MINUTE_MILLIS;
+            int x = BurnInShift.offsetX(millis, maxShift);
+            int y = BurnInShift.offsetY(millis, maxShift);
+            assertTrue(Math.abs(x) <= maxShift && Math.abs(y) <= maxShift);
+            int index = (y + maxShift) * span + x + maxShift;
+            assertTrue(!visited[index]);
+            visited[index] = true;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * @author Dean
+ */
+public class ChronographTest {
+
+    private static final long MILLI = 1000000L;
+    private static final long SECOND = ChronographAngles.SECOND_NANOS;
+
+    @Test
+    public void startStopLapReset() throws Exception {
+        Chronograph chronograph = new Chronograph();
+        assertEquals(-1, chronograph.lap(0));
+        chronograph.start(1000);
+        assertTrue(chronograph.isRunning());
+        assertEquals(2 * SECOND, chronograph.lap(1000 + 2 * SECOND));
+        chronograph.stop(1000 + 5 * SECOND);
+        assertEquals(5 * SECOND, chronograph.getElapsedNanos(1000 + 60 * SECOND));
+
+        //停止期间不计时
+        chronograph.start(100 * SECOND);
+        assertEquals(6 * SECOND, chronograph.getElapsedNanos(101 * SECOND));
+        assertEquals(5 * SECOND, chronograph.lap(102 * SECOND));
+
+        LapRingBuffer laps = chronograph.getLaps();
+        assertEquals(2, laps.size());
+        assertEquals(2 * SECOND, laps.getLapNanos(0));
+        assertEquals(7 * SECOND, laps.getSplitNanos(1));
+        assertEquals(2, laps.getLapNumber(1));
+
+        chronograph.reset();
+        assertFalse(chronograph.isRunning());
+        assertEquals(0, chronograph.getElapsedNanos(200 * SECOND));
+        assertEquals(0, laps.size());
+    }
+
+    @Test
+    public void ringBufferOverwritesOldest() throws Exception {
+        LapRingBuffer laps = new LapRingBuffer(4);
+        for (int i = 1; i <= 10; i++) {
+            laps.add(i * i * SECOND);
+        }
+        assertEquals(4, laps.size());
+        assertEquals(10, laps.getTotalCount());
+        assertEquals(7, laps.getLapNumber(0));
+        assertEquals(49 * SECOND, laps.getSplitNanos(0));
+        assertEquals((49 - 36) * SECOND, laps.getLapNanos(0));
+        assertEquals((100 - 81) * SECOND, laps.getLapNanos(3));
+        try {
+            laps.getLapNanos(4);
+            throw new AssertionError("expected IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException expected) {
+            //ok
+        }
+    }
+
+    /**
+     * 连续运行 10 小时后角度与刚开始时同样精确
+     */
+    @Test
+    public void anglesDoNotDrift() throws Exception {
+        ChronographAngles angles = new ChronographAngles();
+        angles.set(250 * MILLI);
+        assertEquals(90f, angles.tenth, 0f);
+        assertEquals(1.5f, angles.second, 0f);
+        assertEquals(0f, angles.minute, 0f);
+
+        long tenHours = 10 * 60 * ChronographAngles.MINUTE_NANOS;
+        angles.set(tenHours + 17 * ChronographAngles.MINUTE_NANOS + 15 * SECOND + 250 * MILLI);
+        assertEquals(90f, angles.tenth, 0f);
+        assertEquals(91.5f, angles.second, 0f);
+        assertEquals(17 * 12f, angles.minute, 0f);
+
+        //跨过 30 分钟后分钟小表盘回到 0
+        angles.set(ChronographAngles.MINUTE_DIAL_NANOS + 1);
+        assertEquals(0f, angles.minute, 0f);
+    }
+
+    @Test
+    public void lapDoesNotAllocate() throws Exception {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("no per-thread allocation accounting on this JVM", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("per-thread allocation accounting is unavailable or disabled",
+                threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        long threadId = Thread.currentThread().getId();
+        Chronograph chronograph = new Chronograph(256);
+        ChronographAngles angles = new ChronographAngles();
+        chronograph.start(0);
+        //预热，排除类加载和解释执行的一次性开销
+        record(chronograph, angles, 10000);
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        record(chronograph, angles, 10000);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        //每圈哪怕只产生一个对象也会超过 100KB
+        assertTrue("allocated " + allocated + " bytes", allocated < 1024);
+        assertEquals(20000, chronograph.getLaps().getTotalCount());
+    }
+
+    private static void record(Chronograph chronograph, ChronographAngles angles, int count) {
+        LapRingBuffer laps = chronograph.getLaps();
+        long base = laps.getTotalCount() * 10 * MILLI;
+        for (int i = 1; i <= count; i++) {
+            long now = base + i * 10 * MILLI;
+            chronograph.lap(now);
+            angles.set(chronograph.getElapsedNanos(now));
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class ClockGeometryTest {
+
+    private static final float BORDER = 0.03f;
+    private static final float HOUR = 0.5f;
+    private static final float MINUTE = 0.6f;
+    private static final float SECOND = 0.8f;
+    private static final float BACK = 0.1f;
+
+    private volatile ClockGeometry mPublished = ClockGeometry.EMPTY;
+
+    @Test
+    public void layout() throws Exception {
+        ClockGeometry geometry = ClockGeometry.of(400, 600, BORDER, HOUR, MINUTE, SECOND, BACK);
+        assertEquals(200, geometry.centerX);
+        assertEquals(300, geometry.centerY);
+        assertEquals(6f, geometry.borderWidth, 1e-4f);
+        assertEquals(197f, geometry.radius, 1e-4f);
+        assertEquals(197f * SECOND, geometry.secondHandLength, 1e-4f);
+        assertEquals(12f, geometry.hourHandWidth, 0f);
+        assertTrue(ClockGeometry.EMPTY.isEmpty());
+        assertTrue(ClockGeometry.of(-1, 100, BORDER, HOUR, MINUTE, SECOND, BACK).isEmpty());
+    }
+
+    /**
+     * UI 线程反复旋转屏幕发布新尺寸，渲染线程每次读到的快照都必须自洽
+     */
+    @Test
+    public void concurrentResizeNeverTears() throws Exception {
+        final int iterations = 200000;
+        final int readers = 3;
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(readers);
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final boolean[] writing = {true};
+
+        for (int i = 0; i < readers; i++) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        while (writing[0] && failure.get() == null) {
+                            ClockGeometry geometry = mPublished;
+                            String error = check(geometry);
+                            if (error != null) {
+                                failure.compareAndSet(null, error);
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }).start();
+        }
+
+        start.countDown();
+        for (int i = 0; i < iterations; i++) {
+            int width = 300 + i % 1200;
+            int height = 2000 - i % 1200;
+            mPublished = ClockGeometry.of(width, height, BORDER, HOUR, MINUTE, SECOND, BACK);
+        }
+        synchronized (writing) {
+            writing[0] = false;
+        }
+        done.await();
+        assertNull(failure.get());
+    }
+
+    /**
+     * @return 快照与按其宽高重新计算的结果不一致时返回描述，否则返回 null
+     */
+    private static String check(ClockGeometry geometry) {
+        if (geometry.isEmpty()) {
+            return null;
+        }
+        ClockGeometry expected = ClockGeometry.of(geometry.width, geometry.height, BORDER, HOUR, MINUTE, SECOND, BACK);
+        if (geometry.centerX != expected.centerX || geometry.centerY != expected.centerY
+                || geometry.radius != expected.radius
+                || geometry.hourHandLength != expected.hourHandLength
+                || geometry.minuteHandLength != expected.minuteHandLength
+                || geometry.secondHandLength != expected.secondHandLength
+                || geometry.handBackLength != expected.handBackLength
+                || geometry.secondHandWidth != expected.secondHandWidth) {
+            return "torn snapshot: " + geometry;
+        }
+        return null;
+    }
+}
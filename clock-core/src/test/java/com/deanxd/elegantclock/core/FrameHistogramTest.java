@@ -0,0 +1,53 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class FrameHistogramTest {
+
+    @Test
+    public void bucketBoundsContainValue() throws Exception {
+        for (long value = 0; value < 1L << 36; value = value * 3 / 2 + 1) {
+            int index = FrameHistogram.indexFor(value);
+            assertTrue(value + " below bucket", FrameHistogram.lowerBound(index) <= value);
+            assertTrue(value + " above bucket", FrameHistogram.upperBound(index) >= value);
+        }
+    }
+
+    @Test
+    public void percentiles() throws Exception {
+        FrameHistogram histogram = new FrameHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i * 1000000L);
+        }
+        assertEquals(100, histogram.getCount());
+        assertEquals(50e6, histogram.getPercentile(50), 50e6 * 0.125);
+        assertEquals(99e6, histogram.getPercentile(99), 99e6 * 0.125);
+    }
+
+    @Test
+    public void missedFrames() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        long interval = 16666667L;
+        metrics.recordFrame(0, 1000000, 10000000, interval);
+        metrics.recordFrame(interval, interval, interval + 3 * interval, interval);
+        assertEquals(2, metrics.getFrameCount());
+        assertEquals(2, metrics.getMissedFrameCount());
+    }
+
+    @Test
+    public void cpuTime() throws Exception {
+        FrameMetrics metrics = new FrameMetrics();
+        assertEquals(0, metrics.getCpuTimePercentile(50));
+        metrics.recordCpuTime(2000000L);
+        assertEquals(0, metrics.getFrameCount());
+        assertEquals(2e6, metrics.getCpuTimePercentile(50), 2e6 * 0.125);
+        metrics.reset();
+        assertEquals(0, metrics.getCpuTimePercentile(50));
+    }
+}
@@ -0,0 +1,211 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.Properties;
+
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+/**
+ * 每帧计算路径的回归测试：模拟数小时的帧，不允许分配对象，平均耗时不超过保存的基线
+ * <p>
+ * 线上使用的 {@link SystemTimeSource} 每分钟重新锚定一次、分配一个锚点对象，单独用手动推进的墙上时间检查：
+ * 只允许重新锚定时分配，每帧本身不分配。渲染器在 app 模块中，不在这里覆盖。
+ * <p>
+ * 耗时取决于机器，基线检查默认跳过，只在测得基线的机器上用 {@code ./gradlew :clock-core:test -PframeBaseline} 运行；
+ * 基线保存在 frame-baseline.properties，修改每帧路径后若耗时确有变化，按失败信息中的实测值更新基线。
+ *
+ * @author Dean
+ */
+public class FramePathTest {
+
+    private static final long FRAME_MILLIS = 16;
+    /**
+     * 3 小时 60fps
+     */
+    private static final int FRAMES = (int) (3 * HandAngles.HOUR_MILLIS / FRAME_MILLIS);
+    private static final int WARMUP_FRAMES = 200000;
+    private static final int RUNS = 3;
+    /**
+     * 打开耗时基线检查的系统属性
+     */
+    private static final String PROPERTY_BASELINE = "frameBaseline";
+    /**
+     * 每次重新锚定允许分配的字节数：一个锚点对象，留出不压缩指针时的余量
+     */
+    private static final long ANCHOR_BYTES = 96;
+    /**
+     * 2021-03-14 00:00:00 UTC，模拟区间跨过纽约的夏令时切换
+     */
+    private static final long START_UTC = 1615680000000L;
+
+    private static final String[] ZONES = {
+            "America/New_York", "America/Los_Angeles", "America/Sao_Paulo", "Europe/London",
+            "Europe/Berlin", "Africa/Cairo", "Asia/Kolkata", "Asia/Shanghai",
+            "Asia/Tokyo", "Australia/Sydney", "Australia/Lord_Howe", "Pacific/Auckland"};
+
+    private final HandAngles mAngles = new HandAngles();
+    private final HandAngles mZoneAngles = new HandAngles();
+    private final ChronographAngles mChronographAngles = new ChronographAngles();
+    private final float[] mPoints = new float[4];
+    private final FrameRateGovernor.Decision mDecision = FrameRateGovernor.decide(
+            FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, true, false);
+    private final ClockGeometry mGeometry = ClockGeometry.of(720, 720, 0.02f, 0.5f, 0.6f, 0.8f, 0.1f);
+    private SimulatedTimeSource mTimeSource;
+    private ZoneOffsetTable mZoneTable;
+    private Chronograph mChronograph;
+    private float mSink;
+
+    @Before
+    public void setUp() throws Exception {
+        mTimeSource = SimulatedTimeSource.manual(START_UTC);
+        mZoneTable = new ZoneOffsetTable(ZONES);
+        mChronograph = new Chronograph();
+        mChronograph.start(mTimeSource.nanoTime());
+    }
+
+    @Test
+    public void framesDoNotAllocate() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = allocationBean();
+        long threadId = Thread.currentThread().getId();
+        //预热，排除类加载、时区规则查询和解释执行的一次性开销
+        runFrames(WARMUP_FRAMES);
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        runFrames(FRAMES);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        //每帧哪怕只产生一个对象也会超过 10MB
+        assertTrue("allocated " + allocated + " bytes in " + FRAMES + " frames", allocated < 1024);
+    }
+
+    /**
+     * 线上时间来源跨过多次重新锚定，分配只来自每分钟一个锚点
+     */
+    @Test
+    public void systemTimeSourceAllocatesOnlyWhenReanchoring() throws Exception {
+        com.sun.management.ThreadMXBean threadBean = allocationBean();
+        long threadId = Thread.currentThread().getId();
+        SteppedSystemTimeSource timeSource = new SteppedSystemTimeSource(START_UTC);
+        runSystemFrames(timeSource, WARMUP_FRAMES);
+        threadBean.getThreadAllocatedBytes(threadId);
+
+        long before = threadBean.getThreadAllocatedBytes(threadId);
+        runSystemFrames(timeSource, FRAMES);
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - before;
+        long reanchors = FRAMES * FRAME_MILLIS * 1000000 / SystemTimeSource.REANCHOR_NANOS + 1;
+        assertTrue("allocated " + allocated + " bytes in " + FRAMES + " frames with " + reanchors + " reanchors",
+                allocated < 1024 + reanchors * ANCHOR_BYTES);
+    }
+
+    @Test
+    public void frameCostWithinBaseline() throws Exception {
+        assumeTrue("frame cost baseline disabled, enable with -D" + PROPERTY_BASELINE,
+                Boolean.getBoolean(PROPERTY_BASELINE));
+        Properties baseline = new Properties();
+        InputStream in = FramePathTest.class.getResourceAsStream("frame-baseline.properties");
+        try {
+            baseline.load(in);
+        } finally {
+            in.close();
+        }
+        double baselineNanos = Double.parseDouble(baseline.getProperty("frameNanos"));
+        double tolerance = Double.parseDouble(baseline.getProperty("tolerance"));
+
+        runFrames(WARMUP_FRAMES);
+        //取几轮中最快的一轮，减少 GC 和调度带来的抖动
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < RUNS; i++) {
+            long start = System.nanoTime();
+            runFrames(FRAMES);
+            best = Math.min(best, (System.nanoTime() - start) / (double) FRAMES);
+        }
+        assertTrue(String.format(Locale.US, "%.1f ns/frame, baseline %.1f ns/frame x %.1f",
+                best, baselineNanos, tolerance), best <= baselineNanos * tolerance);
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        assumeTrue("no per-thread allocation accounting on this JVM", bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean threadBean = (com.sun.management.ThreadMXBean) bean;
+        assumeTrue("per-thread allocation accounting is unavailable or disabled",
+                threadBean.isThreadAllocatedMemorySupported() && threadBean.isThreadAllocatedMemoryEnabled());
+        return threadBean;
+    }
+
+    private void runSystemFrames(SteppedSystemTimeSource timeSource, int frames) {
+        float sink = mSink;
+        for (int i = 0; i < frames; i++) {
+            timeSource.advanceMillis(FRAME_MILLIS);
+            mAngles.set(timeSource.localMillisAt(timeSource.nanoTime()));
+            sink += mAngles.second;
+        }
+        mSink = sink;
+    }
+
+    /**
+     * 一帧在 clock-core 中的全部计算：取时间、按刷新策略取整、三根指针、各时区的时钟、秒表和防烧屏偏移
+     */
+    private void runFrames(int frames) {
+        SimulatedTimeSource timeSource = mTimeSource;
+        ZoneOffsetTable zoneTable = mZoneTable;
+        ClockGeometry geometry = mGeometry;
+        float sink = mSink;
+        for (int i = 0; i < frames; i++) {
+            timeSource.advanceMillis(FRAME_MILLIS);
+            long nanos = timeSource.nanoTime();
+            long utcMillis = timeSource.localMillisAt(nanos);
+
+            HandAngles angles = mAngles;
+            angles.set(mDecision.quantize(zoneTable.localMillisAt(0, utcMillis)));
+            HandGeometry.calculatePoint(angles.hour, geometry.hourHandLength, geometry.handBackLength, mPoints);
+            sink += mPoints[0];
+            HandGeometry.calculatePoint(angles.minute, geometry.minuteHandLength, geometry.handBackLength, mPoints);
+            sink += mPoints[0];
+            HandGeometry.calculatePoint(angles.second, geometry.secondHandLength, geometry.handBackLength, mPoints);
+            sink += mPoints[0];
+
+            for (int zone = 1; zone < ZONES.length; zone++) {
+                mZoneAngles.set(zoneTable.localMillisAt(zone, utcMillis));
+                sink += mZoneAngles.second;
+            }
+
+            mChronographAngles.set(mChronograph.getElapsedNanos(nanos));
+            sink += mChronographAngles.tenth + BurnInShift.offsetX(utcMillis, 4);
+        }
+        mSink = sink;
+    }
+
+    /**
+     * 墙上时间和单调时间一起手动推进的系统时间来源
+     */
+    private static final class SteppedSystemTimeSource extends SystemTimeSource {
+        private long mNanos;
+        private long mWallMillis;
+
+        SteppedSystemTimeSource(long wallMillis) {
+            mWallMillis = wallMillis;
+            invalidate();
+        }
+
+        void advanceMillis(long millis) {
+            mNanos += millis * 1000000;
+            mWallMillis += millis;
+        }
+
+        @Override
+        public long nanoTime() {
+            return mNanos;
+        }
+
+        @Override
+        long currentTimeMillis() {
+            return mWallMillis;
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class FrameRateGovernorTest {
+
+    @Test
+    public void decisions() throws Exception {
+        FrameRateGovernor.Decision sweep = FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, true, false);
+        assertEquals(60f, sweep.getFrameRate(60f), 0f);
+        assertEquals(1f, FrameRateGovernor.decide(FrameRateGovernor.MOTION_TICK, false, FrameRateGovernor.THERMAL_NONE, true, false).getFrameRate(60f), 0f);
+        assertEquals(1f, FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, true, FrameRateGovernor.THERMAL_NONE, true, false).getFrameRate(60f), 0f);
+        assertEquals(30f, FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_MODERATE, true, false).getFrameRate(60f), 0f);
+        assertEquals(1f, FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_SEVERE, true, false).getFrameRate(60f), 0f);
+
+        FrameRateGovernor.Decision minute = FrameRateGovernor.decide(FrameRateGovernor.MOTION_MINUTE, true, FrameRateGovernor.THERMAL_SEVERE, true, false);
+        assertEquals(HandAngles.MINUTE_MILLIS, minute.periodMillis);
+        assertFalse(minute.secondHandVisible);
+
+        FrameRateGovernor.Decision hidden = FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, false, false);
+        assertTrue(hidden.paused);
+        assertTrue(FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, false, true).paused);
+
+        FrameRateGovernor.Decision ambient = FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, true, true);
+        assertEquals(HandAngles.MINUTE_MILLIS, ambient.periodMillis);
+        assertEquals(HandAngles.MINUTE_MILLIS, ambient.quantumMillis);
+        assertFalse(ambient.secondHandVisible);
+        assertEquals(0f, hidden.getFrameRate(60f), 0f);
+    }
+
+    @Test
+    public void quantize() throws Exception {
+        FrameRateGovernor.Decision tick = FrameRateGovernor.decide(FrameRateGovernor.MOTION_TICK, false, FrameRateGovernor.THERMAL_NONE, true, false);
+        assertEquals(12000, tick.quantize(12999));
+        assertEquals(-2000, tick.quantize(-1001));
+        FrameRateGovernor.Decision sweep = FrameRateGovernor.decide(FrameRateGovernor.MOTION_SWEEP, false, FrameRateGovernor.THERMAL_NONE, true, false);
+        assertEquals(12999, sweep.quantize(12999));
+    }
+
+    @Test
+    public void listenerOnlyOnChange() throws Exception {
+        FrameRateGovernor governor = new FrameRateGovernor();
+        final FrameRateGovernor.Decision[] last = new FrameRateGovernor.Decision[1];
+        final int[] calls = new int[1];
+        governor.addListener(new FrameRateGovernor.Listener() {
+            @Override
+            public void onDecisionChanged(FrameRateGovernor.Decision decision) {
+                last[0] = decision;
+                calls[0]++;
+            }
+        });
+        governor.setThermalLevel(FrameRateGovernor.thermalLevelForBatteryTemperature(300));
+        assertEquals(0, calls[0]);
+        governor.setThermalLevel(FrameRateGovernor.thermalLevelForBatteryTemperature(460));
+        assertEquals(1, calls[0]);
+        assertSame(governor.getDecision(), last[0]);
+        assertEquals("thermal severe", last[0].reason);
+        governor.setPowerSave(true);
+        assertEquals(2, calls[0]);
+        assertEquals("power save", last[0].reason);
+        governor.setMotion(FrameRateGovernor.MOTION_MINUTE);
+        governor.setMotion(FrameRateGovernor.MOTION_MINUTE);
+        assertEquals(3, calls[0]);
+    }
+
+    @Test
+    public void chronographRunsEveryVsync() throws Exception {
+        FrameRateGovernor governor = new FrameRateGovernor();
+        governor.setMotion(FrameRateGovernor.MOTION_MINUTE);
+        assertEquals("sweep", governor.getDecision(false, true).reason);
+        governor.setPowerSave(true);
+        assertEquals("power save", governor.getDecision(false, true).reason);
+        governor.setPowerSave(false);
+        assertEquals("seconds hidden", governor.getDecision(false, false).reason);
+    }
+
+    /**
+     * 一个时钟进入常亮模式或开始计时，不改变其他时钟的决策
+     */
+    @Test
+    public void perClockStateDoesNotLeak() throws Exception {
+        FrameRateGovernor governor = new FrameRateGovernor();
+        governor.setMotion(FrameRateGovernor.MOTION_TICK);
+        assertEquals("ambient", governor.getDecision(true, false).reason);
+        assertEquals("ambient", governor.getDecision(true, true).reason);
+        assertEquals("sweep", governor.getDecision(false, true).reason);
+        assertSame(governor.getDecision(), governor.getDecision(false, false));
+        assertEquals("tick", governor.getDecision().reason);
+        assertTrue(governor.getDecision().secondHandVisible);
+    }
+
+    @Test
+    public void fasterPicksTheHighestRate() throws Exception {
+        FrameRateGovernor governor = new FrameRateGovernor();
+        governor.setMotion(FrameRateGovernor.MOTION_TICK);
+        FrameRateGovernor.Decision tick = governor.getDecision();
+        FrameRateGovernor.Decision ambient = governor.getDecision(true, false);
+        FrameRateGovernor.Decision sweep = governor.getDecision(false, true);
+        assertSame(tick, FrameRateGovernor.faster(ambient, tick));
+        assertSame(sweep, FrameRateGovernor.faster(tick, sweep));
+        assertSame(sweep, FrameRateGovernor.faster(sweep, ambient));
+        governor.setVisible(false);
+        FrameRateGovernor.Decision hidden = governor.getDecision();
+        assertSame(ambient, FrameRateGovernor.faster(hidden, ambient));
+        assertSame(ambient, FrameRateGovernor.faster(ambient, hidden));
+    }
+
+    @Test
+    public void hiddenPausesEveryClock() throws Exception {
+        FrameRateGovernor governor = new FrameRateGovernor();
+        governor.setVisible(false);
+        assertTrue(governor.getDecision(true, false).paused);
+        assertTrue(governor.getDecision(false, true).paused);
+        assertTrue(governor.getDecision().paused);
+    }
+}
@@ -0,0 +1,29 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Dean
+ */
+public class HandAnglesTest {
+
+    private static final float DELTA = 1e-3f;
+
+    @Test
+    public void halfPastThree() throws Exception {
+        HandAngles angles = new HandAngles();
+        angles.set(15, 30, 0, 0);
+        assertEquals(105f, angles.hour, DELTA);
+        assertEquals(180f, angles.minute, DELTA);
+        assertEquals(0f, angles.second, DELTA);
+    }
+
+    @Test
+    public void negativeMillisWrap() throws Exception {
+        HandAngles angles = new HandAngles();
+        angles.set(-HandAngles.MINUTE_MILLIS / 4);
+        assertEquals(270f, angles.second, DELTA);
+    }
+}
@@ -0,0 +1,32 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Dean
+ */
+public class HandGeometryTest {
+
+    private static final float DELTA = 1e-5f;
+
+    @Test
+    public void lookupMatchesMath() throws Exception {
+        for (float angle = -720f; angle <= 720f; angle += 0.013f) {
+            double radians = Math.toRadians(angle);
+            assertEquals(Math.sin(radians), HandGeometry.sin(angle), DELTA);
+            assertEquals(Math.cos(radians), HandGeometry.cos(angle), DELTA);
+        }
+    }
+
+    @Test
+    public void calculatePoint_threeOClock() throws Exception {
+        float[] points = new float[4];
+        HandGeometry.calculatePoint(90f, 80f, 10f, points);
+        assertEquals(-10f, points[0], DELTA);
+        assertEquals(0f, points[1], DELTA);
+        assertEquals(80f, points[2], DELTA);
+        assertEquals(0f, points[3], DELTA);
+    }
+}
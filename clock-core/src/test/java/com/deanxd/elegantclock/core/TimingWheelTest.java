@@ -0,0 +1,196 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author Dean
+ */
+public class TimingWheelTest {
+
+    private static final long TICK = 1000;
+    private static final long START = 1500000000000L;
+
+    private final List<long[]> mExpired = new ArrayList<>();
+    private long mNow;
+
+    private final TimingWheel.Listener mListener = new TimingWheel.Listener() {
+        @Override
+        public void onExpired(int id, long dueMillis) {
+            mExpired.add(new long[]{id, dueMillis, mNow});
+        }
+    };
+
+    @Test
+    public void expiresAtDueTime() throws Exception {
+        TimingWheel wheel = new TimingWheel(TICK, START);
+        wheel.schedule(0, START + 500);
+        wheel.schedule(1, START + 3 * TICK + 10);
+        //跨过第 1 层和第 2 层的边界
+        wheel.schedule(2, START + 5000 * TICK);
+        wheel.schedule(3, START + 300000 * TICK + 1);
+        assertEquals(4, wheel.size());
+        assertEquals(START + 500, wheel.nextDueMillis());
+
+        advance(wheel, START + 499);
+        assertEquals(0, mExpired.size());
+        advance(wheel, START + 500);
+        assertEquals(1, mExpired.size());
+        assertEquals(0, mExpired.get(0)[0]);
+
+        advance(wheel, START + 3 * TICK);
+        assertEquals(1, mExpired.size());
+        advance(wheel, START + 3 * TICK + 10);
+        assertEquals(2, mExpired.size());
+        advance(wheel, START + 4999 * TICK);
+        assertEquals(2, mExpired.size());
+        assertEquals(START + 5000 * TICK, wheel.nextDueMillis());
+        advance(wheel, START + 5000 * TICK);
+        assertEquals(3, mExpired.size());
+        advance(wheel, START + 300000 * TICK);
+        assertEquals(3, mExpired.size());
+        advance(wheel, START + 300000 * TICK + 1);
+        assertEquals(4, mExpired.size());
+        assertEquals(0, wheel.size());
+        assertEquals(Long.MAX_VALUE, wheel.nextDueMillis());
+    }
+
+    @Test
+    public void cancelAndReschedule() throws Exception {
+        TimingWheel wheel = new TimingWheel(TICK, START);
+        wheel.schedule(7, START + 10 * TICK);
+        wheel.schedule(8, START + 20 * TICK);
+        assertTrue(wheel.cancel(7));
+        assertFalse(wheel.cancel(7));
+        assertFalse(wheel.cancel(1000));
+        wheel.schedule(8, START + 5 * TICK);
+        assertEquals(1, wheel.size());
+        assertEquals(START + 5 * TICK, wheel.getDueMillis(8));
+
+        //已过期的条目在下一次推进时到期
+        wheel.schedule(9, START - 60 * TICK);
+        advance(wheel, START);
+        assertEquals(1, mExpired.size());
+        assertEquals(9, mExpired.get(0)[0]);
+        advance(wheel, START + 100 * TICK);
+        assertEquals(2, mExpired.size());
+        assertEquals(8, mExpired.get(1)[0]);
+    }
+
+    @Test
+    public void beyondRange() throws Exception {
+        TimingWheel wheel = new TimingWheel(TICK, START);
+        long due = START + 400L * 24 * 3600 * TICK;
+        wheel.schedule(0, due);
+        assertEquals(due, wheel.nextDueMillis());
+        advance(wheel, due - 1);
+        assertEquals(0, mExpired.size());
+        advance(wheel, due);
+        assertEquals(1, mExpired.size());
+    }
+
+    /**
+     * 推进到一个 tick 中间时，同一格里还没到时间的条目留到下一次推进
+     */
+    @Test
+    public void neverExpiresEarly() throws Exception {
+        TimingWheel wheel = new TimingWheel(TICK, START);
+        long due = START + 5 * TICK + 700;
+        wheel.schedule(0, due);
+        wheel.schedule(1, due - 400);
+        advance(wheel, due - 1);
+        assertEquals(1, mExpired.size());
+        assertEquals(1, mExpired.get(0)[0]);
+        assertTrue(wheel.contains(0));
+        assertEquals(due, wheel.nextDueMillis());
+        advance(wheel, due - 1);
+        assertEquals(1, mExpired.size());
+        advance(wheel, due);
+        assertEquals(2, mExpired.size());
+        assertEquals(0, mExpired.get(1)[0]);
+        assertEquals(0, wheel.size());
+    }
+
+    /**
+     * 回调里安排一个已过期的条目，不会在同一次推进里再次回调，而是在下一个 tick 到期
+     */
+    @Test
+    public void rescheduleInCallbackWaitsForNextAdvance() throws Exception {
+        final TimingWheel wheel = new TimingWheel(TICK, START);
+        final List<Long> fired = new ArrayList<>();
+        TimingWheel.Listener listener = new TimingWheel.Listener() {
+            @Override
+            public void onExpired(int id, long dueMillis) {
+                fired.add(dueMillis);
+                wheel.schedule(id, dueMillis - TICK);
+            }
+        };
+        wheel.schedule(0, START + 200);
+        assertEquals(1, wheel.advance(START + 200, listener));
+        assertEquals(0, wheel.advance(START + 200, listener));
+        assertEquals(1, wheel.advance(START + TICK, listener));
+        assertEquals(2, fired.size());
+        assertTrue(wheel.contains(0));
+    }
+
+    /**
+     * 随机安排、取消、分段推进，结果与逐个比较到期时间一致
+     */
+    @Test
+    public void matchesBruteForce() throws Exception {
+        Random random = new Random(42);
+        TimingWheel wheel = new TimingWheel(TICK, START);
+        int count = 5000;
+        long[] due = new long[count];
+        boolean[] cancelled = new boolean[count];
+        long horizon = 8L * 24 * 3600 * TICK;
+        for (int id = 0; id < count; id++) {
+            due[id] = START + (long) (random.nextDouble() * horizon);
+            wheel.schedule(id, due[id]);
+        }
+        for (int id = 0; id < count; id += 7) {
+            cancelled[id] = wheel.cancel(id);
+        }
+
+        long now = START;
+        int expected = 0;
+        while (now < START + horizon + TICK) {
+            long nextDue = Long.MAX_VALUE;
+            for (int id = 0; id < count; id++) {
+                if (!cancelled[id] && due[id] > now) {
+                    nextDue = Math.min(nextDue, due[id]);
+                }
+            }
+            if (wheel.size() > 0) {
+                assertEquals(nextDue, wheel.nextDueMillis());
+            }
+            now += (long) (random.nextDouble() * 6 * 3600 * TICK);
+            advance(wheel, now);
+            expected = 0;
+            for (int id = 0; id < count; id++) {
+                if (!cancelled[id] && due[id] <= now) {
+                    expected++;
+                }
+            }
+            assertEquals(expected, mExpired.size());
+        }
+        for (long[] expired : mExpired) {
+            //不早于到期时间
+            assertTrue(expired[1] <= expired[2]);
+            assertFalse(cancelled[(int) expired[0]]);
+        }
+        assertEquals(0, wheel.size());
+    }
+
+    private void advance(TimingWheel wheel, long nowMillis) {
+        mNow = nowMillis;
+        wheel.advance(nowMillis, mListener);
+    }
+}
@@ -0,0 +1,100 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+
+/**
+ * @author Dean
+ */
+public class ZoneOffsetTableTest {
+
+    /**
+     * 2021-03-14 07:00:00 UTC，纽约切换到夏令时
+     */
+    private static final long NEW_YORK_DST_START = 1615705200000L;
+    /**
+     * 2021-11-07 06:00:00 UTC，纽约切换回标准时间
+     */
+    private static final long NEW_YORK_DST_END = 1636264800000L;
+    /**
+     * 2021-01-01 00:00:00 UTC
+     */
+    private static final long YEAR_2021 = 1609459200000L;
+
+    @Test
+    public void switchesAtDstStart() throws Exception {
+        ZoneOffsetTable table = new ZoneOffsetTable("Asia/Shanghai", "America/New_York");
+        assertEquals(-5 * HandAngles.HOUR_MILLIS, table.getOffset(1, NEW_YORK_DST_START - 1));
+        assertEquals(-4 * HandAngles.HOUR_MILLIS, table.getOffset(1, NEW_YORK_DST_START));
+        assertEquals(8 * HandAngles.HOUR_MILLIS, table.getOffset(0, NEW_YORK_DST_START));
+    }
+
+    @Test
+    public void switchesAtDstEnd() throws Exception {
+        ZoneOffsetTable table = new ZoneOffsetTable("America/New_York");
+        //本地 01:59:59.999 EDT 之后回到 01:00 EST
+        assertEquals(NEW_YORK_DST_END - 4 * HandAngles.HOUR_MILLIS - 1, table.localMillisAt(0, NEW_YORK_DST_END - 1));
+        assertEquals(NEW_YORK_DST_END - 5 * HandAngles.HOUR_MILLIS, table.localMillisAt(0, NEW_YORK_DST_END));
+    }
+
+    /**
+     * 每帧推进 16ms 跨过切换时刻，每一帧都与时区规则一致
+     */
+    @Test
+    public void followsFramesAcrossTransitions() throws Exception {
+        String[] ids = {"America/New_York", "Europe/London", "Australia/Sydney", "Australia/Lord_Howe"};
+        ZoneOffsetTable table = new ZoneOffsetTable(ids);
+        TimeZone[] zones = new TimeZone[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            zones[i] = TimeZone.getTimeZone(ids[i]);
+        }
+        long[] transitions = {NEW_YORK_DST_START, NEW_YORK_DST_END};
+        for (long transition : transitions) {
+            for (long utc = transition - HandAngles.MINUTE_MILLIS; utc < transition + HandAngles.MINUTE_MILLIS; utc += 16) {
+                for (int i = 0; i < ids.length; i++) {
+                    assertEquals(ids[i], zones[i].getOffset(utc), table.getOffset(i, utc));
+                }
+            }
+        }
+    }
+
+    /**
+     * 所有时区在一整年里按 1 小时步进都与时区规则一致
+     */
+    @Test
+    public void matchesEveryZoneForAYear() throws Exception {
+        String[] ids = TimeZone.getAvailableIDs();
+        ZoneOffsetTable table = new ZoneOffsetTable(ids);
+        for (long utc = YEAR_2021; utc < YEAR_2021 + 365 * HandAngles.DAY_MILLIS; utc += HandAngles.HOUR_MILLIS) {
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals(ids[i], table.getZone(i).getOffset(utc), table.getOffset(i, utc));
+            }
+        }
+    }
+
+    /**
+     * 系统时间被调回夏令时之前
+     */
+    @Test
+    public void handlesTimeGoingBackwards() throws Exception {
+        ZoneOffsetTable table = new ZoneOffsetTable("America/New_York");
+        assertEquals(-4 * HandAngles.HOUR_MILLIS, table.getOffset(0, NEW_YORK_DST_START + HandAngles.HOUR_MILLIS));
+        assertEquals(-5 * HandAngles.HOUR_MILLIS, table.getOffset(0, NEW_YORK_DST_START - HandAngles.HOUR_MILLIS));
+    }
+
+    @Test
+    public void invalidateRereadsZone() throws Exception {
+        ZoneOffsetTable table = new ZoneOffsetTable("Asia/Tokyo");
+        assertEquals(9 * HandAngles.HOUR_MILLIS, table.getOffset(0, YEAR_2021));
+        TimeZone zone = table.getZone(0);
+        table.invalidate();
+        assertEquals(9 * HandAngles.HOUR_MILLIS, table.getOffset(0, YEAR_2021));
+        assertNotSame(zone, table.getZone(0));
+        assertEquals("Asia/Tokyo", table.getId(0));
+        assertEquals(1, table.size());
+    }
+}
@@ -0,0 +1,32 @@
+package com.deanxd.elegantclock.core;
+
+import org.junit.Test;
+
+import java.util.TimeZone;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * @author Dean
+ */
+public class ZoneTransitionsTest {
+
+    /**
+     * 2021-03-14 07:00:00 UTC，纽约切换到夏令时
+     */
+    private static final long NEW_YORK_DST_START = 1615705200000L;
+
+    @Test
+    public void findsDstStart() throws Exception {
+        TimeZone zone = TimeZone.getTimeZone("America/New_York");
+        long before = NEW_YORK_DST_START - 5 * HandAngles.HOUR_MILLIS;
+        assertEquals(NEW_YORK_DST_START, ZoneTransitions.nextTransition(zone, before));
+    }
+
+    @Test
+    public void noTransitionWithinProbe() throws Exception {
+        TimeZone zone = TimeZone.getTimeZone("Asia/Shanghai");
+        long utc = NEW_YORK_DST_START;
+        assertEquals(utc + ZoneTransitions.PROBE_MILLIS, ZoneTransitions.nextTransition(zone, utc));
+    }
+}